@@ -5,10 +5,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.DefaultJackson2JavaTypeMapper;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -20,10 +26,41 @@ public class AmqpConfig {
         return new Queue("shelfChanged");
     }
 
+    /**
+     * Every instance of the service receives the changes of the shelf through this exchange,
+     * so the instances can keep their in-memory state in sync.
+     */
+    @Bean
+    public FanoutExchange shelfChangedBroadcast() {
+        return new FanoutExchange("shelfChanged.broadcast");
+    }
+
+    /**
+     * The exclusive, auto-delete queue of this instance, bound to the {@link #shelfChangedBroadcast()} exchange.
+     */
+    @Bean
+    public Queue shelfChangedBroadcastQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding shelfChangedBroadcastBinding() {
+        return BindingBuilder.bind(shelfChangedBroadcastQueue()).to(shelfChangedBroadcast());
+    }
+
+    @Bean
+    public MessageConverter jsonMessageConverter() {
+        Jackson2JsonMessageConverter messageConverter = new Jackson2JsonMessageConverter(createObjectMapper());
+        DefaultJackson2JavaTypeMapper typeMapper = new DefaultJackson2JavaTypeMapper();
+        typeMapper.setTrustedPackages("io.github.dadikovi.domain");
+        messageConverter.setJavaTypeMapper(typeMapper);
+        return messageConverter;
+    }
+
     @Bean
     public AmqpTemplate template( ConnectionFactory connectionFactory) {
         final RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(new Jackson2JsonMessageConverter(createObjectMapper()));
+        rabbitTemplate.setMessageConverter(jsonMessageConverter());
         return rabbitTemplate;
     }
 
@@ -1,6 +1,13 @@
 package io.github.dadikovi.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Properties specific to Library Shelf.
@@ -9,4 +16,1114 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link io.github.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Pagination pagination = new Pagination();
+
+    private final Export export = new Export();
+
+    private final Lookup lookup = new Lookup();
+
+    private final MultiQuery multiQuery = new MultiQuery();
+
+    private final BatchLoader batchLoader = new BatchLoader();
+
+    private final Coalescing coalescing = new Coalescing();
+
+    private final BookCache bookCache = new BookCache();
+
+    private final SecondLevelCache secondLevelCache = new SecondLevelCache();
+
+    private final ExampleCache exampleCache = new ExampleCache();
+
+    private final Snapshot snapshot = new Snapshot();
+
+    private final BitmapIndex bitmapIndex = new BitmapIndex();
+
+    private final IdFilter idFilter = new IdFilter();
+
+    private final JsonCache jsonCache = new JsonCache();
+
+    private final Replicas replicas = new Replicas();
+
+    private final AsyncRequests asyncRequests = new AsyncRequests();
+
+    private final Reactive reactive = new Reactive();
+
+    private final JdbcReads jdbcReads = new JdbcReads();
+
+    private final StaleReads staleReads = new StaleReads();
+
+    private final Search search = new Search();
+
+    private final Autocomplete autocomplete = new Autocomplete();
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Lookup getLookup() {
+        return lookup;
+    }
+
+    public MultiQuery getMultiQuery() {
+        return multiQuery;
+    }
+
+    public BatchLoader getBatchLoader() {
+        return batchLoader;
+    }
+
+    public Coalescing getCoalescing() {
+        return coalescing;
+    }
+
+    public BookCache getBookCache() {
+        return bookCache;
+    }
+
+    public SecondLevelCache getSecondLevelCache() {
+        return secondLevelCache;
+    }
+
+    public ExampleCache getExampleCache() {
+        return exampleCache;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public BitmapIndex getBitmapIndex() {
+        return bitmapIndex;
+    }
+
+    public IdFilter getIdFilter() {
+        return idFilter;
+    }
+
+    public JsonCache getJsonCache() {
+        return jsonCache;
+    }
+
+    public Replicas getReplicas() {
+        return replicas;
+    }
+
+    public AsyncRequests getAsyncRequests() {
+        return asyncRequests;
+    }
+
+    public Reactive getReactive() {
+        return reactive;
+    }
+
+    public JdbcReads getJdbcReads() {
+        return jdbcReads;
+    }
+
+    public StaleReads getStaleReads() {
+        return staleReads;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Autocomplete getAutocomplete() {
+        return autocomplete;
+    }
+
+    /**
+     * Keyset pagination of the book list endpoints.
+     */
+    public static class Pagination {
+
+        private int defaultSize = 20;
+
+        private int maxSize = 1000;
+
+        public int getDefaultSize() {
+            return defaultSize;
+        }
+
+        public void setDefaultSize(int defaultSize) {
+            this.defaultSize = defaultSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * Streaming export of the whole catalogue.
+     */
+    public static class Export {
+
+        private int fetchSize = 1000;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
+    /**
+     * Batch lookup of books by their ids.
+     */
+    public static class Lookup {
+
+        private int maxIds = 1000;
+
+        /**
+         * The number of ids in one {@code IN} query. Hibernate pads the parameter lists to powers of two,
+         * so a power of two keeps the number of distinct statements low.
+         */
+        private int chunkSize = 256;
+
+        public int getMaxIds() {
+            return maxIds;
+        }
+
+        public void setMaxIds(int maxIds) {
+            this.maxIds = maxIds;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * Several book queries executed in parallel in one request.
+     */
+    public static class MultiQuery {
+
+        private int maxQueries = 20;
+
+        private int poolSize = 8;
+
+        private int queueCapacity = 100;
+
+        private Duration timeout = Duration.ofSeconds(2);
+
+        /**
+         * The longest a request waits for its queries, with the time they wait in the queue of the executor.
+         */
+        private Duration overallTimeout = Duration.ofSeconds(5);
+
+        public int getMaxQueries() {
+            return maxQueries;
+        }
+
+        public void setMaxQueries(int maxQueries) {
+            this.maxQueries = maxQueries;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getOverallTimeout() {
+            return overallTimeout;
+        }
+
+        public void setOverallTimeout(Duration overallTimeout) {
+            this.overallTimeout = overallTimeout;
+        }
+    }
+
+    /**
+     * Batching of the concurrent lookups of single books into {@code IN} queries.
+     */
+    public static class BatchLoader {
+
+        private boolean enabled = false;
+
+        private Duration window = Duration.ofMillis(2);
+
+        private int maxBatchSize = 128;
+
+        /**
+         * The number of threads running the queries of the batches.
+         */
+        private int threads = 2;
+
+        /**
+         * The longest time a load waits for its batch, before loading its book on its own.
+         */
+        private Duration timeout = Duration.ofSeconds(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Coalescing of the identical concurrent reads of books.
+     */
+    public static class Coalescing {
+
+        private boolean enabled = true;
+
+        /**
+         * The longest time a read waits for an identical one in flight, before reading on its own.
+         */
+        private Duration timeout = Duration.ofSeconds(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Local cache of the books by their ids, invalidated by the changes of the shelf on any instance.
+     */
+    public static class BookCache {
+
+        private boolean enabled = true;
+
+        private long maximumSize = 10000;
+
+        /**
+         * Books are evicted after this time even without a change, in case a change notification has been lost.
+         */
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * Regions of the Hibernate second-level cache.
+     */
+    public static class SecondLevelCache {
+
+        /**
+         * Number of the other members keeping a copy of each entry of the distributed regions, so that an entry is
+         * not lost with the instance owning it.
+         */
+        private int backupCount = 1;
+
+        private final Region book = new Region(10000, Duration.ofMinutes(10));
+
+        private final Region queryResults = new Region(1000, Duration.ofMinutes(10));
+
+        public int getBackupCount() {
+            return backupCount;
+        }
+
+        public void setBackupCount(int backupCount) {
+            this.backupCount = backupCount;
+        }
+
+        public Region getBook() {
+            return book;
+        }
+
+        public Region getQueryResults() {
+            return queryResults;
+        }
+
+        public static class Region {
+
+            private long maxEntries;
+
+            private Duration timeToLive;
+
+            public Region(long maxEntries, Duration timeToLive) {
+                this.maxEntries = maxEntries;
+                this.timeToLive = timeToLive;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+        }
+    }
+
+    /**
+     * Cache of the pages of the query-by-example query of books.
+     */
+    public static class ExampleCache {
+
+        private boolean enabled = false;
+
+        /**
+         * The bound of the estimated memory used by the cached pages.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(32);
+
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * In-memory snapshot of every book, serving the reads of the books.
+     */
+    public static class Snapshot {
+
+        private boolean enabled = false;
+
+        /**
+         * The snapshot is rebuilt from the database this often, in case a change notification has been lost.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+
+    /**
+     * In-memory bitmap indexes of the authors, the publishers and the publish years, answering the filters on them.
+     */
+    public static class BitmapIndex {
+
+        private boolean enabled = false;
+
+        /**
+         * The indexes are rebuilt from the database this often, to recover the changes whose messages have been lost.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+
+    /**
+     * Bloom filter of the existing book ids, answering the reads of the missing books without the database.
+     */
+    public static class IdFilter {
+
+        private boolean enabled = false;
+
+        /**
+         * The probability of a missing id passing the filter, right after a rebuild.
+         */
+        private double falsePositiveProbability = 0.01;
+
+        /**
+         * The filter is rebuilt from the database this often, to forget the deleted books, which it can not remove.
+         */
+        private Duration rebuildInterval = Duration.ofHours(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getFalsePositiveProbability() {
+            return falsePositiveProbability;
+        }
+
+        public void setFalsePositiveProbability(double falsePositiveProbability) {
+            this.falsePositiveProbability = falsePositiveProbability;
+        }
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+
+    /**
+     * Off-heap cache of the serialized JSON of the books, written to the responses as it is.
+     */
+    public static class JsonCache {
+
+        private boolean enabled = false;
+
+        /**
+         * The ceiling of the off-heap memory of the cached JSON.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * The number of parts of the memory: when it is full, the oldest part is dropped.
+         */
+        private int segments = 16;
+
+        /**
+         * Whether the compressed JSON is cached too, for the clients accepting gzip.
+         */
+        private boolean gzip = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public void setSegments(int segments) {
+            this.segments = segments;
+        }
+
+        public boolean isGzip() {
+            return gzip;
+        }
+
+        public void setGzip(boolean gzip) {
+            this.gzip = gzip;
+        }
+    }
+
+    /**
+     * Read replicas of the database, serving the read-only transactions.
+     */
+    public static class Replicas {
+
+        private boolean enabled = false;
+
+        /**
+         * The replicas, with the pool settings of the primary data source.
+         */
+        private List<Replica> dataSources = new ArrayList<>();
+
+        /**
+         * The read-only transactions use the primary for this long after a change of the shelf, as the replicas
+         * may not have it yet.
+         */
+        private Duration maxLag = Duration.ofSeconds(1);
+
+        /**
+         * The replicas are checked this often, an unhealthy one is not used until a check succeeds.
+         */
+        private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+        private Duration healthCheckTimeout = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<Replica> getDataSources() {
+            return dataSources;
+        }
+
+        public void setDataSources(List<Replica> dataSources) {
+            this.dataSources = dataSources;
+        }
+
+        public Duration getMaxLag() {
+            return maxLag;
+        }
+
+        public void setMaxLag(Duration maxLag) {
+            this.maxLag = maxLag;
+        }
+
+        public Duration getHealthCheckInterval() {
+            return healthCheckInterval;
+        }
+
+        public void setHealthCheckInterval(Duration healthCheckInterval) {
+            this.healthCheckInterval = healthCheckInterval;
+        }
+
+        public Duration getHealthCheckTimeout() {
+            return healthCheckTimeout;
+        }
+
+        public void setHealthCheckTimeout(Duration healthCheckTimeout) {
+            this.healthCheckTimeout = healthCheckTimeout;
+        }
+
+        public static class Replica {
+
+            private String url;
+
+            private String username;
+
+            private String password;
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+        }
+    }
+
+    /**
+     * The asynchronous book endpoints, running the reads and the writes on their own executors instead of the
+     * threads of the servlet container.
+     */
+    public static class AsyncRequests {
+
+        /**
+         * Every read holds a database connection, keep it below the size of the connection pool.
+         */
+        private int readPoolSize = 16;
+
+        private int readQueueCapacity = 200;
+
+        private int writePoolSize = 4;
+
+        private int writeQueueCapacity = 100;
+
+        /**
+         * A request not processed by then is answered with 503 (Service Unavailable).
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        public int getReadPoolSize() {
+            return readPoolSize;
+        }
+
+        public void setReadPoolSize(int readPoolSize) {
+            this.readPoolSize = readPoolSize;
+        }
+
+        public int getReadQueueCapacity() {
+            return readQueueCapacity;
+        }
+
+        public void setReadQueueCapacity(int readQueueCapacity) {
+            this.readQueueCapacity = readQueueCapacity;
+        }
+
+        public int getWritePoolSize() {
+            return writePoolSize;
+        }
+
+        public void setWritePoolSize(int writePoolSize) {
+            this.writePoolSize = writePoolSize;
+        }
+
+        public int getWriteQueueCapacity() {
+            return writeQueueCapacity;
+        }
+
+        public void setWriteQueueCapacity(int writeQueueCapacity) {
+            this.writeQueueCapacity = writeQueueCapacity;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Reactive, read-only variant of the book API on R2DBC, served on its own port.
+     */
+    public static class Reactive {
+
+        private boolean enabled = false;
+
+        /**
+         * The port of the reactive server, 0 for a random one.
+         */
+        private int port = 8082;
+
+        private int eventLoopThreads = 2;
+
+        private String url = "r2dbc:h2:mem:///libraryShelf";
+
+        private String username;
+
+        private String password;
+
+        private int poolSize = 10;
+
+        /**
+         * The export reads the books in pages of this size, as they are requested by the client.
+         */
+        private int exportPageSize = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public int getEventLoopThreads() {
+            return eventLoopThreads;
+        }
+
+        public void setEventLoopThreads(int eventLoopThreads) {
+            this.eventLoopThreads = eventLoopThreads;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getExportPageSize() {
+            return exportPageSize;
+        }
+
+        public void setExportPageSize(int exportPageSize) {
+            this.exportPageSize = exportPageSize;
+        }
+    }
+
+    /**
+     * The endpoints reading the books with plain JDBC instead of Hibernate.
+     */
+    public static class JdbcReads {
+
+        public static final String BOOKS = "books";
+
+        public static final String BOOKS_FILTERED = "books-filtered";
+
+        public static final String EXPORT = "export";
+
+        /**
+         * Any of {@value #BOOKS}, {@value #BOOKS_FILTERED} and {@value #EXPORT}.
+         */
+        private Set<String> endpoints = new HashSet<>();
+
+        public Set<String> getEndpoints() {
+            return endpoints;
+        }
+
+        public void setEndpoints(Set<String> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        public boolean isSelected(String endpoint) {
+            return endpoints.contains(endpoint);
+        }
+    }
+
+    /**
+     * Serving the last known good books and pages when the database is slow or unavailable.
+     */
+    public static class StaleReads {
+
+        private boolean enabled = false;
+
+        /**
+         * A read which has a last known good value gets it after this long, the read goes on in the background.
+         */
+        private Duration latencyBudget = Duration.ofMillis(300);
+
+        /**
+         * Older values are not served, the read waits for the database again.
+         */
+        private Duration maxAge = Duration.ofHours(1);
+
+        /**
+         * The number of books and pages kept, a page may hold as many books as the maximum page size.
+         */
+        private long maxSize = 1000;
+
+        /**
+         * The reads of the database run on this many threads.
+         */
+        private int poolSize = 20;
+
+        /**
+         * This many reads may wait for a thread, the reads beyond it run on the caller's thread.
+         */
+        private int queueSize = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getLatencyBudget() {
+            return latencyBudget;
+        }
+
+        public void setLatencyBudget(Duration latencyBudget) {
+            this.latencyBudget = latencyBudget;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+    }
+
+    /**
+     * In-memory full-text search of the books by the words of their titles, authors and publishers.
+     */
+    public static class Search {
+
+        private boolean enabled = false;
+
+        /**
+         * The index is rebuilt from the database this often, to drop the postings of the changed and the deleted books.
+         */
+        private Duration rebuildInterval = Duration.ofHours(1);
+
+        /**
+         * The maximum number of books returned by a search.
+         */
+        private int maxSize = 100;
+
+        /**
+         * The BM25 term frequency saturation: the higher, the more the repeated words count.
+         */
+        private double k1 = 1.2;
+
+        /**
+         * The BM25 length normalization, from 0 (none) to 1 (full): the higher, the less the words of longer books count.
+         */
+        private double b = 0.75;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public double getK1() {
+            return k1;
+        }
+
+        public void setK1(double k1) {
+            this.k1 = k1;
+        }
+
+        public double getB() {
+            return b;
+        }
+
+        public void setB(double b) {
+            this.b = b;
+        }
+    }
+
+    /**
+     * In-memory prefix autocomplete of the titles and the authors.
+     */
+    public static class Autocomplete {
+
+        private boolean enabled = false;
+
+        /**
+         * The tries are rebuilt from the database this often, to compact them.
+         */
+        private Duration rebuildInterval = Duration.ofHours(1);
+
+        /**
+         * The maximum number of completions returned, every node of the tries keeps this many of its best values.
+         */
+        private int maxSize = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+}
@@ -13,6 +13,10 @@ import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 @Configuration
 @EnableAsync
@@ -22,8 +26,11 @@ public class AsyncConfiguration implements AsyncConfigurer {
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties, ApplicationProperties applicationProperties) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -38,8 +45,73 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Executor of the parallel book queries of a multi-query request, bounded, as every query holds a database connection.
+     */
+    @Bean(name = "bookQueryExecutor")
+    public ThreadPoolTaskExecutor bookQueryExecutor() {
+        log.debug("Creating Book Query Executor");
+        ApplicationProperties.MultiQuery multiQuery = applicationProperties.getMultiQuery();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(multiQuery.getPoolSize());
+        executor.setMaxPoolSize(multiQuery.getPoolSize());
+        executor.setQueueCapacity(multiQuery.getQueueCapacity());
+        executor.setThreadNamePrefix("library-shelf-book-query-");
+        return executor;
+    }
+
+    /**
+     * Executor of the reads of the asynchronous book endpoints, bounded, as every read holds a database connection.
+     */
+    @Bean(name = "bookReadExecutor")
+    public ThreadPoolTaskExecutor bookReadExecutor() {
+        log.debug("Creating Book Read Executor");
+        ApplicationProperties.AsyncRequests asyncRequests = applicationProperties.getAsyncRequests();
+        return requestExecutor(asyncRequests.getReadPoolSize(), asyncRequests.getReadQueueCapacity(), "library-shelf-book-read-");
+    }
+
+    /**
+     * Executor of the writes of the asynchronous book endpoints, with the publishing of their changes.
+     */
+    @Bean(name = "bookWriteExecutor")
+    public ThreadPoolTaskExecutor bookWriteExecutor() {
+        log.debug("Creating Book Write Executor");
+        ApplicationProperties.AsyncRequests asyncRequests = applicationProperties.getAsyncRequests();
+        return requestExecutor(asyncRequests.getWritePoolSize(), asyncRequests.getWriteQueueCapacity(), "library-shelf-book-write-");
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
     }
+
+    private static ThreadPoolTaskExecutor requestExecutor(int poolSize, int queueCapacity, String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(AsyncConfiguration::withRequestContext);
+        return executor;
+    }
+
+    /**
+     * Runs the task with the security context and the request attributes of the submitting request thread,
+     * so the authorization checks and the request based helpers work as in the request thread.
+     */
+    private static Runnable withRequestContext(Runnable task) {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        return () -> {
+            SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+            SecurityContextHolder.setContext(securityContext);
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                task.run();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+                SecurityContextHolder.setContext(previousSecurityContext);
+            }
+        };
+    }
 }
@@ -0,0 +1,44 @@
+package io.github.dadikovi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration of the binary formats of the REST API, Smile and CBOR, chosen by the {@code Accept} header.
+ * <p>
+ * The converters are added after the JSON one, so JSON stays the format of the requests accepting any type.
+ * Their object mappers are built like the JSON one, with the same modules and settings.
+ */
+@Configuration
+public class BinaryFormatsConfiguration implements WebMvcConfigurer {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    public static final MediaType APPLICATION_CBOR = new MediaType("application", "cbor");
+
+    /**
+     * The binary media types, in the order of preference when the client accepts several of them equally.
+     */
+    public static final List<MediaType> MEDIA_TYPES = Collections.unmodifiableList(Arrays.asList(APPLICATION_SMILE, APPLICATION_CBOR));
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public BinaryFormatsConfiguration(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.smile().build()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.cbor().build()));
+    }
+}
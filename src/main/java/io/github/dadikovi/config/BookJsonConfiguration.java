@@ -0,0 +1,65 @@
+package io.github.dadikovi.config;
+
+import io.github.dadikovi.service.BookJson;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.List;
+
+/**
+ * Configuration of the responses written from the cached JSON of the books, see {@link BookJson.Body}.
+ * <p>
+ * The converter is added before the JSON one, which would serialize the body as a bean.
+ */
+@Configuration
+public class BookJsonConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new BookJsonBodyHttpMessageConverter());
+    }
+
+    /**
+     * Writes the views of the cached bytes to the response through a channel, which copies them in small chunks,
+     * never the whole body at once.
+     */
+    private static final class BookJsonBodyHttpMessageConverter extends AbstractHttpMessageConverter<BookJson.Body> {
+
+        private BookJsonBodyHttpMessageConverter() {
+            super(MediaType.APPLICATION_JSON);
+        }
+
+        @Override
+        protected boolean supports(Class<?> clazz) {
+            return BookJson.Body.class.isAssignableFrom(clazz);
+        }
+
+        @Override
+        protected boolean canRead(MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        protected BookJson.Body readInternal(Class<? extends BookJson.Body> clazz, HttpInputMessage inputMessage) {
+            throw new HttpMessageNotReadableException("The cached JSON of the books is never read", inputMessage);
+        }
+
+        @Override
+        protected Long getContentLength(BookJson.Body body, MediaType contentType) {
+            return body.getLength();
+        }
+
+        @Override
+        protected void writeInternal(BookJson.Body body, HttpOutputMessage outputMessage) throws IOException {
+            body.writeTo(Channels.newChannel(outputMessage.getBody()));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.dadikovi.config;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizeConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import io.github.jhipster.config.JHipsterConstants;
+import org.hibernate.cache.spi.RegionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+
+/**
+ * Regions of the Hibernate second-level cache, in a Hazelcast cluster of the instances of the service.
+ * <p>
+ * The members are the instances registered in the discovery service. The book region and the update timestamps are
+ * distributed maps, each entry is owned by one member, so a change made on any instance is seen by all of them at
+ * once. The query results are kept on each instance, but they are checked against the shared update timestamps
+ * before they are served, so a result older than the last change of the table is never returned.
+ * <p>
+ * The regions are only used by Hibernate, there is no Spring cache manager: the local caches of the services are
+ * Caffeine caches with their own metrics. The second-level cache is disabled by default, and so is Hazelcast then.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class CacheConfiguration implements DisposableBean {
+
+    /**
+     * Name of the Hazelcast instance, looked up by the region factory, see
+     * {@code hibernate.cache.hazelcast.instance_name}.
+     */
+    public static final String INSTANCE_NAME = "libraryShelf";
+
+    private static final int HAZELCAST_PORT_OFFSET = 5701;
+
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private final Environment env;
+
+    private final ServerProperties serverProperties;
+
+    private final DiscoveryClient discoveryClient;
+
+    private final ApplicationProperties.SecondLevelCache properties;
+
+    private Registration registration;
+
+    public CacheConfiguration(Environment env, ServerProperties serverProperties, DiscoveryClient discoveryClient,
+                              ApplicationProperties applicationProperties) {
+        this.env = env;
+        this.serverProperties = serverProperties;
+        this.discoveryClient = discoveryClient;
+        this.properties = applicationProperties.getSecondLevelCache();
+    }
+
+    @Autowired(required = false)
+    public void setRegistration(Registration registration) {
+        this.registration = registration;
+    }
+
+    @Override
+    public void destroy() {
+        log.info("Closing Hazelcast");
+        Hazelcast.shutdownAll();
+    }
+
+    @Bean
+    public HazelcastInstance hazelcastInstance() {
+        log.debug("Configuring Hazelcast");
+        HazelcastInstance hazelcastInstance = Hazelcast.getHazelcastInstanceByName(INSTANCE_NAME);
+        if (hazelcastInstance != null) {
+            log.debug("Hazelcast already initialized");
+            return hazelcastInstance;
+        }
+        Config config = new Config();
+        config.setInstanceName(INSTANCE_NAME);
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        if (this.registration == null) {
+            log.warn("No discovery service is set up, Hazelcast cannot create a cluster.");
+        } else {
+            // The serviceId is by default the application's name,
+            // see the "spring.application.name" standard Spring property
+            String serviceId = registration.getServiceId();
+            log.debug("Configuring Hazelcast clustering for instanceId: {}", serviceId);
+            config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(true);
+            // In development, everything goes through 127.0.0.1, with a different port
+            if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT))) {
+                log.debug("Application is running with the \"dev\" profile, Hazelcast " +
+                    "cluster will only work with localhost instances");
+                System.setProperty("hazelcast.local.localAddress", "127.0.0.1");
+                config.getNetworkConfig().setPort(serverProperties.getPort() + HAZELCAST_PORT_OFFSET);
+                for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                    String clusterMember = "127.0.0.1:" + (instance.getPort() + HAZELCAST_PORT_OFFSET);
+                    log.debug("Adding Hazelcast (dev) cluster member {}", clusterMember);
+                    config.getNetworkConfig().getJoin().getTcpIpConfig().addMember(clusterMember);
+                }
+            } else { // Production configuration, one host per instance all using port 5701
+                config.getNetworkConfig().setPort(HAZELCAST_PORT_OFFSET);
+                for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                    String clusterMember = instance.getHost() + ":" + HAZELCAST_PORT_OFFSET;
+                    log.debug("Adding Hazelcast (prod) cluster member {}", clusterMember);
+                    config.getNetworkConfig().getJoin().getTcpIpConfig().addMember(clusterMember);
+                }
+            }
+        }
+        config.getMapConfigs().put(io.github.dadikovi.domain.Book.class.getName(), regionConfig(properties.getBook()));
+        config.getMapConfigs().put(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+            regionConfig(properties.getQueryResults()));
+        // The update timestamps tell whether a cached query result is stale, they must never be evicted;
+        // there is one per table
+        config.getMapConfigs().put(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+            new MapConfig().setBackupCount(properties.getBackupCount()));
+        // jhipster-needle-hazelcast-add-entry
+        return Hazelcast.newHazelcastInstance(config);
+    }
+
+    private MapConfig regionConfig(ApplicationProperties.SecondLevelCache.Region region) {
+        return new MapConfig()
+            .setBackupCount(properties.getBackupCount())
+            .setEvictionPolicy(EvictionPolicy.LRU)
+            .setMaxSizeConfig(new MaxSizeConfig((int) region.getMaxEntries(), MaxSizeConfig.MaxSizePolicy.PER_NODE))
+            .setTimeToLiveSeconds((int) region.getTimeToLive().getSeconds());
+    }
+}
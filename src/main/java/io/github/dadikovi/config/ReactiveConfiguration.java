@@ -0,0 +1,112 @@
+package io.github.dadikovi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.dadikovi.repository.BookReactiveRepository;
+import io.github.dadikovi.security.jwt.TokenProvider;
+import io.github.dadikovi.service.CatalogueVersionService;
+import io.github.dadikovi.web.rest.BookReactiveHandler;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+
+/**
+ * Configuration of the reactive variant of the book API, see {@link BookReactiveHandler}.
+ * <p>
+ * The application stays a servlet one: the reactive endpoints are served by their own Reactor Netty server, on their
+ * own port and event loop threads, and read the database through their own R2DBC connection pool.
+ * With H2, the R2DBC driver runs the statements on the event loop, so only MySQL shows the real behaviour.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.reactive", name = "enabled", havingValue = "true")
+public class ReactiveConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(ReactiveConfiguration.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    private LoopResources loopResources;
+
+    private DisposableServer server;
+
+    public ReactiveConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool reactiveConnectionPool() {
+        ApplicationProperties.Reactive reactive = applicationProperties.getReactive();
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(reactive.getUrl()).mutate();
+        if (StringUtils.hasText(reactive.getUsername())) {
+            options.option(ConnectionFactoryOptions.USER, reactive.getUsername());
+        }
+        if (StringUtils.hasText(reactive.getPassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, reactive.getPassword());
+        }
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+            .name("library-shelf-reactive")
+            .initialSize(Math.min(2, reactive.getPoolSize()))
+            .maxSize(reactive.getPoolSize())
+            .build());
+    }
+
+    @Bean
+    public BookReactiveRepository bookReactiveRepository(ConnectionPool reactiveConnectionPool) {
+        return new BookReactiveRepository(reactiveConnectionPool);
+    }
+
+    @Bean
+    public BookReactiveHandler bookReactiveHandler(BookReactiveRepository bookReactiveRepository, CatalogueVersionService catalogueVersionService,
+                                                   TokenProvider tokenProvider) {
+        return new BookReactiveHandler(bookReactiveRepository, catalogueVersionService, tokenProvider, applicationProperties);
+    }
+
+    @Bean
+    public DisposableServer reactiveBookServer(BookReactiveHandler bookReactiveHandler, ObjectMapper objectMapper) {
+        ApplicationProperties.Reactive reactive = applicationProperties.getReactive();
+        Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper, MediaType.APPLICATION_JSON, BookReactiveHandler.NDJSON);
+        encoder.setStreamingMediaTypes(Collections.singletonList(BookReactiveHandler.NDJSON));
+        HandlerStrategies strategies = HandlerStrategies.builder()
+            .codecs(codecs -> {
+                codecs.defaultCodecs().jackson2JsonEncoder(encoder);
+                codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+            })
+            .build();
+        loopResources = LoopResources.create("library-shelf-reactive", reactive.getEventLoopThreads(), true);
+        server = HttpServer.create()
+            .port(reactive.getPort())
+            .tcpConfiguration(tcp -> tcp.runOn(loopResources))
+            .handle(new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(bookReactiveHandler.router(), strategies)))
+            .bindNow();
+        log.info("Reactive book API is listening on port {} with {} event loop threads", server.port(), reactive.getEventLoopThreads());
+        return server;
+    }
+
+    @PreDestroy
+    public void stopServer() {
+        if (server != null) {
+            server.disposeNow();
+        }
+        if (loopResources != null) {
+            loopResources.dispose();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.dadikovi.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the read replicas of the database, see {@link ReplicaRoutingDataSource}.
+ * <p>
+ * It replaces the auto-configured data source, which stays the primary: the replicas get its pool settings,
+ * with their own URL and credentials. Locally, a second pool of the same H2 database can stand in for a replica.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.replicas", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaDataSourceConfiguration.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaDataSourceConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, Environment env, MeterRegistry meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        pools.add(primary);
+        List<DataSource> replicas = new ArrayList<>();
+        List<ApplicationProperties.Replicas.Replica> replicaProperties = applicationProperties.getReplicas().getDataSources();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            ApplicationProperties.Replicas.Replica properties = replicaProperties.get(i);
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setPoolName(primary.getPoolName() + "-replica-" + i);
+            config.setJdbcUrl(properties.getUrl());
+            config.setUsername(properties.getUsername());
+            config.setPassword(properties.getPassword());
+            config.setReadOnly(true);
+            // A replica which is down at the start is only marked unhealthy
+            config.setInitializationFailTimeout(-1);
+            HikariDataSource replica = new HikariDataSource(config);
+            pools.add(replica);
+            replicas.add(replica);
+        }
+        log.debug("Routing the read-only transactions to {} replicas", replicas.size());
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, applicationProperties.getReplicas().getMaxLag(), meterRegistry);
+        Gauge.builder("datasource.replicas.healthy", routingDataSource, ReplicaRoutingDataSource::getHealthyReplicas)
+            .description("The number of the replicas which serve the read-only transactions")
+            .register(meterRegistry);
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${application.replicas.health-check-interval:PT10S}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicas(applicationProperties.getReplicas().getHealthCheckTimeout());
+        }
+    }
+
+    /**
+     * The changes of every instance arrive here, see {@link ShelfChangedReceiver}. The reads are sent to the primary
+     * before any cache is evicted and before the catalogue version is increased, which all listen with a lower
+     * precedence, so a cache can not be refilled from a lagging replica under the new version.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onShelfChanged(ShelfChangedMessage message) {
+        if (routingDataSource != null) {
+            routingDataSource.onShelfChanged();
+        }
+    }
+
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
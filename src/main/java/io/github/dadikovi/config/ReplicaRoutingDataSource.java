@@ -0,0 +1,209 @@
+package io.github.dadikovi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source sending the connections of the read-only transactions to the replicas, in turn, and every other
+ * connection to the primary.
+ * <p>
+ * A replica which fails to give a connection, or its health check, is not used until a health check succeeds.
+ * If no replica is healthy, the read-only transactions use the primary. They also use the primary for the maximum
+ * lag of the replicas after a change of the shelf, so the caches and the in-memory views of the catalogue, which
+ * are refreshed by the change, are not loaded with the previous state of the books.
+ * <p>
+ * The lookup key is the healthy replica whose turn it is, or the primary. The target of a replica key falls over to
+ * the next healthy replicas, and then to the primary, if the replica fails to give a connection.
+ * <p>
+ * The transaction is only known to be read-only once it has begun, so this data source has to be wrapped into a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which gets the connection at the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final long maxLagNanos;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter replicaConnections;
+
+    private final Counter primaryConnections;
+
+    private final Counter fallbackConnections;
+
+    /**
+     * The {@link System#nanoTime()} until which the read-only transactions use the primary.
+     */
+    private volatile long primaryUntil = System.nanoTime();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica(replicas.get(i)));
+            targets.put(i, new ReplicasFrom(i));
+        }
+        this.maxLagNanos = maxLag.toNanos();
+        this.replicaConnections = connectionCounter(meterRegistry, "replica", "The number of connections of read-only transactions given by a replica");
+        this.primaryConnections = connectionCounter(meterRegistry, "primary", "The number of connections of read-write transactions, or of none");
+        this.fallbackConnections = connectionCounter(meterRegistry, "fallback",
+            "The number of connections of read-only transactions given by the primary, as no replica was healthy or up to date");
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * @return the index of the healthy replica whose turn it is, if the transaction is read-only and the replicas
+     * are up to date, otherwise the key of the primary.
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryConnections.increment();
+            return PRIMARY;
+        }
+        if (System.nanoTime() - primaryUntil >= 0) {
+            int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+            for (int i = 0; i < replicas.size(); i++) {
+                int index = (start + i) % replicas.size();
+                if (replicas.get(index).healthy) {
+                    return index;
+                }
+            }
+        }
+        fallbackConnections.increment();
+        return PRIMARY;
+    }
+
+    /**
+     * The credentials are the ones of the primary, so a connection with other credentials is a connection of the primary.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Sends the read-only transactions to the primary, until the replicas have the change.
+     */
+    public void onShelfChanged() {
+        long until = System.nanoTime() + maxLagNanos;
+        if (until - primaryUntil > 0) {
+            primaryUntil = until;
+        }
+    }
+
+    /**
+     * Checks every replica with a new connection.
+     *
+     * @param timeout the time to wait for the validation of the connection.
+     */
+    public void checkReplicas(Duration timeout) {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid((int) Math.max(1, timeout.getSeconds()));
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.info("Replica is {}", healthy ? "healthy again" : "unhealthy");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    /**
+     * @return the number of the replicas which are used.
+     */
+    public int getHealthyReplicas() {
+        int healthy = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    private static Counter connectionCounter(MeterRegistry meterRegistry, String target, String description) {
+        return Counter.builder("datasource.routed.connections")
+            .tag("target", target)
+            .description(description)
+            .register(meterRegistry);
+    }
+
+    private static final class Replica {
+
+        private final DataSource dataSource;
+
+        private volatile boolean healthy = true;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+    /**
+     * The target of a replica key: the healthy replicas from that one, in turn, and then the primary.
+     */
+    private final class ReplicasFrom extends AbstractDataSource {
+
+        private final int start;
+
+        private ReplicasFrom(int start) {
+            this.start = start;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaConnections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                    log.warn("Replica is not used until it passes a health check: {}", e.getMessage());
+                }
+            }
+            fallbackConnections.increment();
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return ReplicaRoutingDataSource.this.getConnection(username, password);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.dadikovi.config;
+
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Receives the changes of the shelf made on the other instances of the service, and publishes them
+ * as application events, the same way {@link ShelfChangedSender} publishes the local changes.
+ */
+@Component
+public class ShelfChangedReceiver {
+
+    private final Logger log = LoggerFactory.getLogger(ShelfChangedReceiver.class);
+
+    private final ShelfChangedSender shelfChangedSender;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ShelfChangedReceiver( ShelfChangedSender shelfChangedSender, ApplicationEventPublisher eventPublisher ) {
+        this.shelfChangedSender = shelfChangedSender;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @RabbitListener(queues = "#{shelfChangedBroadcastQueue.name}")
+    public void receive( ShelfChangedMessage message, @Header(name = ShelfChangedSender.ORIGIN_HEADER, required = false) String origin ) {
+        if ( shelfChangedSender.isLocal(origin) ) {
+            // Already published by the sender
+            return;
+        }
+        log.debug("Shelf changed on an other instance : {}", message);
+        eventPublisher.publishEvent(message);
+    }
+}
@@ -4,28 +4,85 @@ import io.github.dadikovi.domain.Book;
 import io.github.dadikovi.domain.ShelfChangedMessage;
 import io.github.dadikovi.domain.enumeration.ChangeType;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
 
 @Controller
 public class ShelfChangedSender {
 
+    /**
+     * The header of the broadcast messages holding the id of the instance which sent them.
+     */
+    public static final String ORIGIN_HEADER = "shelfChangedOrigin";
+
+    private final String instanceId = UUID.randomUUID().toString();
+
     @Autowired
     private AmqpTemplate template;
 
     @Autowired
+    @Qualifier("shelfChanged")
     private Queue queue;
 
+    @Autowired
+    private FanoutExchange shelfChangedBroadcast;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public void created(Book book) {
-        this.template.convertAndSend(queue.getName(), new ShelfChangedMessage(ChangeType.CREATE, book));
+        send(new ShelfChangedMessage(ChangeType.CREATE, book));
+    }
+
+    public void updated(Book book, Book previous) {
+        send(new ShelfChangedMessage(ChangeType.UPDATE, book, previous));
+    }
+
+    public void deleted(Book book, Book previous) {
+        send(new ShelfChangedMessage(ChangeType.DELETE, book, previous));
     }
 
-    public void updated(Book book) {
-        this.template.convertAndSend(queue.getName(), new ShelfChangedMessage(ChangeType.UPDATE, book));
+    /**
+     * Tells whether a broadcast message was sent by this instance.
+     *
+     * @param origin the {@link #ORIGIN_HEADER} of the message.
+     * @return {@code true} if this instance sent the message.
+     */
+    public boolean isLocal(String origin) {
+        return instanceId.equals(origin);
     }
 
-    public void deleted(Book book) {
-        this.template.convertAndSend(queue.getName(), new ShelfChangedMessage(ChangeType.DELETE, book));
+    /**
+     * Sends the message to the {@code shelfChanged} queue, then, once the change is committed, publishes it
+     * as an application event on this instance and broadcasts it to the other instances.
+     * Publishing after the commit guarantees that nobody reads the old state of the shelf after the event.
+     */
+    private void send(ShelfChangedMessage message) {
+        this.template.convertAndSend(queue.getName(), message);
+        Runnable publish = () -> {
+            eventPublisher.publishEvent(message);
+            this.template.convertAndSend(shelfChangedBroadcast.getName(), "", message, broadcast -> {
+                broadcast.getMessageProperties().setHeader(ORIGIN_HEADER, instanceId);
+                return broadcast;
+            });
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
     }
 }
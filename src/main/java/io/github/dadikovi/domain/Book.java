@@ -1,5 +1,7 @@
 package io.github.dadikovi.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -11,6 +13,7 @@ import java.time.Instant;
  */
 @Entity
 @Table(name = "book")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Book implements Serializable {
 
     private static final long serialVersionUID = 1L;
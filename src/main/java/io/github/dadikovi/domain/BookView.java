@@ -0,0 +1,84 @@
+package io.github.dadikovi.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Immutable read model of a row of the {@code book} table, read without Hibernate.
+ * <p>
+ * It is serialized to the same JSON as the {@link Book} entity: the properties are declared in the same order.
+ */
+public final class BookView implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String title;
+
+    private final String author;
+
+    private final String publisher;
+
+    private final Long publishYear;
+
+    private final Instant createdAt;
+
+    private final Long count;
+
+    public BookView(Long id, String title, String author, String publisher, Long publishYear, Instant createdAt, Long count) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.publisher = publisher;
+        this.publishYear = publishYear;
+        this.createdAt = createdAt;
+        this.count = count;
+    }
+
+    public static BookView of(Book book) {
+        return new BookView(book.getId(), book.getTitle(), book.getAuthor(), book.getPublisher(),
+            book.getPublishYear(), book.getCreatedAt(), book.getCount());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getPublisher() {
+        return publisher;
+    }
+
+    public Long getPublishYear() {
+        return publishYear;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "BookView{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", author='" + getAuthor() + "'" +
+            ", publisher='" + getPublisher() + "'" +
+            ", publishYear=" + getPublishYear() +
+            ", createdAt='" + getCreatedAt() + "'" +
+            ", count=" + getCount() +
+            "}";
+    }
+}
@@ -6,6 +6,11 @@ public class ShelfChangedMessage {
 
     private ChangeType changeType;
     private Book changedBook;
+    /**
+     * The state of the book before an update or a delete, if it is known. It helps the caches to evict selectively,
+     * it is not part of the identity of the change.
+     */
+    private Book previousBook;
 
     @Override
     public boolean equals( Object o ) {
@@ -28,11 +33,20 @@ public class ShelfChangedMessage {
         return result;
     }
 
+    public ShelfChangedMessage() {
+    }
+
     public ShelfChangedMessage( ChangeType changeType, Book changedBook ) {
         this.changeType = changeType;
         this.changedBook = changedBook;
     }
 
+    public ShelfChangedMessage( ChangeType changeType, Book changedBook, Book previousBook ) {
+        this.changeType = changeType;
+        this.changedBook = changedBook;
+        this.previousBook = previousBook;
+    }
+
     public ChangeType getChangeType() {
         return changeType;
     }
@@ -48,4 +62,12 @@ public class ShelfChangedMessage {
     public void setChangedBook( Book changedBook ) {
         this.changedBook = changedBook;
     }
+
+    public Book getPreviousBook() {
+        return previousBook;
+    }
+
+    public void setPreviousBook( Book previousBook ) {
+        this.previousBook = previousBook;
+    }
 }
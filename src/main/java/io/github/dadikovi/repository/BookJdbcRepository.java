@@ -0,0 +1,136 @@
+package io.github.dadikovi.repository;
+
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.BookView;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Repository reading the {@code book} table with plain JDBC, for the reads whose results are only serialized.
+ * <p>
+ * The rows are mapped straight to immutable {@link BookView}s: no {@link Book} entity is hydrated, and nothing is
+ * put into the persistence context or snapshotted for the dirty check. The statements join the current transaction,
+ * if there is one. The timestamps are read and written as UTC, like Hibernate does with {@code hibernate.jdbc.time_zone}.
+ */
+@Repository
+public class BookJdbcRepository {
+
+    private static final String SELECT = "select id, title, author, publisher, publish_year, created_at, count from book";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookJdbcRepository( JdbcTemplate jdbcTemplate ) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Get a keyset paginated page of the books, like {@link BookRepositoryCustom#findAllAfter}.
+     *
+     * @param condition the filter of the books.
+     * @param after the id of the last book of the previous page, {@code null} for the first page.
+     * @param size the maximum number of books to return.
+     * @return the page of books, ordered by their ids.
+     */
+    public Slice<BookView> findAllAfter( BookSqlCondition condition, Long after, int size ) {
+        BookSqlCondition keyset = after == null ? condition : condition.and("id > ?", after);
+        StringBuilder sql = new StringBuilder(SELECT);
+        if ( !keyset.getSql().isEmpty() ) {
+            sql.append(" where ").append(keyset.getSql());
+        }
+        sql.append(" order by id limit ?");
+        List<Object> parameters = new ArrayList<>(keyset.getParameters());
+        // One extra row is fetched to find out whether there is a next page, without a count query
+        parameters.add((long) size + 1);
+        // A calendar is not thread-safe, so every query has its own one
+        Calendar utc = Calendar.getInstance(UTC);
+        List<BookView> rows = jdbcTemplate.query(sql.toString(), statement -> bind(statement, parameters, utc), ( resultSet, row ) -> toView(resultSet, utc));
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Reads every book from a forward-only cursor, handing them over one by one.
+     *
+     * @param fetchSize the fetch size of the statement, see the {@code export} properties.
+     * @param handler the handler of the books.
+     * @return the number of books.
+     * @throws IOException if the handler has thrown it, the reading is stopped.
+     */
+    public long forEach( int fetchSize, BookViewHandler handler ) throws IOException {
+        Calendar utc = Calendar.getInstance(UTC);
+        long[] count = new long[1];
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT + " order by id", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                try {
+                    handler.handle(toView(resultSet, utc));
+                } catch ( IOException e ) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+        } catch ( UncheckedIOException e ) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    private static void bind( PreparedStatement statement, List<Object> parameters, Calendar utc ) throws SQLException {
+        for ( int i = 0; i < parameters.size(); i++ ) {
+            Object parameter = parameters.get(i);
+            if ( parameter instanceof Instant ) {
+                statement.setTimestamp(i + 1, Timestamp.from((Instant) parameter), utc);
+            } else if ( parameter instanceof Long ) {
+                statement.setLong(i + 1, (Long) parameter);
+            } else {
+                statement.setString(i + 1, (String) parameter);
+            }
+        }
+    }
+
+    private static BookView toView( ResultSet resultSet, Calendar utc ) throws SQLException {
+        Timestamp createdAt = resultSet.getTimestamp(6, utc);
+        return new BookView(
+            resultSet.getLong(1),
+            resultSet.getString(2),
+            resultSet.getString(3),
+            resultSet.getString(4),
+            nullableLong(resultSet, 5),
+            createdAt == null ? null : createdAt.toInstant(),
+            nullableLong(resultSet, 7));
+    }
+
+    private static Long nullableLong( ResultSet resultSet, int column ) throws SQLException {
+        long value = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    /**
+     * Handles the books read by {@link #forEach(int, BookViewHandler)}.
+     */
+    @FunctionalInterface
+    public interface BookViewHandler {
+        void handle( BookView book ) throws IOException;
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.dadikovi.repository;
+
+import io.github.dadikovi.domain.Book;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reactive repository for the {@link Book} entity, reading the {@code book} table with R2DBC.
+ * <p>
+ * The statements use the {@code ?} placeholders, which both the H2 and the MySQL drivers bind by index.
+ * The timestamps are read as UTC, like Hibernate writes them.
+ */
+public class BookReactiveRepository {
+
+    private static final String COLUMNS = "select id, title, author, publisher, publish_year, created_at, count from book";
+
+    private final ConnectionFactory connectionFactory;
+
+    public BookReactiveRepository(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * @param id the id of the book.
+     * @return the book, or empty if there is no book with the id.
+     */
+    public Mono<Book> findById(Long id) {
+        return query(connection -> connection.createStatement(COLUMNS + " where id = ?")
+            .bind(0, id)
+            .execute()).next();
+    }
+
+    /**
+     * @param after the id of the last book of the previous page, {@code null} for the first page.
+     * @param size the maximum number of books.
+     * @return the books ordered by their ids, emitted as they are read.
+     */
+    public Flux<Book> findAllAfter(Long after, int size) {
+        return query(connection -> connection.createStatement(COLUMNS + " where id > ? order by id limit ?")
+            .bind(0, after == null ? 0L : after)
+            .bind(1, size)
+            .execute());
+    }
+
+    /**
+     * Reads every book, one page after the other. A page is only read when the previous one is requested,
+     * so a slow subscriber holds one page in memory and no connection between the pages.
+     *
+     * @param pageSize the number of books read with a connection.
+     * @return every book, ordered by their ids.
+     */
+    public Flux<Book> findAll(int pageSize) {
+        return findAllAfter(null, pageSize).collectList()
+            .expand(page -> page.size() < pageSize ? Mono.<List<Book>>empty() : findAllAfter(page.get(page.size() - 1).getId(), pageSize).collectList())
+            .concatMapIterable(Function.<List<Book>>identity(), 1);
+    }
+
+    private Flux<Book> query(Function<Connection, Publisher<? extends Result>> statement) {
+        return Flux.usingWhen(
+            connectionFactory.create(),
+            connection -> Flux.from(statement.apply(connection)).concatMap(result -> result.map((row, metadata) -> toBook(row))),
+            Connection::close);
+    }
+
+    private static Book toBook(Row row) {
+        LocalDateTime createdAt = row.get("created_at", LocalDateTime.class);
+        Book book = new Book()
+            .title(row.get("title", String.class))
+            .author(row.get("author", String.class))
+            .publisher(row.get("publisher", String.class))
+            .publishYear(row.get("publish_year", Long.class))
+            .createdAt(createdAt == null ? null : createdAt.toInstant(ZoneOffset.UTC))
+            .count(row.get("count", Long.class));
+        book.setId(row.get("id", Long.class));
+        return book;
+    }
+}
@@ -3,13 +3,27 @@ package io.github.dadikovi.repository;
 import io.github.dadikovi.domain.Book;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the Book entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookRepositoryCustom {
 
+    /**
+     * Reads the book from the database and locks its row until the end of the transaction, so that its state can
+     * not change before the book is updated or deleted. A locking read does not use the second-level cache.
+     *
+     * @param id the id of the book.
+     * @return the current state of the book, empty if it does not exist.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select book from Book book where book.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
 }
@@ -0,0 +1,61 @@
+package io.github.dadikovi.repository;
+
+import io.github.dadikovi.domain.Book;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.Tuple;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Hand written queries of the {@link BookRepository}.
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Keyset (seek) pagination: returns at most {@code size} books with an id greater than {@code after}, ordered by id.
+     * <p>
+     * Unlike offset pagination the cost of a page does not depend on how deep it is, as the primary key index
+     * is used to seek to the first row of the page.
+     *
+     * @param specification the optional filter, {@code null} means every book.
+     * @param after the id of the last book of the previous page, {@code null} for the first page.
+     * @param size the maximum number of books to return.
+     * @return the page of books, {@link Slice#hasNext()} tells whether there are more books after it.
+     */
+    Slice<Book> findAllAfter(Specification<Book> specification, Long after, int size);
+
+    /**
+     * Same as {@link #findAllAfter(Specification, Long, int)}, but only the given attributes are selected, and no entity
+     * is instantiated or added to the persistence context.
+     *
+     * @param specification the optional filter, {@code null} means every book.
+     * @param after the id of the last book of the previous page, {@code null} for the first page.
+     * @param size the maximum number of books to return.
+     * @param attributes the names of the selected attributes of {@link Book}, each one is also the alias of its tuple element.
+     * @return the page of books, {@link Slice#hasNext()} tells whether there are more books after it.
+     */
+    Slice<Tuple> findAllAfter(Specification<Book> specification, Long after, int size, Collection<String> attributes);
+
+    /**
+     * Streams every book ordered by id through a forward-only cursor.
+     * <p>
+     * The books are read-only and detached as soon as they are read, so the persistence context does not grow
+     * with the table. The stream must be consumed within a transaction and closed afterwards.
+     *
+     * @param fetchSize the JDBC fetch size, see {@link java.sql.Statement#setFetchSize(int)}.
+     * @return the stream of detached books.
+     */
+    Stream<Book> streamAll(int fetchSize);
+
+    /**
+     * Streams the ids of every book in ascending order through a forward-only cursor, without reading the books.
+     * The stream must be consumed within a transaction and closed afterwards.
+     *
+     * @param fetchSize the JDBC fetch size, see {@link java.sql.Statement#setFetchSize(int)}.
+     * @return the stream of the ids.
+     */
+    Stream<Long> streamAllIds(int fetchSize);
+}
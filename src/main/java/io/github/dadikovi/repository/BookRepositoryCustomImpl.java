@@ -0,0 +1,110 @@
+package io.github.dadikovi.repository;
+
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.Book_;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of {@link BookRepositoryCustom}, picked up by Spring Data as a fragment of the {@link BookRepository}.
+ */
+@Transactional(readOnly = true)
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private final EntityManager em;
+
+    public BookRepositoryCustomImpl( EntityManager em ) {
+        this.em = em;
+    }
+
+    @Override
+    public Slice<Book> findAllAfter( Specification<Book> specification, Long after, int size ) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> root = query.from(Book.class);
+        query.select(root)
+            .where(keysetPredicates(cb, query, root, specification, after))
+            .orderBy(cb.asc(root.get(Book_.id)));
+        return toSlice(cacheable(em.createQuery(query)).setMaxResults(size + 1).getResultList(), size);
+    }
+
+    @Override
+    public Slice<Tuple> findAllAfter( Specification<Book> specification, Long after, int size, Collection<String> attributes ) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        for ( String attribute : attributes ) {
+            selections.add(root.get(attribute).alias(attribute));
+        }
+        query.multiselect(selections)
+            .where(keysetPredicates(cb, query, root, specification, after))
+            .orderBy(cb.asc(root.get(Book_.id)));
+        return toSlice(cacheable(em.createQuery(query)).setMaxResults(size + 1).getResultList(), size);
+    }
+
+    @Override
+    public Stream<Book> streamAll( int fetchSize ) {
+        return em.createQuery("select book from Book book order by book.id", Book.class)
+            .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+            .setHint(QueryHints.HINT_READONLY, true)
+            .getResultStream()
+            .peek(em::detach);
+    }
+
+    @Override
+    public Stream<Long> streamAllIds( int fetchSize ) {
+        return em.createQuery("select book.id from Book book order by book.id", Long.class)
+            .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+            .getResultStream();
+    }
+
+    private static Predicate[] keysetPredicates( CriteriaBuilder cb, CriteriaQuery<?> query, Root<Book> root,
+                                                 Specification<Book> specification, Long after ) {
+        List<Predicate> predicates = new ArrayList<>();
+        if ( specification != null ) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if ( predicate != null ) {
+                predicates.add(predicate);
+            }
+        }
+        if ( after != null ) {
+            predicates.add(cb.greaterThan(root.get(Book_.id), after));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    /**
+     * The pages are cached in the query cache, if it is enabled. Hibernate invalidates them on any change of the book table.
+     */
+    private static <T> TypedQuery<T> cacheable( TypedQuery<T> query ) {
+        return query.setHint(QueryHints.HINT_CACHEABLE, true);
+    }
+
+    /**
+     * One extra row is fetched by the queries to find out whether there is a next page, without a count query.
+     */
+    private static <T> Slice<T> toSlice( List<T> rows, int size ) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.dadikovi.repository;
+
+import io.github.dadikovi.domain.Book;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Factory of {@link Specification}s of the {@link Book} entity.
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {}
+
+    /**
+     * @param example the query-by-example filter.
+     * @return the specification matching the same books as the example.
+     */
+    public static Specification<Book> byExample(Example<Book> example) {
+        return (root, query, cb) -> QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.dadikovi.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable SQL condition over the columns of the {@code book} table, the JDBC counterpart of a
+ * {@link org.springframework.data.jpa.domain.Specification}, to be executed with the {@link BookJdbcRepository}.
+ * <p>
+ * The values are always bound as parameters, and the {@code in} lists are padded to a power of two, so the SQL text
+ * only depends on the shape of the filter: the prepared statements are reused from the statement cache of the driver.
+ */
+public final class BookSqlCondition {
+
+    private static final BookSqlCondition ALL = new BookSqlCondition("", Collections.emptyList());
+
+    private final String sql;
+
+    private final List<Object> parameters;
+
+    private BookSqlCondition( String sql, List<Object> parameters ) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    /**
+     * @return the condition matching every book.
+     */
+    public static BookSqlCondition all() {
+        return ALL;
+    }
+
+    /**
+     * @param sql a condition with a {@code ?} placeholder for each parameter.
+     * @param parameters the values of the placeholders: {@link Long}, {@link String} or {@link java.time.Instant}.
+     * @return the conjunction of this condition and the given one.
+     */
+    public BookSqlCondition and( String sql, Object... parameters ) {
+        List<Object> joined = new ArrayList<>(this.parameters.size() + parameters.length);
+        joined.addAll(this.parameters);
+        Collections.addAll(joined, parameters);
+        return new BookSqlCondition(this.sql.isEmpty() ? sql : this.sql + " and " + sql, Collections.unmodifiableList(joined));
+    }
+
+    /**
+     * @param column the column.
+     * @param values the values, the {@code null} ones are ignored, as they can not be equal to the column.
+     * @return the conjunction of this condition and the condition of the column being one of the values.
+     */
+    public BookSqlCondition andIn( String column, Collection<?> values ) {
+        List<Object> padded = new ArrayList<>(values);
+        padded.removeIf(value -> value == null);
+        if ( padded.isEmpty() ) {
+            return and("1 = 0");
+        }
+        int size = Integer.highestOneBit(padded.size());
+        if ( size < padded.size() ) {
+            size <<= 1;
+        }
+        Object last = padded.get(padded.size() - 1);
+        while ( padded.size() < size ) {
+            padded.add(last);
+        }
+        StringBuilder sql = new StringBuilder(column).append(" in (?");
+        for ( int i = 1; i < size; i++ ) {
+            sql.append(", ?");
+        }
+        return and(sql.append(')').toString(), padded.toArray());
+    }
+
+    /**
+     * @return the condition, empty if it matches every book.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+        if ( this == o ) {
+            return true;
+        }
+        if ( !(o instanceof BookSqlCondition) ) {
+            return false;
+        }
+        BookSqlCondition other = (BookSqlCondition) o;
+        return sql.equals(other.sql) && parameters.equals(other.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * sql.hashCode() + parameters.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "BookSqlCondition{" +
+            "sql='" + sql + "'" +
+            ", parameters=" + parameters +
+            "}";
+    }
+}
@@ -0,0 +1,255 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.repository.BookRepository;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Base class of the in-memory views of the catalogue, which are rebuilt from the database.
+ * <p>
+ * The view is loaded when the application is ready, and rebuilt periodically, by the {@code @Scheduled}
+ * {@link #scheduledRebuild()} of the subclass. A rebuild streams every book into a new view in a read-only
+ * transaction, while the published one keeps serving. The changes arriving meanwhile are applied to the new view
+ * as well, under the write lock, before it is published. Every committed change, on any instance, is applied to the
+ * published view.
+ * <p>
+ * A view is either changed in place, then it is read under the read lock, see {@link #read(Function)}, or replaced
+ * by a changed copy, or it is only ever added to, then it can be read without any lock, see {@link #current()}.
+ *
+ * @param <V> the type of the view.
+ */
+public abstract class AbstractCatalogueView<V> {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final String name;
+
+    private final BookRepository bookRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final boolean enabled;
+
+    private final Timer rebuildTime;
+
+    /**
+     * The readers of a view changed in place share the read lock, the changes and the publishing take the write lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The published view, {@code null} until the first one is loaded, or if it can not serve.
+     */
+    private volatile V view;
+
+    private volatile long publishedAtMillis;
+
+    /**
+     * The changes applied while a rebuild is running, {@code null} if none is running. Guarded by the write lock.
+     */
+    private List<ShelfChangedMessage> changesDuringRebuild;
+
+    protected AbstractCatalogueView( String name, boolean enabled, Timer rebuildTime, BookRepository bookRepository,
+                                     PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties ) {
+        this.name = name;
+        this.enabled = enabled;
+        this.rebuildTime = rebuildTime;
+        this.bookRepository = bookRepository;
+        this.applicationProperties = applicationProperties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Loads a new view from the books, in a read-only transaction.
+     *
+     * @param books every book, see {@link #stream(int)}.
+     * @return the view, or {@code null} if it can not serve.
+     */
+    protected abstract V load( Stream<Book> books );
+
+    /**
+     * Applies a committed change to a view, under the write lock.
+     *
+     * @param target the view to change.
+     * @param change the change.
+     * @return the changed view, the target itself if it is changed in place, or {@code null} if it can not serve any more.
+     */
+    protected abstract V apply( V target, ShelfChangedMessage change );
+
+    /**
+     * @return a short description of a rebuilt view for the log, for example its size.
+     */
+    protected abstract String describe( V rebuilt );
+
+    /**
+     * @return every book to load into a new view, each one detached once it has been read.
+     */
+    protected Stream<Book> stream( int fetchSize ) {
+        return bookRepository.streamAll(fetchSize);
+    }
+
+    /**
+     * @return {@code true} if the view is serving.
+     */
+    public boolean isServing() {
+        return view != null;
+    }
+
+    protected boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if ( enabled ) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the view, if it is enabled. Overridden by the subclasses to schedule it with their own interval.
+     */
+    public void scheduledRebuild() {
+        if ( enabled ) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Loads a new view from the database and publishes it. Does nothing if a rebuild is already running.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if ( changesDuringRebuild != null ) {
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            long start = System.nanoTime();
+            int fetchSize = applicationProperties.getExport().getFetchSize();
+            V rebuilt = readOnlyTransaction.execute(status -> {
+                try ( Stream<Book> books = stream(fetchSize) ) {
+                    return load(books);
+                }
+            });
+            lock.writeLock().lock();
+            try {
+                for ( ShelfChangedMessage change : changesDuringRebuild ) {
+                    if ( rebuilt == null ) {
+                        break;
+                    }
+                    rebuilt = apply(rebuilt, change);
+                }
+                publish(rebuilt);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            rebuildTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if ( rebuilt != null ) {
+                log.debug("{} has been rebuilt {}", name, describe(rebuilt));
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The view is changed before the catalogue version, so a reader can not get the new entity tag with
+     * the previous state of the catalogue.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onShelfChanged( ShelfChangedMessage message ) {
+        if ( !enabled ) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if ( changesDuringRebuild != null ) {
+                changesDuringRebuild.add(message);
+            }
+            V current = view;
+            if ( current != null ) {
+                publish(apply(current, message));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the published view, read without any lock, or {@code null} if the view is not {@link #isServing() serving}.
+     */
+    protected V published() {
+        return view;
+    }
+
+    /**
+     * @return the published view, read without any lock.
+     * @throws IllegalStateException if the view is not {@link #isServing() serving}.
+     */
+    protected V current() {
+        V current = view;
+        if ( current == null ) {
+            throw new IllegalStateException("The " + name + " has not been loaded yet");
+        }
+        return current;
+    }
+
+    /**
+     * Reads the published view under the read lock.
+     *
+     * @return the result of the reader, or {@code null} if the view is not serving.
+     */
+    protected <T> T read( Function<V, T> reader ) {
+        lock.readLock().lock();
+        try {
+            V current = view;
+            return current == null ? null : reader.apply(current);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the time the view has last been published or changed, in milliseconds since the epoch.
+     */
+    protected long getPublishedAtMillis() {
+        return publishedAtMillis;
+    }
+
+    private void publish( V published ) {
+        publishedAtMillis = System.currentTimeMillis();
+        view = published;
+    }
+}
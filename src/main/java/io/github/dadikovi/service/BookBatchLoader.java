@@ -0,0 +1,219 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Service for loading single books by their ids, batching the concurrent loads across requests.
+ * <p>
+ * The first load opens a batch window, the loads arriving within the window join it, and the whole batch is loaded
+ * with one {@code IN} query when the window closes or the batch gets full. Concurrent loads of the same id share
+ * one slot of the batch. Every caller waits for its own book only; a failing batch fails every load of it.
+ * <p>
+ * The queries run on threads of their own, so a slow query never delays the closing of the next windows. A caller
+ * waits for its batch at most the timeout, then it loads its book on its own.
+ * <p>
+ * Batching trades a little latency, at most the window, for fewer database round trips, so it only pays off when
+ * many books are read concurrently. It is disabled by default, then every load is a plain {@code findById}.
+ */
+@Service
+public class BookBatchLoader {
+
+    private final Logger log = LoggerFactory.getLogger(BookBatchLoader.class);
+
+    private final BookRepository bookRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final boolean enabled;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final long timeoutNanos;
+
+    /**
+     * Closes the windows.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Runs the queries of the closed batches.
+     */
+    private final ExecutorService loader;
+
+    private final DistributionSummary batchSize;
+
+    private final Timer addedWait;
+
+    private final Counter timedOut;
+
+    private final Object lock = new Object();
+
+    /**
+     * The loads of the open batch by their ids, guarded by the {@link #lock}.
+     */
+    private Map<Long, PendingLoad> pending = new HashMap<>();
+
+    /**
+     * The closing of the open batch when its window is over, guarded by the {@link #lock}.
+     */
+    private ScheduledFuture<?> windowEnd;
+
+    public BookBatchLoader( BookRepository bookRepository, PlatformTransactionManager transactionManager,
+                            ApplicationProperties applicationProperties, MeterRegistry meterRegistry ) {
+        this.bookRepository = bookRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        ApplicationProperties.BatchLoader properties = applicationProperties.getBatchLoader();
+        this.enabled = properties.isEnabled();
+        this.windowNanos = properties.getWindow().toNanos();
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.timeoutNanos = properties.getTimeout().toNanos();
+        this.scheduler = enabled
+            ? Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("book-batch-window-"))
+            : null;
+        this.loader = enabled
+            ? Executors.newFixedThreadPool(properties.getThreads(), new CustomizableThreadFactory("book-batch-loader-"))
+            : null;
+        this.batchSize = DistributionSummary.builder("book.batch.loader.batch.size")
+            .description("The number of distinct ids loaded by one query")
+            .register(meterRegistry);
+        this.addedWait = Timer.builder("book.batch.loader.wait")
+            .description("The time a load has waited for its batch to be closed")
+            .register(meterRegistry);
+        this.timedOut = Counter.builder("book.batch.loader.timeouts")
+            .description("The number of loads which have not been loaded by their batch in time, and have loaded the book on their own")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if ( scheduler != null ) {
+            scheduler.shutdownNow();
+            loader.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the book with the given id, waiting for the batch of the load to be loaded if batching is enabled.
+     *
+     * @param id the id of the book.
+     * @return the book, or empty if there is no book with the id.
+     */
+    public Optional<Book> findById( Long id ) {
+        if ( !enabled ) {
+            return bookRepository.findById(id);
+        }
+        try {
+            return load(id).get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch ( TimeoutException e ) {
+            timedOut.increment();
+            log.debug("The batch of Book {} has not been loaded in time, loading it on its own", id);
+            return bookRepository.findById(id);
+        } catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batch of Book " + id, e);
+        }
+    }
+
+    private CompletableFuture<Optional<Book>> load( Long id ) {
+        Map<Long, PendingLoad> fullBatch = null;
+        PendingLoad load;
+        synchronized ( lock ) {
+            load = pending.get(id);
+            if ( load == null ) {
+                load = new PendingLoad();
+                pending.put(id, load);
+                if ( pending.size() == 1 ) {
+                    windowEnd = scheduler.schedule(this::closeWindow, windowNanos, TimeUnit.NANOSECONDS);
+                }
+                if ( pending.size() >= maxBatchSize ) {
+                    windowEnd.cancel(false);
+                    fullBatch = takePending();
+                }
+            }
+        }
+        if ( fullBatch != null ) {
+            Map<Long, PendingLoad> batch = fullBatch;
+            loader.execute(() -> loadBatch(batch));
+        }
+        return load.future;
+    }
+
+    private void closeWindow() {
+        Map<Long, PendingLoad> batch;
+        synchronized ( lock ) {
+            batch = takePending();
+        }
+        // The window may have been closed by a full batch meanwhile
+        if ( !batch.isEmpty() ) {
+            loader.execute(() -> loadBatch(batch));
+        }
+    }
+
+    private Map<Long, PendingLoad> takePending() {
+        Map<Long, PendingLoad> batch = pending;
+        pending = new HashMap<>();
+        windowEnd = null;
+        return batch;
+    }
+
+    private void loadBatch( Map<Long, PendingLoad> batch ) {
+        long closedAt = System.nanoTime();
+        for ( PendingLoad load : batch.values() ) {
+            addedWait.record(closedAt - load.startedAt, TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.size());
+        log.debug("Loading a batch of {} Books", batch.size());
+        try {
+            List<Book> books = readOnlyTransaction.execute(status -> bookRepository.findAllById(batch.keySet()));
+            Map<Long, Book> booksById = new HashMap<>(books.size() * 2);
+            for ( Book book : books ) {
+                booksById.put(book.getId(), book);
+            }
+            batch.forEach(( id, load ) -> load.future.complete(Optional.ofNullable(booksById.get(id))));
+        } catch ( RuntimeException e ) {
+            log.warn("Loading a batch of {} Books has failed", batch.size(), e);
+            batch.values().forEach(load -> load.future.completeExceptionally(e));
+        }
+    }
+
+    private static final class PendingLoad {
+
+        private final long startedAt = System.nanoTime();
+
+        private final CompletableFuture<Optional<Book>> future = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,417 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.service.dto.BookCriteria;
+import io.github.dadikovi.service.dto.PrefixStringFilter;
+import io.github.jhipster.service.filter.Filter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service answering the filters on the authors, the publishers and the publish years from in-memory bitmap indexes.
+ * <p>
+ * Every distinct value of these attributes has a compressed bitmap of the ids of its books. A filter is answered by
+ * the union of the bitmaps of the values of each attribute and the intersection of these unions, then the books of
+ * the matching ids are loaded by their ids, a page at a time. The loaded books are checked against the filter
+ * again, as they may have changed since the bitmaps have been read.
+ * <p>
+ * The indexes are loaded when the application is ready, updated by every committed change, on any instance, and
+ * rebuilt from the database periodically, so a book whose change message has been lost is not missed for good.
+ * They are disabled by default. The ids must fit into an int: the indexes stop serving if a greater one is met.
+ * Strings are compared exactly, whatever the collation of the columns is.
+ */
+@Service
+public class BookBitmapIndexService extends AbstractCatalogueView<BookBitmapIndexService.Indexes> {
+
+    private final Logger log = LoggerFactory.getLogger(BookBitmapIndexService.class);
+
+    private final BookLookupService bookLookupService;
+
+    private final Counter queries;
+
+    /**
+     * Whether an id has not fit into the indexes, then they are not rebuilt any more.
+     */
+    private volatile boolean overflown;
+
+    public BookBitmapIndexService( BookRepository bookRepository, BookLookupService bookLookupService,
+                                   PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+                                   MeterRegistry meterRegistry ) {
+        super("bitmap indexes", applicationProperties.getBitmapIndex().isEnabled(),
+            Timer.builder("book.bitmap.index.rebuild")
+                .description("The time of loading the bitmap indexes from the database")
+                .register(meterRegistry),
+            bookRepository, transactionManager, applicationProperties);
+        this.bookLookupService = bookLookupService;
+        this.queries = Counter.builder("book.bitmap.index.queries")
+            .description("The number of filters answered by the bitmap indexes")
+            .register(meterRegistry);
+        registerValuesGauge(meterRegistry, "author", current -> current.authors.size());
+        registerValuesGauge(meterRegistry, "publisher", current -> current.publishers.size());
+        registerValuesGauge(meterRegistry, "publishYear", current -> current.publishYears.size());
+        Gauge.builder("book.bitmap.index.memory", this, service -> {
+            Long bytes = service.read(Indexes::sizeInBytes);
+            return bytes == null ? Double.NaN : bytes;
+        })
+            .description("The memory of the bitmaps")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Creates the query of an example, if the indexes can answer it: the example has no other attributes than
+     * the author, the publisher and the publish year.
+     *
+     * @param example the example book.
+     * @return the query, or empty if the indexes can not answer it.
+     */
+    public Optional<BookBitmapQuery> createQuery( Book example ) {
+        if ( !isServing() || example.getId() != null || example.getTitle() != null || example.getCreatedAt() != null || example.getCount() != null ) {
+            return Optional.empty();
+        }
+        if ( example.getAuthor() == null && example.getPublisher() == null && example.getPublishYear() == null ) {
+            return Optional.empty();
+        }
+        return Optional.of(new BookBitmapQuery(singletonIfSet(example.getAuthor()), singletonIfSet(example.getPublisher()),
+            singletonIfSet(example.getPublishYear())));
+    }
+
+    /**
+     * Creates the query of the criteria, if the indexes can answer it: the criteria has no other filters than
+     * {@code equals} and {@code in} of the author, the publisher and the publish year.
+     *
+     * @param criteria the criteria.
+     * @return the query, or empty if the indexes can not answer it.
+     */
+    public Optional<BookBitmapQuery> createQuery( BookCriteria criteria ) {
+        if ( !isServing() || criteria == null || criteria.getId() != null || criteria.getTitle() != null
+            || criteria.getCreatedAt() != null || criteria.getCount() != null ) {
+            return Optional.empty();
+        }
+        if ( criteria.getAuthor() == null && criteria.getPublisher() == null && criteria.getPublishYear() == null ) {
+            return Optional.empty();
+        }
+        if ( !isEqualsOrIn(criteria.getAuthor()) || !isEqualsOrIn(criteria.getPublisher()) || !isEqualsOrIn(criteria.getPublishYear()) ) {
+            return Optional.empty();
+        }
+        return Optional.of(new BookBitmapQuery(values(criteria.getAuthor()), values(criteria.getPublisher()), values(criteria.getPublishYear())));
+    }
+
+    /**
+     * The indexed counterpart of {@link BookRepository#findAllAfter(org.springframework.data.jpa.domain.Specification, Long, int)}.
+     *
+     * @param query the query of the indexes.
+     * @param predicate the same filter as the query, to check the loaded books.
+     * @param after the id of the last book of the previous page, {@code null} for the first page.
+     * @param size the maximum number of books to return.
+     * @return the page of books, {@link Slice#hasNext()} tells whether there are more books after it.
+     * @throws IllegalStateException if the indexes are not {@link #isServing() serving}.
+     */
+    public Slice<Book> findAllAfter( BookBitmapQuery query, BookColumnPredicate predicate, Long after, int size ) {
+        RoaringBitmap matching = read(current -> current.match(query));
+        if ( matching == null ) {
+            throw new IllegalStateException("The bitmap indexes have not been loaded");
+        }
+        queries.increment();
+        List<Book> content = new ArrayList<>(size + 1);
+        if ( after != null && after >= Integer.MAX_VALUE ) {
+            return new SliceImpl<>(content, PageRequest.of(0, size), false);
+        }
+        PeekableIntIterator ids = matching.getIntIterator();
+        if ( after != null && after >= 0 ) {
+            ids.advanceIfNeeded((int) (after + 1));
+        }
+        // The books which do not match anymore are skipped, so more of them may have to be loaded
+        while ( content.size() <= size && ids.hasNext() ) {
+            List<Long> batch = new ArrayList<>(size + 1 - content.size());
+            while ( batch.size() < size + 1 - content.size() && ids.hasNext() ) {
+                batch.add((long) ids.next());
+            }
+            Map<Long, Book> found = bookLookupService.findAllById(batch);
+            List<Book> books = batch.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList());
+            BookListColumns columns = new BookListColumns(books);
+            for ( int row = 0; row < books.size(); row++ ) {
+                if ( predicate.test(columns, row) ) {
+                    content.add(books.get(row));
+                }
+            }
+        }
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${application.bitmap-index.rebuild-interval:PT10M}", initialDelayString = "${application.bitmap-index.rebuild-interval:PT10M}")
+    public void scheduledRebuild() {
+        super.scheduledRebuild();
+    }
+
+    /**
+     * Does nothing once an id has not fit into the indexes.
+     */
+    @Override
+    public void rebuild() {
+        if ( !overflown ) {
+            super.rebuild();
+        }
+    }
+
+    @Override
+    protected Indexes load( Stream<Book> books ) {
+        Indexes loaded = new Indexes();
+        try {
+            books.forEach(book -> loaded.add(book.getId(), book));
+        } catch ( IdOverflowException e ) {
+            return stopServing(e);
+        }
+        loaded.optimize();
+        return loaded;
+    }
+
+    @Override
+    protected Indexes apply( Indexes target, ShelfChangedMessage change ) {
+        try {
+            target.apply(change);
+        } catch ( IdOverflowException e ) {
+            return stopServing(e);
+        }
+        return target;
+    }
+
+    @Override
+    protected String describe( Indexes rebuilt ) {
+        return "with " + rebuilt.authors.size() + " authors, " + rebuilt.publishers.size() + " publishers and "
+            + rebuilt.publishYears.size() + " publish years";
+    }
+
+    /**
+     * @return {@code null}, which stops the indexes serving.
+     */
+    private Indexes stopServing( IdOverflowException e ) {
+        log.warn("The bitmap indexes stop serving, the filters go to the database: {}", e.getMessage());
+        overflown = true;
+        return null;
+    }
+
+    private void registerValuesGauge( MeterRegistry meterRegistry, String field, ToDoubleFunction<Indexes> values ) {
+        Gauge.builder("book.bitmap.index.values", this, service -> {
+            Double value = service.read(current -> values.applyAsDouble(current));
+            return value == null ? Double.NaN : value;
+        })
+            .description("The number of the distinct indexed values")
+            .tag("field", field)
+            .register(meterRegistry);
+    }
+
+    private static <X> Set<X> singletonIfSet( X value ) {
+        return value == null ? null : Collections.singleton(value);
+    }
+
+    /**
+     * @return {@code true} if the filter is not set, or it has no other operators than {@code equals} and {@code in}.
+     */
+    private static boolean isEqualsOrIn( Filter<?> filter ) {
+        if ( filter == null ) {
+            return true;
+        }
+        if ( filter.getEquals() == null && filter.getIn() == null ) {
+            return false;
+        }
+        if ( filter.getSpecified() != null || filter.getNotEquals() != null || filter.getNotIn() != null ) {
+            return false;
+        }
+        if ( filter instanceof PrefixStringFilter ) {
+            PrefixStringFilter stringFilter = (PrefixStringFilter) filter;
+            return stringFilter.getContains() == null && stringFilter.getDoesNotContain() == null && stringFilter.getStartsWith() == null;
+        }
+        if ( filter instanceof LongFilter ) {
+            LongFilter longFilter = (LongFilter) filter;
+            return longFilter.getGreaterThan() == null && longFilter.getGreaterThanOrEqual() == null
+                && longFilter.getLessThan() == null && longFilter.getLessThanOrEqual() == null;
+        }
+        return false;
+    }
+
+    /**
+     * @return the values of an {@code equals} or {@code in} filter, which takes precedence like in the specification.
+     */
+    private static <X> Set<X> values( Filter<X> filter ) {
+        if ( filter == null ) {
+            return null;
+        }
+        if ( filter.getEquals() != null ) {
+            return Collections.singleton(filter.getEquals());
+        }
+        Set<X> values = new HashSet<>(filter.getIn());
+        values.remove(null);
+        return values;
+    }
+
+    private static final class IdOverflowException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private IdOverflowException( long id ) {
+            super("The id " + id + " does not fit into the bitmaps");
+        }
+    }
+
+    /**
+     * The bitmaps of the ids by the indexed values. Changed under the write lock, read under the read lock.
+     */
+    static final class Indexes {
+
+        private final Map<String, RoaringBitmap> authors = new HashMap<>();
+
+        private final Map<String, RoaringBitmap> publishers = new HashMap<>();
+
+        private final Map<Long, RoaringBitmap> publishYears = new HashMap<>();
+
+        void apply( ShelfChangedMessage change ) {
+            Book book = change.getChangedBook();
+            if ( book == null || book.getId() == null ) {
+                return;
+            }
+            if ( change.getChangeType() != ChangeType.CREATE ) {
+                Book previous = change.getPreviousBook();
+                if ( previous != null ) {
+                    remove(book.getId(), previous);
+                } else {
+                    removeEverywhere(book.getId());
+                }
+            }
+            if ( change.getChangeType() != ChangeType.DELETE ) {
+                add(book.getId(), book);
+            }
+        }
+
+        void add( long id, Book book ) {
+            int index = toIndex(id);
+            add(authors, book.getAuthor(), index);
+            add(publishers, book.getPublisher(), index);
+            add(publishYears, book.getPublishYear(), index);
+        }
+
+        void remove( long id, Book book ) {
+            int index = toIndex(id);
+            remove(authors, book.getAuthor(), index);
+            remove(publishers, book.getPublisher(), index);
+            remove(publishYears, book.getPublishYear(), index);
+        }
+
+        void removeEverywhere( long id ) {
+            int index = toIndex(id);
+            removeEverywhere(authors, index);
+            removeEverywhere(publishers, index);
+            removeEverywhere(publishYears, index);
+        }
+
+        /**
+         * @return a new bitmap of the ids matching the query.
+         */
+        RoaringBitmap match( BookBitmapQuery query ) {
+            List<RoaringBitmap> unions = new ArrayList<>(3);
+            if ( query.getAuthors() != null ) {
+                unions.add(union(authors, query.getAuthors()));
+            }
+            if ( query.getPublishers() != null ) {
+                unions.add(union(publishers, query.getPublishers()));
+            }
+            if ( query.getPublishYears() != null ) {
+                unions.add(union(publishYears, query.getPublishYears()));
+            }
+            RoaringBitmap matching = unions.isEmpty() ? new RoaringBitmap() : unions.get(0);
+            for ( int i = 1; i < unions.size(); i++ ) {
+                matching.and(unions.get(i));
+            }
+            return matching;
+        }
+
+        /**
+         * Compresses the runs of consecutive ids.
+         */
+        void optimize() {
+            Stream.of(authors, publishers, publishYears).flatMap(index -> index.values().stream()).forEach(RoaringBitmap::runOptimize);
+        }
+
+        long sizeInBytes() {
+            return Stream.of(authors, publishers, publishYears)
+                .flatMap(index -> index.values().stream())
+                .mapToLong(RoaringBitmap::getLongSizeInBytes)
+                .sum();
+        }
+
+        private static int toIndex( long id ) {
+            if ( id < 0 || id > Integer.MAX_VALUE ) {
+                throw new IdOverflowException(id);
+            }
+            return (int) id;
+        }
+
+        private static <K> void add( Map<K, RoaringBitmap> index, K value, int id ) {
+            if ( value != null ) {
+                index.computeIfAbsent(value, key -> new RoaringBitmap()).add(id);
+            }
+        }
+
+        private static <K> void remove( Map<K, RoaringBitmap> index, K value, int id ) {
+            RoaringBitmap bitmap = value == null ? null : index.get(value);
+            if ( bitmap != null ) {
+                bitmap.remove(id);
+                if ( bitmap.isEmpty() ) {
+                    index.remove(value);
+                }
+            }
+        }
+
+        private static <K> void removeEverywhere( Map<K, RoaringBitmap> index, int id ) {
+            index.values().removeIf(bitmap -> {
+                bitmap.remove(id);
+                return bitmap.isEmpty();
+            });
+        }
+
+        /**
+         * @return a new bitmap, the union of the bitmaps of the values.
+         */
+        private static <K> RoaringBitmap union( Map<K, RoaringBitmap> index, Collection<K> values ) {
+            List<RoaringBitmap> bitmaps = values.stream().map(index::get).filter(Objects::nonNull).collect(Collectors.toList());
+            if ( bitmaps.isEmpty() ) {
+                return new RoaringBitmap();
+            }
+            return bitmaps.size() == 1 ? bitmaps.get(0).clone() : FastAggregation.or(bitmaps.iterator());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.dadikovi.service;
+
+import java.util.Set;
+
+/**
+ * A filter answered by the {@link BookBitmapIndexService}: a book matches if each of the restricted attributes
+ * is one of its values. A {@code null} set does not restrict the attribute.
+ */
+public final class BookBitmapQuery {
+
+    private final Set<String> authors;
+
+    private final Set<String> publishers;
+
+    private final Set<Long> publishYears;
+
+    BookBitmapQuery( Set<String> authors, Set<String> publishers, Set<Long> publishYears ) {
+        this.authors = authors;
+        this.publishers = publishers;
+        this.publishYears = publishYears;
+    }
+
+    public Set<String> getAuthors() {
+        return authors;
+    }
+
+    public Set<String> getPublishers() {
+        return publishers;
+    }
+
+    public Set<Long> getPublishYears() {
+        return publishYears;
+    }
+
+    @Override
+    public String toString() {
+        return "BookBitmapQuery{" +
+            "authors=" + authors +
+            ", publishers=" + publishers +
+            ", publishYears=" + publishYears +
+            "}";
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.dadikovi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Service caching the books by their ids in front of the {@link BookBatchLoader}.
+ * <p>
+ * The cache is local and bounded by its size. A book is evicted on every committed change of it, on any instance,
+ * as the changes are broadcast to every instance, see {@link io.github.dadikovi.config.ShelfChangedReceiver}.
+ * The time to live bounds the staleness if a change notification is lost.
+ * <p>
+ * A load and the invalidation of the same book are serialized by the cache, so a book read before a change can not
+ * be cached after the invalidation. Only existing books are cached. The cached books are shared, they must not be
+ * modified.
+ */
+@Service
+public class BookCacheService {
+
+    public static final String CACHE_NAME = "books";
+
+    private final Logger log = LoggerFactory.getLogger(BookCacheService.class);
+
+    private final BookBatchLoader bookBatchLoader;
+
+    private final boolean enabled;
+
+    private final Cache<Long, Book> cache;
+
+    private final Counter invalidations;
+
+    public BookCacheService( BookBatchLoader bookBatchLoader, ApplicationProperties applicationProperties, MeterRegistry meterRegistry ) {
+        this.bookBatchLoader = bookBatchLoader;
+        ApplicationProperties.BookCache properties = applicationProperties.getBookCache();
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getTimeToLive())
+            .recordStats()
+            .build();
+        // cache.gets (hit and miss), cache.puts, cache.evictions and cache.size, tagged with cache=books
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.invalidations = Counter.builder("book.cache.invalidations")
+            .description("The number of books invalidated by a change of the shelf")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Get the book with the given id, from the cache if it is there.
+     *
+     * @param id the id of the book.
+     * @return the book, or empty if there is no book with the id.
+     */
+    public Optional<Book> findById( Long id ) {
+        if ( !enabled ) {
+            return bookBatchLoader.findById(id);
+        }
+        return Optional.ofNullable(cache.get(id, key -> bookBatchLoader.findById(key).orElse(null)));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onShelfChanged( ShelfChangedMessage message ) {
+        Book book = message.getChangedBook();
+        if ( book != null && book.getId() != null ) {
+            cache.invalidate(book.getId());
+        } else {
+            log.debug("Change without a book id, invalidating every book");
+            cache.invalidateAll();
+        }
+        invalidations.increment();
+    }
+}
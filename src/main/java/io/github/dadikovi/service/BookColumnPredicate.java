@@ -0,0 +1,18 @@
+package io.github.dadikovi.service;
+
+/**
+ * A filter of the books, evaluated over the {@link BookColumns} of a row.
+ */
+@FunctionalInterface
+public interface BookColumnPredicate {
+
+    boolean test( BookColumns columns, int row );
+
+    default BookColumnPredicate and( BookColumnPredicate other ) {
+        return ( columns, row ) -> test(columns, row) && other.test(columns, row);
+    }
+
+    static BookColumnPredicate all() {
+        return ( columns, row ) -> true;
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.dadikovi.service;
+
+/**
+ * The attributes of the books, read column by column from a row number, without materializing the books.
+ * <p>
+ * The numbers are primitives: whether a nullable one is set is told by its {@code has} method.
+ */
+public interface BookColumns {
+
+    long getId( int row );
+
+    String getTitle( int row );
+
+    String getAuthor( int row );
+
+    String getPublisher( int row );
+
+    boolean hasPublishYear( int row );
+
+    long getPublishYear( int row );
+
+    boolean hasCreatedAt( int row );
+
+    /**
+     * @return the seconds of the creation time since the epoch.
+     */
+    long getCreatedAtSecond( int row );
+
+    /**
+     * @return the nanoseconds of the creation time within its second.
+     */
+    int getCreatedAtNano( int row );
+
+    boolean hasCount( int row );
+
+    long getCount( int row );
+}
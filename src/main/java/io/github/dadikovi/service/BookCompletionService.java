@@ -0,0 +1,192 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.service.dto.BookCompletionDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Service completing the typed prefixes of the titles and the authors, from in-memory {@link BookCompletionTrie}s,
+ * with the values of the most copies first.
+ * <p>
+ * The tries are loaded when the application is ready, and rebuilt from the database periodically, which compacts
+ * them. Like the search index, they are double-buffered, see {@link AbstractCatalogueView}. Every committed change,
+ * on any instance, is applied to the published tries in place. The title, the author and the copies each book has
+ * been added with are kept, so a change removes exactly what has been added.
+ * <p>
+ * The autocomplete is disabled by default. Until the first tries are loaded, it is not available.
+ */
+@Service
+public class BookCompletionService extends AbstractCatalogueView<BookCompletionService.Completions> {
+
+    private static final Comparator<BookCompletionDTO> BEST_FIRST = Comparator.comparingLong(BookCompletionDTO::getCount).reversed();
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Timer completionTime;
+
+    public BookCompletionService( BookRepository bookRepository, PlatformTransactionManager transactionManager,
+                                  ApplicationProperties applicationProperties, MeterRegistry meterRegistry ) {
+        super("autocomplete tries", applicationProperties.getAutocomplete().isEnabled(),
+            Timer.builder("book.autocomplete.rebuild")
+                .description("The time of loading the autocomplete tries from the database")
+                .register(meterRegistry),
+            bookRepository, transactionManager, applicationProperties);
+        this.applicationProperties = applicationProperties;
+        this.completionTime = Timer.builder("book.autocomplete.queries")
+            .description("The time of completing a prefix from the autocomplete tries")
+            .register(meterRegistry);
+        registerGauge(meterRegistry, "book.autocomplete.values", "The number of distinct values in the autocomplete tries",
+            current -> current.titles.size() + current.authors.size());
+        registerGauge(meterRegistry, "book.autocomplete.nodes", "The number of nodes of the autocomplete tries",
+            current -> current.titles.nodes() + current.authors.nodes());
+    }
+
+    /**
+     * Completes a prefix with the titles or the authors of the most copies.
+     *
+     * @param prefix the typed prefix, the case, the accents and the repeated spaces are ignored.
+     * @param field the attribute to complete, {@code null} for both the titles and the authors.
+     * @param size the maximum number of completions, at most the {@code max-size} of the autocomplete.
+     * @return the completions, the one of the most copies first.
+     * @throws IllegalStateException if the tries are not {@link #isServing() serving}.
+     */
+    public List<BookCompletionDTO> complete( String prefix, BookCompletionDTO.Field field, int size ) {
+        long start = System.nanoTime();
+        List<BookCompletionDTO> completed = read(current -> {
+            List<BookCompletionDTO> found = new ArrayList<>();
+            if ( field != BookCompletionDTO.Field.AUTHOR ) {
+                add(found, current.titles.complete(prefix, size), BookCompletionDTO.Field.TITLE);
+            }
+            if ( field != BookCompletionDTO.Field.TITLE ) {
+                add(found, current.authors.complete(prefix, size), BookCompletionDTO.Field.AUTHOR);
+            }
+            return found;
+        });
+        if ( completed == null ) {
+            throw new IllegalStateException("The autocomplete tries have not been loaded yet");
+        }
+        if ( field == null ) {
+            completed.sort(BEST_FIRST);
+            completed = completed.subList(0, Math.min(size, completed.size()));
+        }
+        completionTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return completed;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${application.autocomplete.rebuild-interval:PT1H}", initialDelayString = "${application.autocomplete.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        super.scheduledRebuild();
+    }
+
+    @Override
+    protected Completions load( Stream<Book> books ) {
+        Completions loaded = new Completions(applicationProperties.getAutocomplete().getMaxSize());
+        books.forEach(loaded::add);
+        loaded.finishLoading();
+        return loaded;
+    }
+
+    @Override
+    protected Completions apply( Completions target, ShelfChangedMessage change ) {
+        target.apply(change);
+        return target;
+    }
+
+    @Override
+    protected String describe( Completions rebuilt ) {
+        return "with " + rebuilt.titles.size() + " titles and " + rebuilt.authors.size() + " authors";
+    }
+
+    private void registerGauge( MeterRegistry meterRegistry, String name, String description, Function<Completions, Integer> value ) {
+        Gauge.builder(name, this, service -> {
+            Integer current = service.read(value);
+            return current == null ? Double.NaN : current;
+        })
+            .description(description)
+            .register(meterRegistry);
+    }
+
+    private static void add( List<BookCompletionDTO> target, List<BookCompletionTrie.Completion> completions, BookCompletionDTO.Field field ) {
+        for ( BookCompletionTrie.Completion completion : completions ) {
+            target.add(BookCompletionDTO.of(completion.getValue(), field, completion.getBooks(), completion.getCount()));
+        }
+    }
+
+    /**
+     * The tries of the titles and the authors, with the values each book has been added with.
+     * Changed under the write lock, read under the read lock.
+     */
+    static final class Completions {
+
+        private final BookCompletionTrie titles;
+
+        private final BookCompletionTrie authors;
+
+        private final Map<Long, Book> added = new HashMap<>();
+
+        Completions( int ranked ) {
+            this.titles = new BookCompletionTrie(ranked);
+            this.authors = new BookCompletionTrie(ranked);
+        }
+
+        void apply( ShelfChangedMessage change ) {
+            Book book = change.getChangedBook();
+            if ( book == null || book.getId() == null ) {
+                return;
+            }
+            if ( change.getChangeType() == ChangeType.DELETE ) {
+                remove(book.getId());
+            } else {
+                add(book);
+            }
+        }
+
+        /**
+         * Adds the book, replacing its previous version.
+         */
+        void add( Book book ) {
+            remove(book.getId());
+            // Only the completed attributes are kept, not the managed entity
+            Book copy = new Book().title(book.getTitle()).author(book.getAuthor()).count(book.getCount());
+            added.put(book.getId(), copy);
+            titles.add(copy.getTitle(), copies(copy));
+            authors.add(copy.getAuthor(), copies(copy));
+        }
+
+        void remove( Long id ) {
+            Book previous = added.remove(id);
+            if ( previous != null ) {
+                titles.remove(previous.getTitle(), copies(previous));
+                authors.remove(previous.getAuthor(), copies(previous));
+            }
+        }
+
+        void finishLoading() {
+            titles.finishLoading();
+            authors.finishLoading();
+        }
+
+        private static long copies( Book book ) {
+            return book.getCount() == null ? 0 : book.getCount();
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package io.github.dadikovi.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A radix trie of the values of a book attribute, completing prefixes with the values of the most copies.
+ * <p>
+ * The values are folded to their keys: lowercased, without accents and with single spaces. The edges of the trie are
+ * labeled with the common substrings of the keys, so a shared prefix is stored once. Every node keeps its best values,
+ * the ones of the most copies in its subtree, so a completion only walks the characters of the prefix and returns
+ * the ranking of the node it ends in, whatever the number of values below it is.
+ * <p>
+ * A change of a value updates the rankings of the nodes on its path, from the bottom up, merging the rankings of
+ * their children. The trie is loaded without ranking, and every ranking is computed once at the end.
+ * <p>
+ * It is not thread-safe, {@link BookCompletionService} guards it.
+ */
+final class BookCompletionTrie {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private static final Completion[] NONE = new Completion[0];
+
+    private static final Comparator<Completion> BEST_FIRST = Comparator.comparingLong(Completion::getCount).reversed()
+        .thenComparing(Completion::getKey);
+
+    /**
+     * The number of the best values kept by every node.
+     */
+    private final int ranked;
+
+    private final Node root = new Node("");
+
+    private boolean loading = true;
+
+    private int nodes = 1;
+
+    private int values;
+
+    BookCompletionTrie( int ranked ) {
+        this.ranked = ranked;
+    }
+
+    /**
+     * @return the key of a value, {@code null} if it has no other characters than spaces.
+     */
+    static String fold( String value ) {
+        if ( value == null ) {
+            return null;
+        }
+        String key = foldPrefix(value).trim();
+        return key.isEmpty() ? null : key;
+    }
+
+    /**
+     * A typed prefix keeps its trailing space, so a finished word is not completed to longer words.
+     */
+    static String foldPrefix( String prefix ) {
+        String folded = MARKS.matcher(Normalizer.normalize(prefix, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        String spaced = SPACES.matcher(folded).replaceAll(" ");
+        return spaced.startsWith(" ") ? spaced.substring(1) : spaced;
+    }
+
+    /**
+     * Adds a book with the value.
+     *
+     * @param value the value of the book, the first spelling of a key is returned for it.
+     * @param count the number of copies of the book.
+     */
+    void add( String value, long count ) {
+        String key = fold(value);
+        if ( key == null ) {
+            return;
+        }
+        List<Node> path = insert(key);
+        Node node = path.get(path.size() - 1);
+        if ( node.completion == null ) {
+            node.completion = new Completion(key, value);
+            values++;
+        }
+        node.completion.books++;
+        node.completion.count += count;
+        if ( !loading ) {
+            rank(path);
+        }
+    }
+
+    /**
+     * Removes a book with the value, the value is removed with its last book.
+     *
+     * @param value the value of the book, as it has been added.
+     * @param count the number of copies of the book, as it has been added.
+     */
+    void remove( String value, long count ) {
+        String key = fold(value);
+        if ( key == null ) {
+            return;
+        }
+        List<Node> path = find(key);
+        Node node = path == null ? null : path.get(path.size() - 1);
+        if ( node == null || node.completion == null ) {
+            return;
+        }
+        node.completion.books--;
+        node.completion.count -= count;
+        if ( node.completion.books == 0 ) {
+            node.completion = null;
+            values--;
+            prune(path);
+        }
+        if ( !loading ) {
+            rank(path);
+        }
+    }
+
+    /**
+     * Ranks every node, after the values have been loaded. The later changes rank the nodes on their paths.
+     */
+    void finishLoading() {
+        rankSubtree(root);
+        loading = false;
+    }
+
+    /**
+     * @param prefix the typed prefix, it is folded like the values.
+     * @param size the maximum number of completions, at most the number of the ranked values.
+     * @return the values starting with the prefix, the ones of the most copies first.
+     */
+    List<Completion> complete( String prefix, int size ) {
+        String key = foldPrefix(prefix);
+        Node node = root;
+        int matched = 0;
+        while ( matched < key.length() ) {
+            Node child = child(node, key.charAt(matched));
+            if ( child == null ) {
+                return Collections.emptyList();
+            }
+            int common = commonPrefix(child.label, key, matched);
+            if ( matched + common == key.length() ) {
+                node = child;
+                break;
+            }
+            if ( common < child.label.length() ) {
+                return Collections.emptyList();
+            }
+            node = child;
+            matched += common;
+        }
+        return Arrays.asList(node.top).subList(0, Math.min(size, node.top.length));
+    }
+
+    /**
+     * @return the number of distinct values.
+     */
+    int size() {
+        return values;
+    }
+
+    int nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the nodes from the root to the node of the key, which is created if it does not exist.
+     */
+    private List<Node> insert( String key ) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while ( matched < key.length() ) {
+            int index = childIndex(node, key.charAt(matched));
+            if ( index < 0 ) {
+                Node leaf = new Node(key.substring(matched));
+                insertChild(node, -index - 1, leaf);
+                path.add(leaf);
+                return path;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, matched);
+            if ( common < child.label.length() ) {
+                // The edge is split at the end of the common part
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[] { child };
+                middle.top = child.top;
+                node.children[index] = middle;
+                nodes++;
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            matched += common;
+        }
+        return path;
+    }
+
+    /**
+     * @return the nodes from the root to the node of the key, {@code null} if there is no such node.
+     */
+    private List<Node> find( String key ) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while ( matched < key.length() ) {
+            Node child = child(node, key.charAt(matched));
+            if ( child == null || commonPrefix(child.label, key, matched) < child.label.length() ) {
+                return null;
+            }
+            path.add(child);
+            node = child;
+            matched += child.label.length();
+        }
+        return path;
+    }
+
+    /**
+     * Removes the nodes of no value and no children, and merges the nodes of no value with their only child,
+     * from the bottom of the path up.
+     */
+    private void prune( List<Node> path ) {
+        for ( int i = path.size() - 1; i > 0; i-- ) {
+            Node node = path.get(i);
+            if ( node.completion != null ) {
+                return;
+            }
+            if ( node.children.length == 0 ) {
+                Node parent = path.get(i - 1);
+                removeChild(parent, childIndex(parent, node.label.charAt(0)));
+                nodes--;
+            } else if ( node.children.length == 1 ) {
+                Node child = node.children[0];
+                node.label = node.label + child.label;
+                node.completion = child.completion;
+                node.children = child.children;
+                node.top = child.top;
+                nodes--;
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void rank( List<Node> path ) {
+        for ( int i = path.size() - 1; i >= 0; i-- ) {
+            rankNode(path.get(i));
+        }
+    }
+
+    private void rankSubtree( Node node ) {
+        for ( Node child : node.children ) {
+            rankSubtree(child);
+        }
+        rankNode(node);
+    }
+
+    /**
+     * Ranks the node by merging its value with the rankings of its children, which are up to date.
+     */
+    private void rankNode( Node node ) {
+        if ( node.children.length == 0 ) {
+            node.top = node.completion == null ? NONE : new Completion[] { node.completion };
+            return;
+        }
+        List<Completion> candidates = new ArrayList<>();
+        if ( node.completion != null ) {
+            candidates.add(node.completion);
+        }
+        for ( Node child : node.children ) {
+            Collections.addAll(candidates, child.top);
+        }
+        candidates.sort(BEST_FIRST);
+        node.top = candidates.subList(0, Math.min(ranked, candidates.size())).toArray(NONE);
+    }
+
+    private static Node child( Node node, char first ) {
+        int index = childIndex(node, first);
+        return index < 0 ? null : node.children[index];
+    }
+
+    /**
+     * @return the index of the child whose label starts with the character, or {@code -(insertion point) - 1}.
+     */
+    private static int childIndex( Node node, char first ) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while ( low <= high ) {
+            int middle = (low + high) >>> 1;
+            char label = node.children[middle].label.charAt(0);
+            if ( label < first ) {
+                low = middle + 1;
+            } else if ( label > first ) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private void insertChild( Node node, int index, Node child ) {
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        children[index] = child;
+        System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+        node.children = children;
+        nodes++;
+    }
+
+    private static void removeChild( Node node, int index ) {
+        Node[] children = new Node[node.children.length - 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.children, index + 1, children, index, children.length - index);
+        node.children = children;
+    }
+
+    /**
+     * @return the length of the common prefix of the label and the key from the offset.
+     */
+    private static int commonPrefix( String label, String key, int offset ) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int common = 0;
+        while ( common < length && label.charAt(common) == key.charAt(offset + common) ) {
+            common++;
+        }
+        return common;
+    }
+
+    /**
+     * A value of the attribute, with the number of its books and the number of their copies.
+     */
+    static final class Completion {
+
+        private final String key;
+
+        private final String value;
+
+        private int books;
+
+        private long count;
+
+        private Completion( String key, String value ) {
+            this.key = key;
+            this.value = value;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        int getBooks() {
+            return books;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    private static final class Node {
+
+        private String label;
+
+        private Node[] children = new Node[0];
+
+        private Completion completion;
+
+        /**
+         * The best values of the subtree, the best one first.
+         */
+        private Completion[] top = NONE;
+
+        private Node( String label ) {
+            this.label = label;
+        }
+    }
+}
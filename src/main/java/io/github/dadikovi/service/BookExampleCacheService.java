@@ -0,0 +1,155 @@
+package io.github.dadikovi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.BookView;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.github.dadikovi.service.dto.BookDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Service caching the pages of the query-by-example query of books.
+ * <p>
+ * A change of a book evicts only the pages of the queries which the previous or the new state of the book
+ * matches, as the others can not contain it before or after the change. If the previous state is unknown,
+ * every page is evicted. The changes arrive from every instance, see {@link io.github.dadikovi.config.ShelfChangedReceiver}.
+ * <p>
+ * The cache is bounded by the estimated memory of the pages, not by their number, as a page may hold one book
+ * or a thousand. The cached pages are shared, they must not be modified. The cache is disabled by default.
+ */
+@Service
+public class BookExampleCacheService {
+
+    public static final String CACHE_NAME = "booksByExample";
+
+    /**
+     * The estimated bytes of a cached page besides its rows: the key, the slice, its list and the cache entry.
+     */
+    private static final int PAGE_BYTES = 320;
+
+    /**
+     * The estimated bytes of a row besides its texts: the object header, the references and the boxed numbers.
+     */
+    private static final int ROW_BYTES = 128;
+
+    private final Logger log = LoggerFactory.getLogger(BookExampleCacheService.class);
+
+    private final boolean enabled;
+
+    private final Cache<BookExampleQuery, Slice<?>> cache;
+
+    /**
+     * The number of changes seen, so a read which overlapped a change does not leave its page in the cache.
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    private final Counter evictedPages;
+
+    private final Counter fullInvalidations;
+
+    public BookExampleCacheService( ApplicationProperties applicationProperties, MeterRegistry meterRegistry ) {
+        ApplicationProperties.ExampleCache properties = applicationProperties.getExampleCache();
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxSize().toBytes())
+            .weigher((BookExampleQuery query, Slice<?> page) -> estimateBytes(page))
+            .expireAfterWrite(properties.getTimeToLive())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.evictedPages = Counter.builder("book.example.cache.selective.evictions")
+            .description("The number of pages evicted because a changed book matches their example")
+            .register(meterRegistry);
+        this.fullInvalidations = Counter.builder("book.example.cache.full.invalidations")
+            .description("The number of changes which evicted every page, as the previous state of the book was unknown")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Get the page of the query, from the cache if it is there.
+     *
+     * @param query the query.
+     * @param read reads the page of the query from the database.
+     * @param <T> the type of the rows, it must be the same for every read of the query.
+     * @return the page.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Slice<T> findAllAfter( BookExampleQuery query, Supplier<Slice<T>> read ) {
+        if ( !enabled ) {
+            return read.get();
+        }
+        Slice<T> page = (Slice<T>) cache.getIfPresent(query);
+        if ( page != null ) {
+            return page;
+        }
+        long changesBefore = changes.get();
+        page = read.get();
+        cache.put(query, page);
+        // A change during the read may have been evicted before the page was put, the eviction of a later change
+        // sees the page
+        if ( changes.get() != changesBefore ) {
+            cache.asMap().remove(query, page);
+        }
+        return page;
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onShelfChanged( ShelfChangedMessage message ) {
+        changes.incrementAndGet();
+        Book changed = message.getChangeType() == ChangeType.DELETE ? null : message.getChangedBook();
+        Book previous = message.getPreviousBook();
+        // Nothing existed before a creation, otherwise the previous state must be known
+        boolean previousKnown = previous != null || message.getChangeType() == ChangeType.CREATE;
+        if ( !previousKnown || (changed == null && previous == null) ) {
+            log.debug("The previous state of the book is unknown after {}, evicting every page", message.getChangeType());
+            cache.invalidateAll();
+            fullInvalidations.increment();
+            return;
+        }
+        // The iteration is weakly consistent, the pages put meanwhile are handled by findAllAfter
+        for ( BookExampleQuery query : cache.asMap().keySet() ) {
+            if ( (changed != null && query.matches(changed)) || (previous != null && query.matches(previous)) ) {
+                cache.invalidate(query);
+                evictedPages.increment();
+            }
+        }
+    }
+
+    private static int estimateBytes( Slice<?> page ) {
+        long bytes = PAGE_BYTES;
+        for ( Object row : page.getContent() ) {
+            bytes += ROW_BYTES;
+            if ( row instanceof Book ) {
+                Book book = (Book) row;
+                bytes += textBytes(book.getTitle()) + textBytes(book.getAuthor()) + textBytes(book.getPublisher());
+            } else if ( row instanceof BookDTO ) {
+                BookDTO book = (BookDTO) row;
+                bytes += textBytes(book.getTitle()) + textBytes(book.getAuthor()) + textBytes(book.getPublisher());
+            } else if ( row instanceof BookView ) {
+                BookView book = (BookView) row;
+                bytes += textBytes(book.getTitle()) + textBytes(book.getAuthor()) + textBytes(book.getPublisher());
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long textBytes( String text ) {
+        return text == null ? 0 : 40 + 2L * text.length();
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.domain.Book;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A keyset page of the query-by-example query of books, normalized so equal queries are equal keys.
+ * <p>
+ * The example is the values of its non-null attributes, every other attribute is ignored by the query.
+ */
+public final class BookExampleQuery implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final String title;
+
+    private final String author;
+
+    private final String publisher;
+
+    private final Long publishYear;
+
+    private final Instant createdAt;
+
+    private final Long count;
+
+    private final Long after;
+
+    private final int size;
+
+    private final Set<String> fields;
+
+    public BookExampleQuery( Book example, Long after, int size, Set<String> fields ) {
+        this.id = example.getId();
+        this.title = example.getTitle();
+        this.author = example.getAuthor();
+        this.publisher = example.getPublisher();
+        this.publishYear = example.getPublishYear();
+        this.createdAt = example.getCreatedAt();
+        this.count = example.getCount();
+        this.after = after;
+        this.size = size;
+        this.fields = fields == null ? null : Collections.unmodifiableSet(new HashSet<>(fields));
+    }
+
+    /**
+     * Tells whether the book matches the example, so a change of it may change the result of the query.
+     * <p>
+     * Texts are compared ignoring their case, as the database may do so; a false match only costs an eviction.
+     *
+     * @param book the book.
+     * @return {@code true} if the book may match the example.
+     */
+    public boolean matches( Book book ) {
+        return matches(id, book.getId())
+            && matchesIgnoringCase(title, book.getTitle())
+            && matchesIgnoringCase(author, book.getAuthor())
+            && matchesIgnoringCase(publisher, book.getPublisher())
+            && matches(publishYear, book.getPublishYear())
+            && matches(createdAt, book.getCreatedAt())
+            && matches(count, book.getCount());
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    private static boolean matches( Object example, Object value ) {
+        return example == null || example.equals(value);
+    }
+
+    private static boolean matchesIgnoringCase( String example, String value ) {
+        return example == null || example.equalsIgnoreCase(value);
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+        if ( this == o ) {
+            return true;
+        }
+        if ( !(o instanceof BookExampleQuery) ) {
+            return false;
+        }
+        BookExampleQuery that = (BookExampleQuery) o;
+        return size == that.size
+            && Objects.equals(id, that.id)
+            && Objects.equals(title, that.title)
+            && Objects.equals(author, that.author)
+            && Objects.equals(publisher, that.publisher)
+            && Objects.equals(publishYear, that.publishYear)
+            && Objects.equals(createdAt, that.createdAt)
+            && Objects.equals(count, that.count)
+            && Objects.equals(after, that.after)
+            && Objects.equals(fields, that.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, author, publisher, publishYear, createdAt, count, after, size, fields);
+    }
+
+    @Override
+    public String toString() {
+        return "BookExampleQuery{" +
+            "id=" + id +
+            ", title='" + title + "'" +
+            ", author='" + author + "'" +
+            ", publisher='" + publisher + "'" +
+            ", publishYear=" + publishYear +
+            ", createdAt='" + createdAt + "'" +
+            ", count=" + count +
+            ", after=" + after +
+            ", size=" + size +
+            ", fields=" + fields +
+            "}";
+    }
+}
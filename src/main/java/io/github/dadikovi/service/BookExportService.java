@@ -0,0 +1,165 @@
+package io.github.dadikovi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.BookView;
+import io.github.dadikovi.repository.BookJdbcRepository;
+import io.github.dadikovi.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service for exporting the whole catalogue.
+ * <p>
+ * The books are streamed from a forward-only cursor straight into the output stream, so the memory usage
+ * does not depend on the size of the catalogue.
+ */
+@Service
+@Transactional(readOnly = true)
+public class BookExportService {
+
+    /**
+     * The header of the CSV export, it is the same as the one of {@code config/liquibase/fake-data/book.csv}.
+     */
+    public static final String CSV_HEADER = "id;title;author;publisher;publish_year;created_at;count";
+
+    private static final char CSV_SEPARATOR = ';';
+
+    /**
+     * The value Liquibase's {@code loadData} change reads as {@code null}.
+     */
+    private static final String CSV_NULL = "NULL";
+
+    private static final DateTimeFormatter CSV_DATE_TIME_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final Logger log = LoggerFactory.getLogger(BookExportService.class);
+
+    private final BookRepository bookRepository;
+
+    private final BookJdbcRepository bookJdbcRepository;
+
+    private final ObjectWriter ndjsonWriter;
+
+    private final ApplicationProperties applicationProperties;
+
+    public BookExportService( BookRepository bookRepository, BookJdbcRepository bookJdbcRepository, ObjectMapper objectMapper,
+                              ApplicationProperties applicationProperties ) {
+        this.bookRepository = bookRepository;
+        this.bookJdbcRepository = bookJdbcRepository;
+        this.ndjsonWriter = objectMapper.writer()
+            .without(SerializationFeature.INDENT_OUTPUT)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Writes every book as newline delimited JSON, one book per line.
+     *
+     * @param out the stream to write to, it is not closed.
+     * @return the number of exported books.
+     * @throws IOException if the books could not be written.
+     */
+    public long exportNdjson( OutputStream out ) throws IOException {
+        log.debug("Request to export all Books as NDJSON");
+        try ( JsonGenerator generator = ndjsonWriter.getFactory().createGenerator(out) ) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Root values are separated by the line breaks written below instead of the default space.
+            generator.setRootValueSeparator(null);
+            return forEach(book -> {
+                ndjsonWriter.writeValue(generator, book);
+                generator.writeRaw('\n');
+            });
+        }
+    }
+
+    /**
+     * Writes every book as CSV, in the format of {@code config/liquibase/fake-data/book.csv}, so the export
+     * can be loaded back with Liquibase.
+     *
+     * @param out the stream to write to, it is not closed.
+     * @return the number of exported books.
+     * @throws IOException if the books could not be written.
+     */
+    public long exportCsv( OutputStream out ) throws IOException {
+        log.debug("Request to export all Books as CSV");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long exported = forEach(book -> writeCsvRow(writer, book));
+        writer.flush();
+        return exported;
+    }
+
+    /**
+     * Reads every book with plain JDBC if the export is selected for it, otherwise as detached entities.
+     */
+    private long forEach( BookJdbcRepository.BookViewHandler handler ) throws IOException {
+        int fetchSize = applicationProperties.getExport().getFetchSize();
+        if ( applicationProperties.getJdbcReads().isSelected(ApplicationProperties.JdbcReads.EXPORT) ) {
+            return bookJdbcRepository.forEach(fetchSize, handler);
+        }
+        long exported = 0;
+        try ( Stream<Book> books = bookRepository.streamAll(fetchSize) ) {
+            Iterator<Book> iterator = books.iterator();
+            while ( iterator.hasNext() ) {
+                handler.handle(BookView.of(iterator.next()));
+                exported++;
+            }
+        }
+        return exported;
+    }
+
+    private static void writeCsvRow( Writer writer, BookView book ) throws IOException {
+        writer.write(csvValue(book.getId()));
+        writer.write(CSV_SEPARATOR);
+        writer.write(csvValue(book.getTitle()));
+        writer.write(CSV_SEPARATOR);
+        writer.write(csvValue(book.getAuthor()));
+        writer.write(CSV_SEPARATOR);
+        writer.write(csvValue(book.getPublisher()));
+        writer.write(CSV_SEPARATOR);
+        writer.write(csvValue(book.getPublishYear()));
+        writer.write(CSV_SEPARATOR);
+        writer.write(csvValue(book.getCreatedAt()));
+        writer.write(CSV_SEPARATOR);
+        writer.write(csvValue(book.getCount()));
+        writer.write('\n');
+    }
+
+    private static String csvValue( Long value ) {
+        return value == null ? CSV_NULL : value.toString();
+    }
+
+    private static String csvValue( Instant value ) {
+        return value == null ? CSV_NULL : CSV_DATE_TIME_FORMATTER.format(value);
+    }
+
+    private static String csvValue( String value ) {
+        if ( value == null ) {
+            return CSV_NULL;
+        }
+        boolean quoted = value.indexOf(CSV_SEPARATOR) >= 0
+            || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0
+            || value.indexOf('\r') >= 0;
+        return quoted ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
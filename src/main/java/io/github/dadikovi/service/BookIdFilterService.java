@@ -0,0 +1,172 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.github.dadikovi.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Service answering the reads of the missing books without the database, with a Bloom filter of the existing ids.
+ * <p>
+ * The filter is loaded when the application is ready, and every committed creation, on any instance, is added
+ * to it. The deleted ids can not be removed from a Bloom filter, they pass it until the filter is rebuilt from the
+ * database, periodically. Only the ids up to the greatest one read from the database at the last rebuild are
+ * answered by the filter: the ids created since then are always read from the database, as their changes may be late
+ * or lost. The changes never raise this mark, they only add the ids created out of order below it.
+ * <p>
+ * The filter is disabled by default.
+ */
+@Service
+public class BookIdFilterService extends AbstractCatalogueView<BookIdFilterService.Filter> {
+
+    /**
+     * The filter is sized for twice the books at its rebuild, and for at least this many ids.
+     */
+    private static final long MINIMUM_EXPECTED_INSERTIONS = 1024;
+
+    private final BookRepository bookRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Counter shortCircuits;
+
+    private final Counter falsePositives;
+
+    public BookIdFilterService( BookRepository bookRepository, PlatformTransactionManager transactionManager,
+                                ApplicationProperties applicationProperties, MeterRegistry meterRegistry ) {
+        super("id filter", applicationProperties.getIdFilter().isEnabled(),
+            Timer.builder("book.id.filter.rebuild")
+                .description("The time of loading the ids into a new filter")
+                .register(meterRegistry),
+            bookRepository, transactionManager, applicationProperties);
+        this.bookRepository = bookRepository;
+        this.applicationProperties = applicationProperties;
+        this.shortCircuits = Counter.builder("book.id.filter.short.circuits")
+            .description("The number of missing books answered without the database")
+            .register(meterRegistry);
+        this.falsePositives = Counter.builder("book.id.filter.false.positives")
+            .description("The number of missing books which have passed the filter, deleted ones included")
+            .register(meterRegistry);
+        Gauge.builder("book.id.filter.false.positive.probability", this, service -> {
+            Filter current = service.published();
+            return current == null ? Double.NaN : current.ids.expectedFalsePositiveProbability();
+        })
+            .description("The expected probability of a never existing id passing the filter")
+            .register(meterRegistry);
+        Gauge.builder("book.id.filter.stale.deletions", this, service -> {
+            Filter current = service.published();
+            return current == null ? Double.NaN : current.deletions.get();
+        })
+            .description("The number of deleted ids still passing the filter, until it is rebuilt")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Get the book with the given id, unless the filter tells that it does not exist.
+     *
+     * @param id the id of the book.
+     * @param load loads the book if it may exist.
+     * @return the book, or empty if there is no book with the id.
+     */
+    public Optional<Book> findById( Long id, Supplier<Optional<Book>> load ) {
+        Filter current = published();
+        if ( current == null || id > current.maxLoadedId ) {
+            return load.get();
+        }
+        if ( !current.ids.mightContain(id) ) {
+            shortCircuits.increment();
+            return Optional.empty();
+        }
+        Optional<Book> book = load.get();
+        if ( !book.isPresent() ) {
+            falsePositives.increment();
+        }
+        return book;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${application.id-filter.rebuild-interval:PT1H}", initialDelayString = "${application.id-filter.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        super.scheduledRebuild();
+    }
+
+    /**
+     * Only the ids are read, into books which have nothing else.
+     */
+    @Override
+    protected Stream<Book> stream( int fetchSize ) {
+        return bookRepository.streamAllIds(fetchSize).map(id -> {
+            Book book = new Book();
+            book.setId(id);
+            return book;
+        });
+    }
+
+    @Override
+    protected Filter load( Stream<Book> books ) {
+        double falsePositiveProbability = applicationProperties.getIdFilter().getFalsePositiveProbability();
+        Filter loaded = new Filter(Math.max(2 * bookRepository.count(), MINIMUM_EXPECTED_INSERTIONS), falsePositiveProbability);
+        books.forEach(book -> loaded.load(book.getId()));
+        return loaded;
+    }
+
+    /**
+     * The filter is only ever added to, the deletions are counted until it is rebuilt.
+     */
+    @Override
+    protected Filter apply( Filter target, ShelfChangedMessage change ) {
+        Book book = change.getChangedBook();
+        if ( book == null || book.getId() == null ) {
+            return target;
+        }
+        if ( change.getChangeType() == ChangeType.DELETE ) {
+            target.deletions.incrementAndGet();
+        } else {
+            target.add(book.getId());
+        }
+        return target;
+    }
+
+    @Override
+    protected String describe( Filter rebuilt ) {
+        return "with " + rebuilt.ids.sizeInBytes() + " bytes";
+    }
+
+    static final class Filter {
+
+        private final IdBloomFilter ids;
+
+        /**
+         * The greatest id read from the database, written before the filter is published.
+         */
+        private long maxLoadedId = Long.MIN_VALUE;
+
+        private final AtomicLong deletions = new AtomicLong();
+
+        private Filter( long expectedInsertions, double falsePositiveProbability ) {
+            this.ids = new IdBloomFilter(expectedInsertions, falsePositiveProbability);
+        }
+
+        private void load( long id ) {
+            ids.add(id);
+            maxLoadedId = Math.max(maxLoadedId, id);
+        }
+
+        private void add( long id ) {
+            ids.add(id);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package io.github.dadikovi.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The serialized JSON of a book, optionally with its compressed form, which can be written to a response as it is.
+ * <p>
+ * The compressed form is a raw deflate fragment, flushed to a byte boundary but not finished, with the CRC-32 of
+ * the JSON. The fragments of several books can be concatenated, so a gzip response of a whole page is assembled
+ * from the fragments of its books, without compressing anything per request.
+ * <p>
+ * The JSON and its fragment are one contiguous region of bytes, copied from the off-heap bytes for a book served
+ * from the {@link BookJsonCacheService}. The responses are {@link Body bodies} of views of the regions, written
+ * without copying them again.
+ */
+public final class BookJson {
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    /**
+     * An empty final block with fixed codes, ending the deflate stream.
+     */
+    private static final byte[] DEFLATE_END = { 0x03, 0x00 };
+
+    private static final BookJson ARRAY_START = of(new byte[] { '[' }, true);
+
+    private static final BookJson ARRAY_SEPARATOR = of(new byte[] { ',' }, true);
+
+    private static final BookJson ARRAY_END = of(new byte[] { ']' }, true);
+
+    /**
+     * The JSON followed by its deflate fragment, if it has been deflated. Read-only, never moved.
+     */
+    private final ByteBuffer bytes;
+
+    private final int jsonLength;
+
+    private final long crc;
+
+    BookJson( ByteBuffer bytes, int jsonLength, long crc ) {
+        this.bytes = bytes.asReadOnlyBuffer();
+        this.jsonLength = jsonLength;
+        this.crc = crc;
+    }
+
+    /**
+     * @param json the serialized book.
+     * @param deflate whether the compressed form is needed too.
+     */
+    public static BookJson of( byte[] json, boolean deflate ) {
+        if ( !deflate ) {
+            return new BookJson(ByteBuffer.wrap(json), json.length, 0);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(json, 0, json.length);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length + json.length / 2 + 16);
+        bytes.write(json, 0, json.length);
+        deflate(json, bytes);
+        return new BookJson(ByteBuffer.wrap(bytes.toByteArray()), json.length, crc.getValue());
+    }
+
+    /**
+     * @return a view of the JSON of the book.
+     */
+    public ByteBuffer getJson() {
+        return region(0, jsonLength);
+    }
+
+    /**
+     * @return a view of the JSON and of its deflate fragment.
+     */
+    ByteBuffer getBytes() {
+        return bytes.duplicate();
+    }
+
+    int getJsonLength() {
+        return jsonLength;
+    }
+
+    long getCrc() {
+        return crc;
+    }
+
+    public boolean isDeflated() {
+        return bytes.limit() > jsonLength;
+    }
+
+    /**
+     * @param gzip whether the body is the gzip compressed JSON, the book has to be deflated then.
+     * @return the body of the JSON of the book.
+     */
+    public Body body( boolean gzip ) {
+        List<BookJson> parts = new ArrayList<>(1);
+        parts.add(this);
+        return gzip ? gzip(parts) : new Body(jsonRegions(parts));
+    }
+
+    /**
+     * @param gzip whether the body is the gzip compressed JSON array, the books have to be deflated then.
+     * @return the body of the JSON array of the books.
+     */
+    public static Body array( List<BookJson> books, boolean gzip ) {
+        List<BookJson> parts = arrayParts(books);
+        return gzip ? gzip(parts) : new Body(jsonRegions(parts));
+    }
+
+    @Override
+    public String toString() {
+        return StandardCharsets.UTF_8.decode(getJson()).toString();
+    }
+
+    private ByteBuffer region( int offset, int length ) {
+        ByteBuffer region = bytes.duplicate();
+        ((Buffer) region).limit(offset + length);
+        ((Buffer) region).position(offset);
+        return region.slice();
+    }
+
+    private static List<BookJson> arrayParts( List<BookJson> books ) {
+        List<BookJson> parts = new ArrayList<>(2 * books.size() + 1);
+        parts.add(ARRAY_START);
+        for ( int i = 0; i < books.size(); i++ ) {
+            if ( i > 0 ) {
+                parts.add(ARRAY_SEPARATOR);
+            }
+            parts.add(books.get(i));
+        }
+        parts.add(ARRAY_END);
+        return parts;
+    }
+
+    private static List<ByteBuffer> jsonRegions( List<BookJson> parts ) {
+        List<ByteBuffer> regions = new ArrayList<>(parts.size());
+        for ( BookJson part : parts ) {
+            regions.add(part.getJson());
+        }
+        return regions;
+    }
+
+    /**
+     * Assembles a gzip member from the fragments: the header, the fragments, the end of the deflate stream, and the
+     * trailer with the CRC-32, combined from the CRC-32 of the parts, and the length of the whole JSON.
+     */
+    private static Body gzip( List<BookJson> parts ) {
+        List<ByteBuffer> regions = new ArrayList<>(parts.size() + 2);
+        regions.add(ByteBuffer.wrap(GZIP_HEADER).asReadOnlyBuffer());
+        long crc = 0;
+        long length = 0;
+        for ( BookJson part : parts ) {
+            if ( !part.isDeflated() ) {
+                throw new IllegalStateException("The JSON has not been deflated");
+            }
+            regions.add(part.region(part.jsonLength, part.bytes.limit() - part.jsonLength));
+            crc = Crc32.combine(crc, part.crc, part.jsonLength);
+            length += part.jsonLength;
+        }
+        byte[] end = new byte[DEFLATE_END.length + 8];
+        System.arraycopy(DEFLATE_END, 0, end, 0, DEFLATE_END.length);
+        writeIntLittleEndian(end, DEFLATE_END.length, crc);
+        writeIntLittleEndian(end, DEFLATE_END.length + 4, length);
+        regions.add(ByteBuffer.wrap(end));
+        return new Body(regions);
+    }
+
+    /**
+     * Deflates the JSON into a fragment, appended to the bytes.
+     */
+    private static void deflate( byte[] json, ByteArrayOutputStream bytes ) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(json);
+            byte[] buffer = new byte[Math.max(64, json.length)];
+            int length;
+            do {
+                // The sync flush ends the fragment on a byte boundary, without ending the stream
+                length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                bytes.write(buffer, 0, length);
+            } while ( length == buffer.length );
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeIntLittleEndian( byte[] bytes, int offset, long value ) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+
+    /**
+     * The body of a response, the views of the regions of the books, written in their order.
+     */
+    public static final class Body {
+
+        private final List<ByteBuffer> regions;
+
+        private final long length;
+
+        private Body( List<ByteBuffer> regions ) {
+            this.regions = regions;
+            long total = 0;
+            for ( ByteBuffer region : regions ) {
+                total += region.remaining();
+            }
+            this.length = total;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Writes the regions to the channel.
+         */
+        public void writeTo( WritableByteChannel channel ) throws IOException {
+            for ( ByteBuffer region : regions ) {
+                ByteBuffer remaining = region.duplicate();
+                while ( remaining.hasRemaining() ) {
+                    channel.write(remaining);
+                }
+            }
+        }
+    }
+
+    /**
+     * The combination of the CRC-32 of two byte sequences, ported from zlib's {@code crc32_combine}.
+     */
+    private static final class Crc32 {
+
+        private static final int BITS = 32;
+
+        private static final long POLYNOMIAL = 0xedb88320L;
+
+        /**
+         * @return the CRC-32 of the concatenation, from the CRC-32 of the first and of the second sequence,
+         * and from the length of the second one.
+         */
+        static long combine( long crc1, long crc2, long length2 ) {
+            if ( length2 <= 0 ) {
+                return crc1;
+            }
+            long[] even = new long[BITS];
+            long[] odd = new long[BITS];
+            // The operator of one zero bit
+            odd[0] = POLYNOMIAL;
+            long row = 1;
+            for ( int n = 1; n < BITS; n++ ) {
+                odd[n] = row;
+                row <<= 1;
+            }
+            // The operators of two and of four zero bits
+            square(even, odd);
+            square(odd, even);
+            // Applies length2 zero bytes to crc1, squaring the operator for every bit of the length
+            long crc = crc1;
+            long length = length2;
+            do {
+                square(even, odd);
+                if ( (length & 1) != 0 ) {
+                    crc = times(even, crc);
+                }
+                length >>= 1;
+                if ( length == 0 ) {
+                    break;
+                }
+                square(odd, even);
+                if ( (length & 1) != 0 ) {
+                    crc = times(odd, crc);
+                }
+                length >>= 1;
+            } while ( length != 0 );
+            return crc ^ crc2;
+        }
+
+        private static long times( long[] matrix, long vector ) {
+            long sum = 0;
+            long rest = vector;
+            for ( int i = 0; rest != 0; i++, rest >>>= 1 ) {
+                if ( (rest & 1) != 0 ) {
+                    sum ^= matrix[i];
+                }
+            }
+            return sum;
+        }
+
+        private static void square( long[] square, long[] matrix ) {
+            for ( int n = 0; n < BITS; n++ ) {
+                square[n] = times(matrix, matrix[n]);
+            }
+        }
+    }
+}
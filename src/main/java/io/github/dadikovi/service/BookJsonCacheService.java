@@ -0,0 +1,215 @@
+package io.github.dadikovi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service caching the serialized JSON of the books, and optionally its compressed form, outside of the heap,
+ * so the responses of the books are written straight from the cached bytes, without serializing or compressing them.
+ * <p>
+ * An entry is keyed by the id of the book, and holds the catalogue version taken before the book was read. It is
+ * served only while that version is not older than the version of the book, see {@link CatalogueVersionService},
+ * so a change invalidates it even if the read of the book has raced with the change. The entries of the changed
+ * books are also removed, to free their memory sooner.
+ * <p>
+ * The bytes are appended to an {@link OffHeapByteLog} of the configured size: when it is full, the oldest segment
+ * of it is dropped with its entries. A cached book is read by copying its bytes, so nothing of a response holds on
+ * to the log. The cache is disabled by default.
+ */
+@Service
+public class BookJsonCacheService {
+
+    private final Logger log = LoggerFactory.getLogger(BookJsonCacheService.class);
+
+    private final ObjectMapper objectMapper;
+
+    private final CatalogueVersionService catalogueVersionService;
+
+    private final boolean enabled;
+
+    private final boolean gzip;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private final OffHeapByteLog bytes;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    /**
+     * The entries read before this catalogue version are invalid, as a change of an unknown book has happened.
+     */
+    private volatile long minimumVersion;
+
+    public BookJsonCacheService( ObjectMapper objectMapper, CatalogueVersionService catalogueVersionService,
+                                 ApplicationProperties applicationProperties, MeterRegistry meterRegistry ) {
+        ApplicationProperties.JsonCache properties = applicationProperties.getJsonCache();
+        this.objectMapper = objectMapper;
+        this.catalogueVersionService = catalogueVersionService;
+        this.enabled = properties.isEnabled();
+        this.gzip = properties.isGzip();
+        this.bytes = new OffHeapByteLog(properties.getMaxSize().toBytes(), properties.getSegments(), this::onRecycle);
+        this.hits = Counter.builder("book.json.cache.gets")
+            .tag("result", "hit")
+            .description("The number of books written from their cached JSON")
+            .register(meterRegistry);
+        this.misses = Counter.builder("book.json.cache.gets")
+            .tag("result", "miss")
+            .description("The number of books serialized, as their JSON was not cached")
+            .register(meterRegistry);
+        Gauge.builder("book.json.cache.size", entries, Map::size)
+            .description("The number of books with cached JSON")
+            .register(meterRegistry);
+        Gauge.builder("book.json.cache.memory", bytes, OffHeapByteLog::getAllocatedBytes)
+            .description("The off-heap memory allocated for the cached JSON")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return whether the compressed form of the books is cached too.
+     */
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * Get the cached JSON of the book with the given id.
+     *
+     * @param id the id of the book.
+     * @return the JSON of the book, or empty if it is not cached.
+     */
+    public Optional<BookJson> findCached( Long id ) {
+        return Optional.ofNullable(get(id));
+    }
+
+    /**
+     * Get the JSON of the book, serializing it if it is not cached.
+     *
+     * @param book the book, read after the catalogue version was taken.
+     * @param version the catalogue version, taken before the book was read.
+     * @return the JSON of the book.
+     */
+    public BookJson toJson( Book book, long version ) {
+        BookJson cached = get(book.getId());
+        return cached != null ? cached : serialize(book, version);
+    }
+
+    /**
+     * Get the JSON of the books, serializing only the ones which are not cached.
+     *
+     * @param books the books, read after the catalogue version was taken.
+     * @param version the catalogue version, taken before the books were read.
+     * @return the JSON of the books, in their order.
+     */
+    public List<BookJson> toJson( List<Book> books, long version ) {
+        List<BookJson> json = new ArrayList<>(books.size());
+        for ( Book book : books ) {
+            json.add(toJson(book, version));
+        }
+        return json;
+    }
+
+    /**
+     * The entries are removed before the catalogue version is increased, so they are not served with the new entity tags.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onShelfChanged( ShelfChangedMessage message ) {
+        if ( !enabled ) {
+            return;
+        }
+        Book book = message.getChangedBook();
+        if ( book == null || book.getId() == null ) {
+            minimumVersion = catalogueVersionService.getCatalogueVersion() + 1;
+            entries.clear();
+            return;
+        }
+        entries.remove(book.getId());
+    }
+
+    private BookJson get( Long id ) {
+        Entry entry = id == null ? null : entries.get(id);
+        if ( entry == null || !isValid(id, entry.version) ) {
+            misses.increment();
+            return null;
+        }
+        ByteBuffer cached = bytes.read(entry.location);
+        if ( cached == null ) {
+            entries.remove(id, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new BookJson(cached, entry.jsonLength, entry.crc);
+    }
+
+    private BookJson serialize( Book book, long version ) {
+        BookJson json;
+        try {
+            json = BookJson.of(objectMapper.writeValueAsBytes(book), gzip);
+        } catch ( JsonProcessingException e ) {
+            throw new UncheckedIOException(e);
+        }
+        if ( enabled && book.getId() != null && isValid(book.getId(), version) ) {
+            OffHeapByteLog.Location location = bytes.append(json.getBytes());
+            if ( location != null ) {
+                entries.put(book.getId(), new Entry(version, location, json.getJsonLength(), json.getCrc()));
+            } else {
+                log.debug("JSON of Book {} is not cached: it is too long", book.getId());
+            }
+        }
+        return json;
+    }
+
+    private boolean isValid( Long id, long version ) {
+        return version >= minimumVersion && version >= catalogueVersionService.getBookVersion(id);
+    }
+
+    private void onRecycle( int segment ) {
+        entries.values().removeIf(entry -> entry.location.getSegment() == segment);
+    }
+
+    private static final class Entry {
+
+        private final long version;
+
+        private final OffHeapByteLog.Location location;
+
+        private final int jsonLength;
+
+        private final long crc;
+
+        private Entry( long version, OffHeapByteLog.Location location, int jsonLength, long crc ) {
+            this.version = version;
+            this.location = location;
+            this.jsonLength = jsonLength;
+            this.crc = crc;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.domain.Book;
+
+import java.util.List;
+
+/**
+ * The {@link BookColumns} of a list of books, so the {@link BookColumnPredicate}s can be evaluated on loaded books.
+ */
+final class BookListColumns implements BookColumns {
+
+    private final List<Book> books;
+
+    BookListColumns( List<Book> books ) {
+        this.books = books;
+    }
+
+    @Override
+    public long getId( int row ) {
+        return books.get(row).getId();
+    }
+
+    @Override
+    public String getTitle( int row ) {
+        return books.get(row).getTitle();
+    }
+
+    @Override
+    public String getAuthor( int row ) {
+        return books.get(row).getAuthor();
+    }
+
+    @Override
+    public String getPublisher( int row ) {
+        return books.get(row).getPublisher();
+    }
+
+    @Override
+    public boolean hasPublishYear( int row ) {
+        return books.get(row).getPublishYear() != null;
+    }
+
+    @Override
+    public long getPublishYear( int row ) {
+        return books.get(row).getPublishYear();
+    }
+
+    @Override
+    public boolean hasCreatedAt( int row ) {
+        return books.get(row).getCreatedAt() != null;
+    }
+
+    @Override
+    public long getCreatedAtSecond( int row ) {
+        return books.get(row).getCreatedAt().getEpochSecond();
+    }
+
+    @Override
+    public int getCreatedAtNano( int row ) {
+        return books.get(row).getCreatedAt().getNano();
+    }
+
+    @Override
+    public boolean hasCount( int row ) {
+        return books.get(row).getCount() != null;
+    }
+
+    @Override
+    public long getCount( int row ) {
+        return books.get(row).getCount();
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Service for looking up many books by their ids at once.
+ */
+@Service
+@Transactional(readOnly = true)
+public class BookLookupService {
+
+    private final Logger log = LoggerFactory.getLogger(BookLookupService.class);
+
+    private final BookRepository bookRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    public BookLookupService( BookRepository bookRepository, ApplicationProperties applicationProperties ) {
+        this.bookRepository = bookRepository;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Get the books with the given ids, with one {@code IN} query per chunk of ids.
+     *
+     * @param ids the ids of the books, duplicates and {@code null}s are ignored.
+     * @return the found books by their ids, the ids of the missing books are not in it.
+     */
+    public Map<Long, Book> findAllById( Collection<Long> ids ) {
+        List<Long> distinctIds = ids.stream()
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+        int chunkSize = applicationProperties.getLookup().getChunkSize();
+        log.debug("Request to get {} Books in chunks of {}", distinctIds.size(), chunkSize);
+        Map<Long, Book> books = new HashMap<>(distinctIds.size() * 2);
+        for ( int from = 0; from < distinctIds.size(); from += chunkSize ) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            for ( Book book : bookRepository.findAllById(chunk) ) {
+                books.put(book.getId(), book);
+            }
+        }
+        return books;
+    }
+}
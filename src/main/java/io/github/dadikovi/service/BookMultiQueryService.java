@@ -0,0 +1,151 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.service.dto.BookQueryDTO;
+import io.github.dadikovi.service.dto.BookQueryResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Service for executing several book queries in parallel.
+ * <p>
+ * Every query runs on the bounded {@code bookQueryExecutor}, in its own read-only transaction, so on its own
+ * database connection. Every query has its own deadline, from when it starts running, so the time it waits in
+ * the queue of the executor does not count: the queries not finished by their deadlines are cancelled, the transaction
+ * timeout stops them in the database too. The whole request has an overall deadline as well, from when it is
+ * received: the queries not started or not finished by then are cancelled, and time out. The result of every query
+ * has its own status, one failing query does not fail the others.
+ */
+@Service
+public class BookMultiQueryService {
+
+    private final Logger log = LoggerFactory.getLogger(BookMultiQueryService.class);
+
+    private final BookRepository bookRepository;
+
+    private final BookQueryService bookQueryService;
+
+    private final AsyncTaskExecutor bookQueryExecutor;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ApplicationProperties applicationProperties;
+
+    public BookMultiQueryService( BookRepository bookRepository, BookQueryService bookQueryService,
+                                  @Qualifier("bookQueryExecutor") AsyncTaskExecutor bookQueryExecutor,
+                                  PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties ) {
+        this.bookRepository = bookRepository;
+        this.bookQueryService = bookQueryService;
+        this.bookQueryExecutor = bookQueryExecutor;
+        this.applicationProperties = applicationProperties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // The transaction timeout is applied to the queries as well, it is rounded up to whole seconds
+        long timeoutMillis = applicationProperties.getMultiQuery().getTimeout().toMillis();
+        this.readOnlyTransaction.setTimeout((int) TimeUnit.MILLISECONDS.toSeconds(timeoutMillis + 999));
+    }
+
+    /**
+     * Executes the queries in parallel.
+     *
+     * @param queries the queries, their sizes have to be set.
+     * @return the results of the queries, in the order of the queries.
+     */
+    public List<BookQueryResultDTO> findAll( List<BookQueryDTO> queries ) {
+        log.debug("Request to execute {} Book queries", queries.size());
+        long overallDeadline = System.nanoTime() + applicationProperties.getMultiQuery().getOverallTimeout().toNanos();
+        List<TimedQuery> futures = new ArrayList<>(queries.size());
+        List<BookQueryResultDTO> results = new ArrayList<>(queries.size());
+        for ( BookQueryDTO query : queries ) {
+            TimedQuery future = null;
+            BookQueryResultDTO result = null;
+            try {
+                future = submit(query, bookQueryService.createSpecification(query.getCriteria()));
+            } catch ( IllegalArgumentException e ) {
+                result = BookQueryResultDTO.failed(query.getName(), BookQueryResultDTO.Status.BAD_REQUEST, e.getMessage());
+            } catch ( TaskRejectedException e ) {
+                result = BookQueryResultDTO.failed(query.getName(), BookQueryResultDTO.Status.REJECTED, "Too many queries are waiting");
+            }
+            futures.add(future);
+            results.add(result);
+        }
+
+        for ( int i = 0; i < queries.size(); i++ ) {
+            TimedQuery future = futures.get(i);
+            if ( future != null ) {
+                results.set(i, await(queries.get(i).getName(), future, overallDeadline));
+            }
+        }
+        return results;
+    }
+
+    private TimedQuery submit( BookQueryDTO query, Specification<Book> specification ) {
+        TimedQuery timed = new TimedQuery();
+        Callable<Slice<Book>> task = () -> {
+            timed.startedAt = System.nanoTime();
+            timed.started.countDown();
+            return readOnlyTransaction.execute(status ->
+                bookRepository.findAllAfter(specification, query.getAfter(), query.getSize())
+            );
+        };
+        timed.future = bookQueryExecutor.submit(task);
+        return timed;
+    }
+
+    private BookQueryResultDTO await( String name, TimedQuery timed, long overallDeadline ) {
+        Future<Slice<Book>> future = timed.future;
+        long timeout = applicationProperties.getMultiQuery().getTimeout().toNanos();
+        try {
+            // A queued query starts when an earlier one finishes or is cancelled at its own deadline
+            if ( !timed.started.await(Math.max(0, overallDeadline - System.nanoTime()), TimeUnit.NANOSECONDS) ) {
+                // Cancelling it before it starts removes it from the queue
+                throw new TimeoutException();
+            }
+            long deadline = Math.min(timed.startedAt + timeout, overallDeadline);
+            Slice<Book> page = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return BookQueryResultDTO.ok(name, page.getContent(), page.hasNext());
+        } catch ( TimeoutException | CancellationException e ) {
+            future.cancel(true);
+            return BookQueryResultDTO.failed(name, BookQueryResultDTO.Status.TIMEOUT, "The query has not finished in time");
+        } catch ( ExecutionException e ) {
+            log.warn("Book query {} has failed", name, e.getCause());
+            return BookQueryResultDTO.failed(name, BookQueryResultDTO.Status.FAILED, String.valueOf(e.getCause().getMessage()));
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return BookQueryResultDTO.failed(name, BookQueryResultDTO.Status.FAILED, "Interrupted");
+        }
+    }
+
+    /**
+     * A submitted query, with the time it has started running at.
+     */
+    private static final class TimedQuery {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private volatile long startedAt;
+
+        private Future<Slice<Book>> future;
+    }
+}
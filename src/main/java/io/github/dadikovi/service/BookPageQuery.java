@@ -0,0 +1,92 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookSqlCondition;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Set;
+
+/**
+ * A keyset page of books to read, with the counterpart of its filter for every read path, see {@link BookReadService}.
+ */
+public final class BookPageQuery {
+
+    private final Specification<Book> specification;
+
+    private final BookColumnPredicate predicate;
+
+    private final BookBitmapQuery bitmapQuery;
+
+    private final BookSqlCondition sqlCondition;
+
+    private final Book example;
+
+    private final Long after;
+
+    private final int size;
+
+    private final Set<String> fields;
+
+    /**
+     * @param predicate the in-memory counterpart of the specification.
+     * @param bitmapQuery the bitmap index query of the specification, {@code null} if the indexes can not answer it.
+     * @param sqlCondition the JDBC counterpart of the specification, {@code null} if the endpoint reads through Hibernate.
+     * @param example the example of the specification, if it is a query-by-example query: the page is cached
+     *                and the identical concurrent reads of it are coalesced.
+     * @param fields the fields of the books to read, {@code null} for every field.
+     */
+    BookPageQuery( Specification<Book> specification, BookColumnPredicate predicate, BookBitmapQuery bitmapQuery,
+                   BookSqlCondition sqlCondition, Book example, Long after, int size, Set<String> fields ) {
+        this.specification = specification;
+        this.predicate = predicate;
+        this.bitmapQuery = bitmapQuery;
+        this.sqlCondition = sqlCondition;
+        this.example = example;
+        this.after = after;
+        this.size = size;
+        this.fields = fields;
+    }
+
+    /**
+     * @return whether the page is read with plain JDBC into {@link io.github.dadikovi.domain.BookView}s: if the endpoint
+     * is selected for it, every field is requested, and the bitmap indexes can not answer it.
+     */
+    public boolean isJdbc() {
+        return fields == null && sqlCondition != null && bitmapQuery == null;
+    }
+
+    Specification<Book> getSpecification() {
+        return specification;
+    }
+
+    BookColumnPredicate getPredicate() {
+        return predicate;
+    }
+
+    BookBitmapQuery getBitmapQuery() {
+        return bitmapQuery;
+    }
+
+    BookSqlCondition getSqlCondition() {
+        return sqlCondition;
+    }
+
+    /**
+     * @return the query of the example cache, {@code null} if it is not a query-by-example query.
+     */
+    BookExampleQuery getExampleQuery() {
+        return example == null ? null : new BookExampleQuery(example, after, size, fields);
+    }
+
+    Long getAfter() {
+        return after;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+}
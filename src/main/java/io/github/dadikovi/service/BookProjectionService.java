@@ -0,0 +1,98 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.Book_;
+import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.service.dto.BookDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.Tuple;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Service for reading only some fields of the books (sparse fieldsets).
+ * <p>
+ * Only the requested columns are selected, and the rows are mapped straight to {@link BookDTO}s,
+ * without instantiating managed {@link Book} entities.
+ */
+@Service
+@Transactional(readOnly = true)
+public class BookProjectionService {
+
+    /**
+     * The names of the fields which can be requested.
+     */
+    public static final Set<String> FIELDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+        Book_.ID, Book_.TITLE, Book_.AUTHOR, Book_.PUBLISHER, Book_.PUBLISH_YEAR, Book_.CREATED_AT, Book_.COUNT
+    )));
+
+    private final Logger log = LoggerFactory.getLogger(BookProjectionService.class);
+
+    private final BookRepository bookRepository;
+
+    public BookProjectionService( BookRepository bookRepository ) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Get a keyset paginated page of the books, holding only the given fields.
+     *
+     * @param specification the optional filter, {@code null} means every book.
+     * @param after the id of the last book of the previous page, {@code null} for the first page.
+     * @param size the maximum number of books to return.
+     * @param fields the fields to read, each one of {@link #FIELDS}. The id is always read, as the pages are keyed by it.
+     * @return the page of books.
+     */
+    public Slice<BookDTO> findAllAfter( Specification<Book> specification, Long after, int size, Set<String> fields ) {
+        log.debug("Request to get a page of Books after {} with the fields {}", after, fields);
+        if ( !FIELDS.containsAll(fields) ) {
+            throw new IllegalArgumentException("Unknown fields: " + fields);
+        }
+        Set<String> attributes = new LinkedHashSet<>();
+        attributes.add(Book_.ID);
+        attributes.addAll(fields);
+        return bookRepository.findAllAfter(specification, after, size, attributes)
+            .map(row -> toDto(row, attributes));
+    }
+
+    private static BookDTO toDto( Tuple row, Set<String> attributes ) {
+        BookDTO book = new BookDTO();
+        for ( String attribute : attributes ) {
+            switch ( attribute ) {
+                case Book_.ID:
+                    book.setId(row.get(attribute, Long.class));
+                    break;
+                case Book_.TITLE:
+                    book.setTitle(row.get(attribute, String.class));
+                    break;
+                case Book_.AUTHOR:
+                    book.setAuthor(row.get(attribute, String.class));
+                    break;
+                case Book_.PUBLISHER:
+                    book.setPublisher(row.get(attribute, String.class));
+                    break;
+                case Book_.PUBLISH_YEAR:
+                    book.setPublishYear(row.get(attribute, Long.class));
+                    break;
+                case Book_.CREATED_AT:
+                    book.setCreatedAt(row.get(attribute, Instant.class));
+                    break;
+                case Book_.COUNT:
+                    book.setCount(row.get(attribute, Long.class));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown field: " + attribute);
+            }
+        }
+        return book;
+    }
+}
@@ -0,0 +1,424 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.Book_;
+import io.github.dadikovi.repository.BookJdbcRepository;
+import io.github.dadikovi.repository.BookSqlCondition;
+import io.github.dadikovi.service.dto.BookCriteria;
+import io.github.dadikovi.service.dto.PrefixStringFilter;
+import io.github.jhipster.service.QueryService;
+import io.github.jhipster.service.filter.Filter;
+import io.github.jhipster.service.filter.RangeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.metamodel.SingularAttribute;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Service for building complex queries for {@link Book} entities in the database, to be executed with
+ * the keyset paginated queries of {@link io.github.dadikovi.repository.BookRepository}.
+ * The main input is a {@link BookCriteria} which gets converted to {@link Specification},
+ * in a way that all the filters must apply.
+ * <p>
+ * Only the operators which can be answered with an index are supported: {@code notEquals}, {@code notIn},
+ * {@code contains} and {@code doesNotContain} are rejected, {@code startsWith} can be used instead of {@code contains}.
+ * String comparisons follow the collation of the columns, which is case-insensitive with the default MySQL collations.
+ */
+@Service
+public class BookQueryService extends QueryService<Book> {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final Logger log = LoggerFactory.getLogger(BookQueryService.class);
+
+    /**
+     * Function to convert {@link BookCriteria} to a {@link Specification}
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching {@link Specification} of the entity.
+     * @throws IllegalArgumentException if the criteria has an operator which can not use an index.
+     */
+    public Specification<Book> createSpecification(BookCriteria criteria) {
+        log.debug("create specification : {}", criteria);
+        Specification<Book> specification = Specification.where(null);
+        if (criteria != null) {
+            if (criteria.getId() != null) {
+                specification = specification.and(buildRangeSpecification(indexed(Book_.ID, criteria.getId()), Book_.id));
+            }
+            if (criteria.getTitle() != null) {
+                specification = specification.and(buildPrefixStringSpecification(criteria.getTitle(), Book_.title));
+            }
+            if (criteria.getAuthor() != null) {
+                specification = specification.and(buildPrefixStringSpecification(criteria.getAuthor(), Book_.author));
+            }
+            if (criteria.getPublisher() != null) {
+                specification = specification.and(buildPrefixStringSpecification(criteria.getPublisher(), Book_.publisher));
+            }
+            if (criteria.getPublishYear() != null) {
+                specification = specification.and(buildRangeSpecification(indexed(Book_.PUBLISH_YEAR, criteria.getPublishYear()), Book_.publishYear));
+            }
+            if (criteria.getCreatedAt() != null) {
+                specification = specification.and(buildRangeSpecification(indexed(Book_.CREATED_AT, criteria.getCreatedAt()), Book_.createdAt));
+            }
+            if (criteria.getCount() != null) {
+                specification = specification.and(buildRangeSpecification(indexed(Book_.COUNT, criteria.getCount()), Book_.count));
+            }
+        }
+        return specification;
+    }
+
+    /**
+     * Function to convert {@link BookCriteria} to a {@link BookColumnPredicate} with the same filters as
+     * {@link #createSpecification(BookCriteria)}, evaluated over the columns of the books in memory.
+     * Strings are compared exactly, whatever the collation of the columns is.
+     *
+     * @param criteria The object which holds all the filters, which the books should match.
+     * @return the matching {@link BookColumnPredicate} of the books.
+     * @throws IllegalArgumentException if the criteria has an operator which can not use an index.
+     */
+    public BookColumnPredicate createPredicate(BookCriteria criteria) {
+        log.debug("create predicate : {}", criteria);
+        BookColumnPredicate predicate = BookColumnPredicate.all();
+        if (criteria != null) {
+            if (criteria.getId() != null) {
+                predicate = predicate.and(buildRangePredicate(indexed(Book_.ID, criteria.getId()), BookColumnPredicate.all(), BookQueryService::compareId));
+            }
+            if (criteria.getTitle() != null) {
+                predicate = predicate.and(buildPrefixStringPredicate(Book_.TITLE, criteria.getTitle(), BookColumns::getTitle));
+            }
+            if (criteria.getAuthor() != null) {
+                predicate = predicate.and(buildPrefixStringPredicate(Book_.AUTHOR, criteria.getAuthor(), BookColumns::getAuthor));
+            }
+            if (criteria.getPublisher() != null) {
+                predicate = predicate.and(buildPrefixStringPredicate(Book_.PUBLISHER, criteria.getPublisher(), BookColumns::getPublisher));
+            }
+            if (criteria.getPublishYear() != null) {
+                predicate = predicate.and(buildRangePredicate(indexed(Book_.PUBLISH_YEAR, criteria.getPublishYear()),
+                    BookColumns::hasPublishYear, BookQueryService::comparePublishYear));
+            }
+            if (criteria.getCreatedAt() != null) {
+                predicate = predicate.and(buildRangePredicate(indexed(Book_.CREATED_AT, criteria.getCreatedAt()),
+                    BookColumns::hasCreatedAt, BookQueryService::compareCreatedAt));
+            }
+            if (criteria.getCount() != null) {
+                predicate = predicate.and(buildRangePredicate(indexed(Book_.COUNT, criteria.getCount()), BookColumns::hasCount, BookQueryService::compareCount));
+            }
+        }
+        return predicate;
+    }
+
+    /**
+     * Function to convert an example to a {@link BookColumnPredicate}, with the semantics of
+     * {@link org.springframework.data.domain.Example#of(Object)}: every non-null attribute must be equal.
+     *
+     * @param example the example book.
+     * @return the matching {@link BookColumnPredicate} of the books.
+     */
+    public BookColumnPredicate createPredicate(Book example) {
+        BookColumnPredicate predicate = BookColumnPredicate.all();
+        if (example.getId() != null) {
+            predicate = predicate.and(buildEqualsPredicate(example.getId(), BookColumnPredicate.all(), BookQueryService::compareId));
+        }
+        if (example.getTitle() != null) {
+            predicate = predicate.and(buildEqualsPredicate(example.getTitle(), BookColumns::getTitle));
+        }
+        if (example.getAuthor() != null) {
+            predicate = predicate.and(buildEqualsPredicate(example.getAuthor(), BookColumns::getAuthor));
+        }
+        if (example.getPublisher() != null) {
+            predicate = predicate.and(buildEqualsPredicate(example.getPublisher(), BookColumns::getPublisher));
+        }
+        if (example.getPublishYear() != null) {
+            predicate = predicate.and(buildEqualsPredicate(example.getPublishYear(), BookColumns::hasPublishYear, BookQueryService::comparePublishYear));
+        }
+        if (example.getCreatedAt() != null) {
+            predicate = predicate.and(buildEqualsPredicate(example.getCreatedAt(), BookColumns::hasCreatedAt, BookQueryService::compareCreatedAt));
+        }
+        if (example.getCount() != null) {
+            predicate = predicate.and(buildEqualsPredicate(example.getCount(), BookColumns::hasCount, BookQueryService::compareCount));
+        }
+        return predicate;
+    }
+
+    /**
+     * Function to convert {@link BookCriteria} to a {@link BookSqlCondition} with the same filters as
+     * {@link #createSpecification(BookCriteria)}, to be executed with the {@link BookJdbcRepository}.
+     *
+     * @param criteria The object which holds all the filters, which the books should match.
+     * @return the matching {@link BookSqlCondition} of the books.
+     * @throws IllegalArgumentException if the criteria has an operator which can not use an index.
+     */
+    public BookSqlCondition createSqlCondition(BookCriteria criteria) {
+        log.debug("create SQL condition : {}", criteria);
+        BookSqlCondition condition = BookSqlCondition.all();
+        if (criteria != null) {
+            if (criteria.getId() != null) {
+                condition = buildRangeCondition(condition, indexed(Book_.ID, criteria.getId()), "id");
+            }
+            if (criteria.getTitle() != null) {
+                condition = buildPrefixStringCondition(condition, Book_.TITLE, criteria.getTitle(), "title");
+            }
+            if (criteria.getAuthor() != null) {
+                condition = buildPrefixStringCondition(condition, Book_.AUTHOR, criteria.getAuthor(), "author");
+            }
+            if (criteria.getPublisher() != null) {
+                condition = buildPrefixStringCondition(condition, Book_.PUBLISHER, criteria.getPublisher(), "publisher");
+            }
+            if (criteria.getPublishYear() != null) {
+                condition = buildRangeCondition(condition, indexed(Book_.PUBLISH_YEAR, criteria.getPublishYear()), "publish_year");
+            }
+            if (criteria.getCreatedAt() != null) {
+                condition = buildRangeCondition(condition, indexed(Book_.CREATED_AT, criteria.getCreatedAt()), "created_at");
+            }
+            if (criteria.getCount() != null) {
+                condition = buildRangeCondition(condition, indexed(Book_.COUNT, criteria.getCount()), "count");
+            }
+        }
+        return condition;
+    }
+
+    /**
+     * Function to convert an example to a {@link BookSqlCondition}, with the semantics of
+     * {@link org.springframework.data.domain.Example#of(Object)}: every non-null attribute must be equal.
+     *
+     * @param example the example book.
+     * @return the matching {@link BookSqlCondition} of the books.
+     */
+    public BookSqlCondition createSqlCondition(Book example) {
+        BookSqlCondition condition = BookSqlCondition.all();
+        if (example.getId() != null) {
+            condition = condition.and("id = ?", example.getId());
+        }
+        if (example.getTitle() != null) {
+            condition = condition.and("title = ?", example.getTitle());
+        }
+        if (example.getAuthor() != null) {
+            condition = condition.and("author = ?", example.getAuthor());
+        }
+        if (example.getPublisher() != null) {
+            condition = condition.and("publisher = ?", example.getPublisher());
+        }
+        if (example.getPublishYear() != null) {
+            condition = condition.and("publish_year = ?", example.getPublishYear());
+        }
+        if (example.getCreatedAt() != null) {
+            condition = condition.and("created_at = ?", example.getCreatedAt());
+        }
+        if (example.getCount() != null) {
+            condition = condition.and("count = ?", example.getCount());
+        }
+        return condition;
+    }
+
+    private Specification<Book> buildPrefixStringSpecification(PrefixStringFilter filter, SingularAttribute<? super Book, String> field) {
+        indexed(field.getName(), filter);
+        if (filter.getContains() != null || filter.getDoesNotContain() != null) {
+            throw new IllegalArgumentException("The " + field.getName() + " filter can not use an index, use startsWith instead of contains");
+        }
+        Specification<Book> specification = Specification.where(buildStringSpecification(filter, field));
+        if (filter.getStartsWith() != null) {
+            String pattern = escapeLike(filter.getStartsWith()) + '%';
+            specification = specification.and((root, query, cb) -> cb.like(root.get(field), pattern, LIKE_ESCAPE));
+        }
+        return specification;
+    }
+
+    /**
+     * The in-memory counterpart of {@link #buildPrefixStringSpecification(PrefixStringFilter, SingularAttribute)}.
+     */
+    private static BookColumnPredicate buildPrefixStringPredicate(String field, PrefixStringFilter filter, StringColumn column) {
+        indexed(field, filter);
+        if (filter.getContains() != null || filter.getDoesNotContain() != null) {
+            throw new IllegalArgumentException("The " + field + " filter can not use an index, use startsWith instead of contains");
+        }
+        BookColumnPredicate predicate = buildStringPredicate(filter, column);
+        if (filter.getStartsWith() != null) {
+            String prefix = filter.getStartsWith();
+            predicate = predicate.and((columns, row) -> {
+                String value = column.get(columns, row);
+                return value != null && value.startsWith(prefix);
+            });
+        }
+        return predicate;
+    }
+
+    /**
+     * The {@code equals}, {@code in} and {@code specified} operators of a string column.
+     */
+    private static BookColumnPredicate buildStringPredicate(Filter<String> filter, StringColumn column) {
+        if (filter.getEquals() != null) {
+            return buildEqualsPredicate(filter.getEquals(), column);
+        }
+        if (filter.getIn() != null) {
+            Set<String> values = new HashSet<>(filter.getIn());
+            return (columns, row) -> values.contains(column.get(columns, row));
+        }
+        if (filter.getSpecified() != null) {
+            boolean specified = filter.getSpecified();
+            return (columns, row) -> (column.get(columns, row) != null) == specified;
+        }
+        return BookColumnPredicate.all();
+    }
+
+    private static BookColumnPredicate buildEqualsPredicate(String value, StringColumn column) {
+        return (columns, row) -> value.equals(column.get(columns, row));
+    }
+
+    /**
+     * The in-memory counterpart of {@link #buildRangeSpecification}: {@code equals} and {@code in} exclude
+     * every other operator, like in the specification.
+     *
+     * @param isSet whether the column of the row is set, the comparator is only called if it is.
+     */
+    private static <X extends Comparable<? super X>> BookColumnPredicate buildRangePredicate(RangeFilter<X> filter, BookColumnPredicate isSet,
+                                                                                             ColumnComparator<X> comparator) {
+        if (filter.getEquals() != null) {
+            return buildEqualsPredicate(filter.getEquals(), isSet, comparator);
+        }
+        if (filter.getIn() != null) {
+            List<X> values = new ArrayList<>(filter.getIn());
+            values.removeIf(Objects::isNull);
+            return (columns, row) -> isSet.test(columns, row) && containsEqual(columns, row, values, comparator);
+        }
+        BookColumnPredicate predicate = BookColumnPredicate.all();
+        if (filter.getSpecified() != null) {
+            boolean specified = filter.getSpecified();
+            predicate = (columns, row) -> isSet.test(columns, row) == specified;
+        }
+        if (filter.getGreaterThan() != null) {
+            X bound = filter.getGreaterThan();
+            predicate = predicate.and((columns, row) -> isSet.test(columns, row) && comparator.compare(columns, row, bound) > 0);
+        }
+        if (filter.getGreaterThanOrEqual() != null) {
+            X bound = filter.getGreaterThanOrEqual();
+            predicate = predicate.and((columns, row) -> isSet.test(columns, row) && comparator.compare(columns, row, bound) >= 0);
+        }
+        if (filter.getLessThan() != null) {
+            X bound = filter.getLessThan();
+            predicate = predicate.and((columns, row) -> isSet.test(columns, row) && comparator.compare(columns, row, bound) < 0);
+        }
+        if (filter.getLessThanOrEqual() != null) {
+            X bound = filter.getLessThanOrEqual();
+            predicate = predicate.and((columns, row) -> isSet.test(columns, row) && comparator.compare(columns, row, bound) <= 0);
+        }
+        return predicate;
+    }
+
+    /**
+     * The SQL counterpart of {@link #buildPrefixStringSpecification(PrefixStringFilter, SingularAttribute)}. The default
+     * escape character of {@code like} is the backslash both in MySQL and in H2.
+     */
+    private static BookSqlCondition buildPrefixStringCondition(BookSqlCondition condition, String field, PrefixStringFilter filter, String column) {
+        indexed(field, filter);
+        if (filter.getContains() != null || filter.getDoesNotContain() != null) {
+            throw new IllegalArgumentException("The " + field + " filter can not use an index, use startsWith instead of contains");
+        }
+        if (filter.getEquals() != null) {
+            condition = condition.and(column + " = ?", filter.getEquals());
+        } else if (filter.getIn() != null) {
+            condition = condition.andIn(column, filter.getIn());
+        } else if (filter.getSpecified() != null) {
+            condition = condition.and(column + (filter.getSpecified() ? " is not null" : " is null"));
+        }
+        if (filter.getStartsWith() != null) {
+            condition = condition.and(column + " like ?", escapeLike(filter.getStartsWith()) + '%');
+        }
+        return condition;
+    }
+
+    /**
+     * The SQL counterpart of {@link #buildRangeSpecification}: {@code equals} and {@code in} exclude every other operator.
+     */
+    private static BookSqlCondition buildRangeCondition(BookSqlCondition condition, RangeFilter<?> filter, String column) {
+        if (filter.getEquals() != null) {
+            return condition.and(column + " = ?", filter.getEquals());
+        }
+        if (filter.getIn() != null) {
+            return condition.andIn(column, filter.getIn());
+        }
+        if (filter.getSpecified() != null) {
+            condition = condition.and(column + (filter.getSpecified() ? " is not null" : " is null"));
+        }
+        if (filter.getGreaterThan() != null) {
+            condition = condition.and(column + " > ?", filter.getGreaterThan());
+        }
+        if (filter.getGreaterThanOrEqual() != null) {
+            condition = condition.and(column + " >= ?", filter.getGreaterThanOrEqual());
+        }
+        if (filter.getLessThan() != null) {
+            condition = condition.and(column + " < ?", filter.getLessThan());
+        }
+        if (filter.getLessThanOrEqual() != null) {
+            condition = condition.and(column + " <= ?", filter.getLessThanOrEqual());
+        }
+        return condition;
+    }
+
+    private static <X> BookColumnPredicate buildEqualsPredicate(X value, BookColumnPredicate isSet, ColumnComparator<X> comparator) {
+        return (columns, row) -> isSet.test(columns, row) && comparator.compare(columns, row, value) == 0;
+    }
+
+    private static <X> boolean containsEqual(BookColumns columns, int row, List<X> values, ColumnComparator<X> comparator) {
+        for (X value : values) {
+            if (comparator.compare(columns, row, value) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compareId(BookColumns columns, int row, Long value) {
+        return Long.compare(columns.getId(row), value);
+    }
+
+    private static int comparePublishYear(BookColumns columns, int row, Long value) {
+        return Long.compare(columns.getPublishYear(row), value);
+    }
+
+    private static int compareCount(BookColumns columns, int row, Long value) {
+        return Long.compare(columns.getCount(row), value);
+    }
+
+    private static int compareCreatedAt(BookColumns columns, int row, Instant value) {
+        int seconds = Long.compare(columns.getCreatedAtSecond(row), value.getEpochSecond());
+        return seconds != 0 ? seconds : Integer.compare(columns.getCreatedAtNano(row), value.getNano());
+    }
+
+    private static <F extends Filter<?>> F indexed(String field, F filter) {
+        if (filter.getNotEquals() != null || filter.getNotIn() != null) {
+            throw new IllegalArgumentException("The " + field + " filter can not use an index, notEquals and notIn are not supported");
+        }
+        return filter;
+    }
+
+    private static String escapeLike(String value) {
+        return value
+            .replace(String.valueOf(LIKE_ESCAPE), "" + LIKE_ESCAPE + LIKE_ESCAPE)
+            .replace("%", LIKE_ESCAPE + "%")
+            .replace("_", LIKE_ESCAPE + "_");
+    }
+
+    /**
+     * Reads a string column of a row.
+     */
+    @FunctionalInterface
+    private interface StringColumn {
+        String get(BookColumns columns, int row);
+    }
+
+    /**
+     * Compares a set column of a row with a value.
+     */
+    @FunctionalInterface
+    private interface ColumnComparator<X> {
+        int compare(BookColumns columns, int row, X value);
+    }
+}
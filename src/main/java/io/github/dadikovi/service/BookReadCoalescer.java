@@ -0,0 +1,102 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Service coalescing identical concurrent reads of books (single-flight).
+ * <p>
+ * The first caller of a key runs the read, the callers arriving with the same key while it is in flight wait for
+ * its result instead of reading the same rows again. A caller waits at most the configured timeout, then it reads
+ * on its own. The failure of the read is the failure of every waiting caller.
+ * <p>
+ * The key has to identify the result completely, including the version of the catalogue it is read at, as
+ * the result is shared between the callers and also with their responses.
+ */
+@Service
+public class BookReadCoalescer {
+
+    private final Logger log = LoggerFactory.getLogger(BookReadCoalescer.class);
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+
+    private final long timeoutNanos;
+
+    private final Counter coalesced;
+
+    private final Counter timedOut;
+
+    public BookReadCoalescer( ApplicationProperties applicationProperties, MeterRegistry meterRegistry ) {
+        this.enabled = applicationProperties.getCoalescing().isEnabled();
+        this.timeoutNanos = applicationProperties.getCoalescing().getTimeout().toNanos();
+        this.coalesced = Counter.builder("book.reads.coalesced")
+            .description("The number of reads served by the result of an identical read in flight")
+            .register(meterRegistry);
+        this.timedOut = Counter.builder("book.reads.coalescing.timeouts")
+            .description("The number of reads which gave up waiting for an identical read in flight")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs the read, unless an identical one is in flight, then waits for its result.
+     *
+     * @param key the key of the read, reads with equal keys must have equal results.
+     * @param read the read.
+     * @param <T> the type of the result, it must be the same for every read of the key.
+     * @return the result of the read.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read( Object key, Supplier<T> read ) {
+        if ( !enabled ) {
+            return read.get();
+        }
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, call);
+        if ( leader == null ) {
+            try {
+                T result = read.get();
+                call.complete(result);
+                return result;
+            } catch ( RuntimeException | Error e ) {
+                call.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, call);
+            }
+        }
+        try {
+            T result = (T) leader.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            coalesced.increment();
+            return result;
+        } catch ( TimeoutException e ) {
+            timedOut.increment();
+            log.debug("Read {} has not finished in time, reading again", key);
+            return read.get();
+        } catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            if ( e.getCause() instanceof Error ) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the read " + key, e);
+        }
+    }
+}
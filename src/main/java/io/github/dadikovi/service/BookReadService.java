@@ -0,0 +1,282 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.BookView;
+import io.github.dadikovi.repository.BookJdbcRepository;
+import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.repository.BookSpecifications;
+import io.github.dadikovi.repository.BookSqlCondition;
+import io.github.dadikovi.service.BookStaleReadService.StaleRead;
+import io.github.dadikovi.service.dto.BookCriteria;
+import io.github.dadikovi.service.dto.BookDTO;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Service choosing the read path of a book, or of a keyset page of books.
+ * <p>
+ * A book is read from the catalogue snapshot, if it is serving. Otherwise the ids known to be missing are answered
+ * by the {@link BookIdFilterService}, and the identical concurrent loads of a book are coalesced into one load from
+ * the {@link BookCacheService}.
+ * <p>
+ * A page is read from the catalogue snapshot, if it is serving, or from the bitmap indexes, if they can answer its
+ * query. Otherwise it is read with plain JDBC into {@link BookView}s, see {@link BookPageQuery#isJdbc()}, or through
+ * Hibernate. The pages of the query-by-example queries are cached, and their identical concurrent reads are coalesced.
+ * <p>
+ * The reads of the database are run by the {@link BookStaleReadService}: if one is late or fails, the last known good
+ * value of the same read is returned instead. The books read as entities are written from their cached JSON, if it is
+ * asked for, unless they are stale.
+ */
+@Service
+public class BookReadService {
+
+    private final ApplicationProperties applicationProperties;
+
+    private final BookQueryService bookQueryService;
+
+    private final BookRepository bookRepository;
+
+    private final BookJdbcRepository bookJdbcRepository;
+
+    private final BookProjectionService bookProjectionService;
+
+    private final BookCacheService bookCacheService;
+
+    private final BookReadCoalescer bookReadCoalescer;
+
+    private final BookExampleCacheService bookExampleCacheService;
+
+    private final CatalogueSnapshotService catalogueSnapshotService;
+
+    private final BookBitmapIndexService bookBitmapIndexService;
+
+    private final BookIdFilterService bookIdFilterService;
+
+    private final BookJsonCacheService bookJsonCacheService;
+
+    private final BookStaleReadService bookStaleReadService;
+
+    public BookReadService( ApplicationProperties applicationProperties, BookQueryService bookQueryService,
+                            BookRepository bookRepository, BookJdbcRepository bookJdbcRepository,
+                            BookProjectionService bookProjectionService, BookCacheService bookCacheService,
+                            BookReadCoalescer bookReadCoalescer, BookExampleCacheService bookExampleCacheService,
+                            CatalogueSnapshotService catalogueSnapshotService, BookBitmapIndexService bookBitmapIndexService,
+                            BookIdFilterService bookIdFilterService, BookJsonCacheService bookJsonCacheService,
+                            BookStaleReadService bookStaleReadService ) {
+        this.applicationProperties = applicationProperties;
+        this.bookQueryService = bookQueryService;
+        this.bookRepository = bookRepository;
+        this.bookJdbcRepository = bookJdbcRepository;
+        this.bookProjectionService = bookProjectionService;
+        this.bookCacheService = bookCacheService;
+        this.bookReadCoalescer = bookReadCoalescer;
+        this.bookExampleCacheService = bookExampleCacheService;
+        this.catalogueSnapshotService = catalogueSnapshotService;
+        this.bookBitmapIndexService = bookBitmapIndexService;
+        this.bookIdFilterService = bookIdFilterService;
+        this.bookJsonCacheService = bookJsonCacheService;
+        this.bookStaleReadService = bookStaleReadService;
+    }
+
+    /**
+     * @return whether the books read as entities can be written from their cached JSON.
+     */
+    public boolean isJsonCached() {
+        return bookJsonCacheService.isEnabled();
+    }
+
+    /**
+     * @return whether they can be written from their cached gzip compressed JSON too.
+     */
+    public boolean isGzipCached() {
+        return bookJsonCacheService.isEnabled() && bookJsonCacheService.isGzip();
+    }
+
+    /**
+     * @return whether the books of the page are read as entities, which can be written from their cached JSON.
+     */
+    public boolean isJsonCached( BookPageQuery query ) {
+        return query.getFields() == null && !query.isJdbc() && isJsonCached();
+    }
+
+    /**
+     * Creates the page query of the criteria.
+     *
+     * @throws IllegalArgumentException if the criteria has an operator which can not use an index.
+     */
+    public BookPageQuery createPageQuery( BookCriteria criteria, Long after, int size, Set<String> fields ) {
+        BookSqlCondition sqlCondition = applicationProperties.getJdbcReads().isSelected(ApplicationProperties.JdbcReads.BOOKS)
+            ? bookQueryService.createSqlCondition(criteria) : null;
+        return new BookPageQuery(bookQueryService.createSpecification(criteria), bookQueryService.createPredicate(criteria),
+            bookBitmapIndexService.createQuery(criteria).orElse(null), sqlCondition, null, after, size, fields);
+    }
+
+    /**
+     * Creates the page query of the query-by-example query.
+     */
+    public BookPageQuery createPageQuery( Book example, Long after, int size, Set<String> fields ) {
+        BookSqlCondition sqlCondition = applicationProperties.getJdbcReads().isSelected(ApplicationProperties.JdbcReads.BOOKS_FILTERED)
+            ? bookQueryService.createSqlCondition(example) : null;
+        return new BookPageQuery(BookSpecifications.byExample(Example.of(example)), bookQueryService.createPredicate(example),
+            bookBitmapIndexService.createQuery(example).orElse(null), sqlCondition, example, after, size, fields);
+    }
+
+    /**
+     * Reads a book.
+     *
+     * @param id the id of the book.
+     * @param version the catalogue version, taken before the read.
+     * @param eTag the entity tag of the book, taken before the read.
+     * @param json whether the book is written from its cached JSON, see {@link #isJsonCached()}.
+     * @param gzip whether the cached JSON is the gzip compressed one.
+     * @return the book, or the body of its JSON, or empty if there is no book with the id.
+     */
+    public BookRead<Optional<?>> findById( Long id, long version, String eTag, boolean json, boolean gzip ) {
+        if ( json ) {
+            Optional<BookJson> cached = bookJsonCacheService.findCached(id);
+            if ( cached.isPresent() ) {
+                BookJson.Body body = cached.get().body(gzip);
+                return new BookRead<>(Optional.of(body), body, null, StaleRead.fresh(null, eTag));
+            }
+        }
+        // No transaction is started, so none is held while the load may wait for an identical one or for its batch
+        StaleRead<Optional<Book>> book = catalogueSnapshotService.isServing()
+            ? StaleRead.fresh(catalogueSnapshotService.findById(id), eTag)
+            : bookStaleReadService.read(Arrays.asList("book", id), eTag, () -> bookIdFilterService.findById(id,
+                () -> bookReadCoalescer.read(Arrays.asList("book", id, eTag), () -> bookCacheService.findById(id))));
+        // The JSON of a stale book must not be cached for the current version
+        if ( json && !book.isStale() && book.getValue().isPresent() ) {
+            BookJson.Body body = bookJsonCacheService.toJson(book.getValue().get(), version).body(gzip);
+            return new BookRead<>(Optional.of(body), body, null, book);
+        }
+        return new BookRead<>(book.getValue(), null, null, book);
+    }
+
+    /**
+     * Reads a keyset page of books: {@link BookView}s if it is read with JDBC, {@link BookDTO}s if only some fields
+     * are read, otherwise the books.
+     *
+     * @param query the page.
+     * @param staleKey the key of the read, the reads with equal keys must read the same books.
+     * @param version the catalogue version, taken before the read.
+     * @param eTag the entity tag of the catalogue, taken before the read.
+     * @param json whether the books are written from their cached JSON, see {@link #isJsonCached(BookPageQuery)}.
+     * @param gzip whether the cached JSON is the gzip compressed one.
+     * @return the page.
+     */
+    public BookRead<Slice<?>> findAllAfter( BookPageQuery query, Object staleKey, long version, String eTag, boolean json, boolean gzip ) {
+        Long after = query.getAfter();
+        int size = query.getSize();
+        BookColumnPredicate predicate = query.getPredicate();
+        BookBitmapQuery bitmapQuery = query.getBitmapQuery();
+        if ( query.isJdbc() && !catalogueSnapshotService.isServing() ) {
+            StaleRead<Slice<BookView>> read = bookStaleReadService.read(staleKey, eTag,
+                () -> read(query, eTag, () -> bookJdbcRepository.findAllAfter(query.getSqlCondition(), after, size)));
+            return new BookRead<>(read.getValue(), null, lastId(read.getValue(), BookView::getId), read);
+        }
+        if ( query.getFields() == null ) {
+            StaleRead<Slice<Book>> read = catalogueSnapshotService.isServing()
+                ? StaleRead.fresh(catalogueSnapshotService.findAllAfter(predicate, after, size), eTag)
+                : bookStaleReadService.read(staleKey, eTag, () -> read(query, eTag, () -> bitmapQuery != null
+                    ? bookBitmapIndexService.findAllAfter(bitmapQuery, predicate, after, size)
+                    : bookRepository.findAllAfter(query.getSpecification(), after, size)));
+            // The JSON of a stale book must not be cached for the current version
+            BookJson.Body body = json && !read.isStale()
+                ? BookJson.array(bookJsonCacheService.toJson(read.getValue().getContent(), version), gzip) : null;
+            return new BookRead<>(read.getValue(), body, lastId(read.getValue(), Book::getId), read);
+        }
+        StaleRead<Slice<BookDTO>> read = catalogueSnapshotService.isServing()
+            ? StaleRead.fresh(catalogueSnapshotService.findAllAfter(predicate, after, size).map(BookDTO::new), eTag)
+            : bookStaleReadService.read(staleKey, eTag, () -> read(query, eTag, () -> bitmapQuery != null
+                ? bookBitmapIndexService.findAllAfter(bitmapQuery, predicate, after, size).map(BookDTO::new)
+                : bookProjectionService.findAllAfter(query.getSpecification(), after, size, query.getFields())));
+        return new BookRead<>(read.getValue(), null, lastId(read.getValue(), BookDTO::getId), read);
+    }
+
+    /**
+     * Reads the page of a query-by-example query through the example cache, coalescing the identical concurrent reads.
+     */
+    private <T> Slice<T> read( BookPageQuery query, String eTag, Supplier<Slice<T>> read ) {
+        BookExampleQuery exampleQuery = query.getExampleQuery();
+        if ( exampleQuery == null ) {
+            return read.get();
+        }
+        return bookReadCoalescer.read(Arrays.asList("page", eTag, exampleQuery),
+            () -> bookExampleCacheService.findAllAfter(exampleQuery, read));
+    }
+
+    private static <T> Long lastId( Slice<T> page, Function<T, Long> id ) {
+        List<T> content = page.getContent();
+        return content.isEmpty() ? null : id.apply(content.get(content.size() - 1));
+    }
+
+    /**
+     * A book or a page of books, with the body of its cached JSON, if it is written from it.
+     */
+    public static final class BookRead<T> {
+
+        private final T value;
+
+        private final BookJson.Body json;
+
+        private final Long lastId;
+
+        private final StaleRead<?> staleRead;
+
+        private BookRead( T value, BookJson.Body json, Long lastId, StaleRead<?> staleRead ) {
+            this.value = value;
+            this.json = json;
+            this.lastId = lastId;
+            this.staleRead = staleRead;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return the body of the cached JSON of the value, {@code null} if the value is written by the message converters.
+         */
+        public BookJson.Body getJson() {
+            return json;
+        }
+
+        /**
+         * @return the id of the last book of a page, {@code null} if the page is empty.
+         */
+        public Long getLastId() {
+            return lastId;
+        }
+
+        /**
+         * @return the entity tag of the version of the value, which is a previous one if the value is stale.
+         */
+        public String getETag() {
+            return staleRead.getETag();
+        }
+
+        /**
+         * @return whether the value is the last known good one, see {@link BookStaleReadService}.
+         */
+        public boolean isStale() {
+            return staleRead.isStale();
+        }
+
+        /**
+         * @return the time since the value has been read.
+         */
+        public Duration getAge() {
+            return staleRead.getAge();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.domain.Book;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index of the words of the titles, the authors and the publishers, ranking the books with BM25.
+ * <p>
+ * The text of a book is split into words at every character which is not a letter or a digit, the words are
+ * lowercased and their accents are removed. Every word has a posting list of the documents containing it, with the
+ * number of its occurrences. The documents are numbered in the order they are added, so the posting lists are
+ * appended to and stay ordered, and a query walks the lists of its words together, a document at a time, keeping
+ * the best hits in a heap.
+ * <p>
+ * A removed document is only marked as deleted, its postings stay in the lists and are skipped, as a changed book is
+ * added as a new document. They are dropped by the next rebuild. Until then they still count in the document
+ * frequencies of their words, which is a slight shift of the ranking.
+ * <p>
+ * It is not thread-safe, {@link BookSearchService} guards it.
+ */
+final class BookSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final int DELETED = -1;
+
+    private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::getScore)
+        .thenComparing(Comparator.comparingLong(Hit::getId).reversed());
+
+    private final double k1;
+
+    private final double b;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private final Map<Long, Integer> documentsById = new HashMap<>();
+
+    /**
+     * The ids of the books by document.
+     */
+    private long[] ids = new long[16];
+
+    /**
+     * The number of words by document, {@link #DELETED} for the removed documents.
+     */
+    private int[] lengths = new int[16];
+
+    private int documents;
+
+    private int liveDocuments;
+
+    private long liveLength;
+
+    BookSearchIndex( double k1, double b ) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * Splits a text into folded words.
+     *
+     * @param text the text, may be {@code null}.
+     * @return the words, in their order in the text.
+     */
+    static List<String> tokenize( String text ) {
+        if ( text == null || text.isEmpty() ) {
+            return Collections.emptyList();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for ( String word : SEPARATORS.split(folded) ) {
+            if ( !word.isEmpty() ) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Adds the book, replacing its previous version.
+     */
+    void add( Book book ) {
+        remove(book.getId());
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for ( String field : Arrays.asList(book.getTitle(), book.getAuthor(), book.getPublisher()) ) {
+            for ( String word : tokenize(field) ) {
+                frequencies.merge(word, 1, Integer::sum);
+                length++;
+            }
+        }
+        if ( length == 0 ) {
+            return;
+        }
+        if ( documents == ids.length ) {
+            ids = Arrays.copyOf(ids, documents + (documents >> 1));
+            lengths = Arrays.copyOf(lengths, ids.length);
+        }
+        int document = documents++;
+        ids[document] = book.getId();
+        lengths[document] = length;
+        documentsById.put(book.getId(), document);
+        liveDocuments++;
+        liveLength += length;
+        frequencies.forEach(( word, frequency ) -> postings.computeIfAbsent(word, key -> new Postings()).add(document, frequency));
+    }
+
+    /**
+     * Removes the book, if it is in the index.
+     */
+    void remove( Long id ) {
+        Integer document = documentsById.remove(id);
+        if ( document == null ) {
+            return;
+        }
+        liveDocuments--;
+        liveLength -= lengths[document];
+        lengths[document] = DELETED;
+    }
+
+    /**
+     * Finds the best matching books of the query, any of its words may match.
+     *
+     * @param query the text of the query.
+     * @param size the maximum number of hits to return.
+     * @return the hits, the best one first, the ones of equal scores by their ids.
+     */
+    List<Hit> search( String query, int size ) {
+        if ( liveDocuments == 0 || size < 1 ) {
+            return Collections.emptyList();
+        }
+        Set<String> words = new LinkedHashSet<>(tokenize(query));
+        List<Postings> lists = new ArrayList<>(words.size());
+        List<Double> idfs = new ArrayList<>(words.size());
+        for ( String word : words ) {
+            Postings list = postings.get(word);
+            if ( list != null ) {
+                lists.add(list);
+                // The deleted postings may make a word seem more frequent than the books are
+                int frequency = Math.min(list.size, liveDocuments);
+                idfs.add(Math.log(1 + (liveDocuments - frequency + 0.5) / (frequency + 0.5)));
+            }
+        }
+        double averageLength = (double) liveLength / liveDocuments;
+        int[] positions = new int[lists.size()];
+        PriorityQueue<Hit> best = new PriorityQueue<>(size + 1, WORST_FIRST);
+        while ( true ) {
+            int document = Integer.MAX_VALUE;
+            for ( int i = 0; i < lists.size(); i++ ) {
+                if ( positions[i] < lists.get(i).size ) {
+                    document = Math.min(document, lists.get(i).documents[positions[i]]);
+                }
+            }
+            if ( document == Integer.MAX_VALUE ) {
+                break;
+            }
+            double score = 0;
+            for ( int i = 0; i < lists.size(); i++ ) {
+                Postings list = lists.get(i);
+                if ( positions[i] < list.size && list.documents[positions[i]] == document ) {
+                    if ( lengths[document] != DELETED ) {
+                        int frequency = list.frequencies[positions[i]];
+                        score += idfs.get(i) * frequency * (k1 + 1)
+                            / (frequency + k1 * (1 - b + b * lengths[document] / averageLength));
+                    }
+                    positions[i]++;
+                }
+            }
+            if ( lengths[document] != DELETED ) {
+                Hit hit = new Hit(ids[document], score);
+                if ( best.size() < size ) {
+                    best.add(hit);
+                } else if ( WORST_FIRST.compare(hit, best.peek()) > 0 ) {
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(WORST_FIRST.reversed());
+        return hits;
+    }
+
+    /**
+     * @return the number of books in the index.
+     */
+    int size() {
+        return liveDocuments;
+    }
+
+    /**
+     * @return the number of distinct words in the index, with the ones of the removed books.
+     */
+    int words() {
+        return postings.size();
+    }
+
+    /**
+     * A book matching a query, with its BM25 score.
+     */
+    static final class Hit {
+
+        private final long id;
+
+        private final double score;
+
+        Hit( long id, double score ) {
+            this.id = id;
+            this.score = score;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return "Hit{" +
+                "id=" + id +
+                ", score=" + score +
+                "}";
+        }
+    }
+
+    /**
+     * The documents containing a word, in ascending order, with the number of its occurrences in each of them.
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[2];
+
+        private int[] frequencies = new int[2];
+
+        private int size;
+
+        void add( int document, int frequency ) {
+            if ( size == documents.length ) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+}
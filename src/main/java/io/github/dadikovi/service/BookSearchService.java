@@ -0,0 +1,125 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.github.dadikovi.repository.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service searching the books by the words of their titles, authors and publishers, from an in-memory
+ * {@link BookSearchIndex}, ranked with BM25.
+ * <p>
+ * The index is loaded when the application is ready, and rebuilt from the database periodically, which drops the
+ * postings of the changed and the deleted books. It is double-buffered, see {@link AbstractCatalogueView}, so the
+ * queries never see a partially loaded index. Every committed change, on any instance, is applied to the published
+ * index in place.
+ * <p>
+ * The search is disabled by default. Until the first index is loaded, the search is not available.
+ */
+@Service
+public class BookSearchService extends AbstractCatalogueView<BookSearchIndex> {
+
+    private final Logger log = LoggerFactory.getLogger(BookSearchService.class);
+
+    private final BookLookupService bookLookupService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Timer searchTime;
+
+    public BookSearchService( BookRepository bookRepository, BookLookupService bookLookupService,
+                              PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+                              MeterRegistry meterRegistry ) {
+        super("search index", applicationProperties.getSearch().isEnabled(),
+            Timer.builder("book.search.index.rebuild")
+                .description("The time of loading the search index from the database")
+                .register(meterRegistry),
+            bookRepository, transactionManager, applicationProperties);
+        this.bookLookupService = bookLookupService;
+        this.applicationProperties = applicationProperties;
+        this.searchTime = Timer.builder("book.search.queries")
+            .description("The time of finding the best matching ids in the search index")
+            .register(meterRegistry);
+        Gauge.builder("book.search.index.size", this, service -> {
+            Integer size = service.read(BookSearchIndex::size);
+            return size == null ? Double.NaN : size;
+        })
+            .description("The number of books in the search index")
+            .register(meterRegistry);
+        Gauge.builder("book.search.index.words", this, service -> {
+            Integer words = service.read(BookSearchIndex::words);
+            return words == null ? Double.NaN : words;
+        })
+            .description("The number of distinct words in the search index")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Finds the books best matching the words of the query.
+     *
+     * @param query the words to search for, any of them may match.
+     * @param size the maximum number of books to return.
+     * @return the books, the best matching one first, without the ones deleted since they have been found.
+     * @throws IllegalStateException if the index is not {@link #isServing() serving}.
+     */
+    public List<Book> search( String query, int size ) {
+        long start = System.nanoTime();
+        List<BookSearchIndex.Hit> hits = read(current -> current.search(query, size));
+        if ( hits == null ) {
+            throw new IllegalStateException("The search index has not been loaded yet");
+        }
+        searchTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("Search for '{}' has found {}", query, hits);
+        Map<Long, Book> found = bookLookupService.findAllById(hits.stream().map(BookSearchIndex.Hit::getId).collect(Collectors.toList()));
+        return hits.stream().map(hit -> found.get(hit.getId())).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${application.search.rebuild-interval:PT1H}", initialDelayString = "${application.search.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        super.scheduledRebuild();
+    }
+
+    @Override
+    protected BookSearchIndex load( Stream<Book> books ) {
+        ApplicationProperties.Search properties = applicationProperties.getSearch();
+        BookSearchIndex loaded = new BookSearchIndex(properties.getK1(), properties.getB());
+        books.forEach(loaded::add);
+        return loaded;
+    }
+
+    @Override
+    protected BookSearchIndex apply( BookSearchIndex target, ShelfChangedMessage change ) {
+        Book book = change.getChangedBook();
+        if ( book == null || book.getId() == null ) {
+            return target;
+        }
+        if ( change.getChangeType() == ChangeType.DELETE ) {
+            target.remove(book.getId());
+        } else {
+            target.add(book);
+        }
+        return target;
+    }
+
+    @Override
+    protected String describe( BookSearchIndex rebuilt ) {
+        return "with " + rebuilt.size() + " books and " + rebuilt.words() + " words";
+    }
+}
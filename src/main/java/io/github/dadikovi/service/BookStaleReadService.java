@@ -0,0 +1,250 @@
+package io.github.dadikovi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.exception.HystrixBadRequestException;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import io.github.dadikovi.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.PersistenceException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Service serving the last known good value of a read (stale-while-revalidate) when the database is slow or unavailable.
+ * <p>
+ * A read with a last known good value runs as a Hystrix command, on a thread of its own pool, so the caller waits
+ * at most the latency budget. If the read is late, fails on the database or is short-circuited by the open circuit
+ * breaker, the caller gets the last known good value instead. A late read is not interrupted: it goes on in the
+ * background and replaces the value when it succeeds. While the circuit is open, only the trial reads of the circuit
+ * breaker reach the database.
+ * <p>
+ * The reads beyond the threads of the pool wait in its queue, within the latency budget. A read rejected by the full
+ * queue says nothing about the database, only that there are many concurrent reads, so it is not answered stale:
+ * it runs on the caller's thread, like a read without a last known good value, or with one older than the maximum
+ * age, as there is nothing to answer with. The failures which do not come from the database are never hidden.
+ * <p>
+ * The commands use thread isolation: with the semaphore isolation of the other commands the caller would run the read
+ * itself, so it could not give up waiting for it. The transaction of the caller does not follow the read to the thread
+ * of the command, so the command runs the read in a read-only transaction of its own, which the
+ * {@link io.github.dadikovi.config.ReplicaRoutingDataSource} sends to a replica.
+ * <p>
+ * Only the reads of the database are meant to be run by this service: the reads of the in-memory views of the
+ * catalogue are never late, and would only be delayed by the thread hand-off.
+ */
+@Service
+public class BookStaleReadService {
+
+    public static final String CACHE_NAME = "bookStaleReads";
+
+    private static final HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("BookReads");
+
+    private static final HystrixCommandKey COMMAND_KEY = HystrixCommandKey.Factory.asKey("BookRead");
+
+    private static final HystrixThreadPoolKey THREAD_POOL_KEY = HystrixThreadPoolKey.Factory.asKey("BookReads");
+
+    private final Logger log = LoggerFactory.getLogger(BookStaleReadService.class);
+
+    private final boolean enabled;
+
+    private final Cache<Object, StaleRead<?>> lastGood;
+
+    private final HystrixCommand.Setter setter;
+
+    private final Counter staleReads;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BookStaleReadService( ApplicationProperties applicationProperties, PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry ) {
+        ApplicationProperties.StaleReads properties = applicationProperties.getStaleReads();
+        this.enabled = properties.isEnabled();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.lastGood = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxSize())
+            .expireAfterWrite(properties.getMaxAge())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, lastGood, CACHE_NAME);
+        this.setter = HystrixCommand.Setter.withGroupKey(GROUP_KEY)
+            .andCommandKey(COMMAND_KEY)
+            .andThreadPoolKey(THREAD_POOL_KEY)
+            .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                .withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.THREAD)
+                .withExecutionTimeoutInMilliseconds((int) properties.getLatencyBudget().toMillis())
+                .withExecutionIsolationThreadInterruptOnTimeout(false)
+                // The fallback only reads memory, it must not be rejected when every read is late
+                .withFallbackIsolationSemaphoreMaxConcurrentRequests(Integer.MAX_VALUE))
+            .andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter()
+                .withCoreSize(properties.getPoolSize())
+                .withMaxQueueSize(properties.getQueueSize())
+                .withQueueSizeRejectionThreshold(properties.getQueueSize()));
+        this.staleReads = Counter.builder("book.reads.stale")
+            .description("The number of reads answered with the last known good value")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the read, or answers with the last known good value of the key if the read is late or fails on the database.
+     *
+     * @param key the key of the read, reads with equal keys must read the same books.
+     * @param eTag the entity tag of the current version of the books, taken before the read.
+     * @param read the read.
+     * @param <T> the type of the result, it must be the same for every read of the key.
+     * @return the result of the read, or the last known good one.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> StaleRead<T> read( Object key, String eTag, Supplier<T> read ) {
+        if ( !enabled ) {
+            return new StaleRead<>(read.get(), eTag, System.nanoTime(), false);
+        }
+        StaleRead<T> last = (StaleRead<T>) lastGood.getIfPresent(key);
+        if ( last == null ) {
+            return remember(key, new StaleRead<>(read.get(), eTag, System.nanoTime(), false));
+        }
+        try {
+            return new ReadCommand<>(key, eTag, read, last).execute();
+        } catch ( HystrixBadRequestException e ) {
+            throw (RuntimeException) e.getCause();
+        } catch ( HystrixRuntimeException e ) {
+            if ( e.getFailureType() != HystrixRuntimeException.FailureType.REJECTED_THREAD_EXECUTION ) {
+                throw e;
+            }
+            log.debug("Read {} is run on the caller's thread, too many reads are waiting", key);
+            return remember(key, new StaleRead<>(read.get(), eTag, System.nanoTime(), false));
+        }
+    }
+
+    private <T> StaleRead<T> remember( Object key, StaleRead<T> read ) {
+        lastGood.put(key, read);
+        return read;
+    }
+
+    /**
+     * @return whether the failure is one of the database, which the last known good value can stand in for.
+     */
+    private static boolean isDatabaseFailure( RuntimeException e ) {
+        return e instanceof DataAccessException || e instanceof TransactionException || e instanceof PersistenceException;
+    }
+
+    /**
+     * The result of a read, with the entity tag of the version it has been read at.
+     */
+    public static final class StaleRead<T> {
+
+        private final T value;
+
+        private final String eTag;
+
+        private final long readAtNanos;
+
+        private final boolean stale;
+
+        private StaleRead( T value, String eTag, long readAtNanos, boolean stale ) {
+            this.value = value;
+            this.eTag = eTag;
+            this.readAtNanos = readAtNanos;
+            this.stale = stale;
+        }
+
+        /**
+         * @return the value of a read which has not been run by this service, as it does not read the database.
+         */
+        public static <V> StaleRead<V> fresh( V value, String eTag ) {
+            return new StaleRead<>(value, eTag, System.nanoTime(), false);
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return the entity tag of the version of the value, which is a previous one if the value is stale.
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return whether the value is the last known good one, instead of the result of the read.
+         */
+        public boolean isStale() {
+            return stale;
+        }
+
+        /**
+         * @return the time since the value has been read.
+         */
+        public Duration getAge() {
+            return Duration.ofNanos(System.nanoTime() - readAtNanos);
+        }
+    }
+
+    private final class ReadCommand<T> extends HystrixCommand<StaleRead<T>> {
+
+        private final Object key;
+
+        private final String eTag;
+
+        private final Supplier<T> read;
+
+        private final StaleRead<T> last;
+
+        private ReadCommand( Object key, String eTag, Supplier<T> read, StaleRead<T> last ) {
+            super(setter);
+            this.key = key;
+            this.eTag = eTag;
+            this.read = read;
+            this.last = last;
+        }
+
+        @Override
+        protected StaleRead<T> run() {
+            T value;
+            try {
+                value = readOnlyTransaction.execute(status -> read.get());
+            } catch ( RuntimeException e ) {
+                if ( isDatabaseFailure(e) ) {
+                    throw e;
+                }
+                // Neither counted by the circuit breaker, nor answered by the fallback
+                throw new HystrixBadRequestException(e.getMessage(), e);
+            }
+            return remember(key, new StaleRead<>(value, eTag, System.nanoTime(), false));
+        }
+
+        @Override
+        protected StaleRead<T> getFallback() {
+            if ( isResponseRejected() ) {
+                // No fallback: the read is run by the caller
+                throw new UnsupportedOperationException("The read has been rejected");
+            }
+            log.warn("Read {} is answered with its value of {} ago: {}", key, last.getAge(),
+                isResponseTimedOut() ? "it is late" : isResponseShortCircuited() ? "the circuit is open"
+                    : String.valueOf(getExecutionException()));
+            staleReads.increment();
+            return new StaleRead<>(last.value, last.eTag, last.readAtNanos, true);
+        }
+    }
+}
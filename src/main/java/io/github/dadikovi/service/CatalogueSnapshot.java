@@ -0,0 +1,438 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.domain.Book;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An immutable snapshot of every book, ordered by id, stored in columns.
+ * <p>
+ * The numbers are primitive arrays, the authors and the publishers are encoded by dictionaries, as they repeat,
+ * and the titles are stored UTF-8 encoded in a direct buffer, outside of the heap. The books are only materialized
+ * when they are returned, the filters read the columns.
+ * <p>
+ * A change creates a new snapshot, copying the arrays, so a published snapshot can be read without any locking.
+ * The dictionaries and the titles are append-only and shared by the snapshots of a load: the strings of the
+ * changed and the deleted books stay in them until the next load.
+ */
+final class CatalogueSnapshot implements BookColumns {
+
+    private static final byte NO_PUBLISH_YEAR = 1;
+
+    private static final byte NO_CREATED_AT = 2;
+
+    private static final byte NO_COUNT = 4;
+
+    /**
+     * The bytes of a row in the arrays.
+     */
+    private static final int ROW_BYTES = 8 + 4 + 4 + 4 + 4 + 8 + 8 + 4 + 8 + 1;
+
+    private final Strings strings;
+
+    private final String[] authorValues;
+
+    private final String[] publisherValues;
+
+    private final ByteBuffer titleBytes;
+
+    private final long[] ids;
+
+    private final int[] titleOffsets;
+
+    /**
+     * The lengths of the encoded titles, {@code -1} for no title.
+     */
+    private final int[] titleLengths;
+
+    /**
+     * The codes of the authors, {@code -1} for no author.
+     */
+    private final int[] authors;
+
+    /**
+     * The codes of the publishers, {@code -1} for no publisher.
+     */
+    private final int[] publishers;
+
+    private final long[] publishYears;
+
+    private final long[] createdAtSeconds;
+
+    private final int[] createdAtNanos;
+
+    private final long[] counts;
+
+    /**
+     * The flags of the numbers which are not set.
+     */
+    private final byte[] nulls;
+
+    private CatalogueSnapshot( Builder builder ) {
+        this.strings = builder.strings;
+        this.authorValues = builder.strings.authors.values();
+        this.publisherValues = builder.strings.publishers.values();
+        this.titleBytes = builder.strings.titles.buffer();
+        this.ids = builder.ids;
+        this.titleOffsets = builder.titleOffsets;
+        this.titleLengths = builder.titleLengths;
+        this.authors = builder.authors;
+        this.publishers = builder.publishers;
+        this.publishYears = builder.publishYears;
+        this.createdAtSeconds = builder.createdAtSeconds;
+        this.createdAtNanos = builder.createdAtNanos;
+        this.counts = builder.counts;
+        this.nulls = builder.nulls;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return the estimated bytes of the snapshot on the heap, with the dictionaries shared with the other snapshots of the load.
+     */
+    long heapBytes() {
+        return (long) ROW_BYTES * ids.length + strings.authors.heapBytes() + strings.publishers.heapBytes();
+    }
+
+    /**
+     * @return the bytes of the titles outside of the heap, shared with the other snapshots of the load.
+     */
+    long offHeapBytes() {
+        return strings.titles.offHeapBytes();
+    }
+
+    Optional<Book> findById( long id ) {
+        int row = Arrays.binarySearch(ids, id);
+        return row >= 0 ? Optional.of(toBook(row)) : Optional.empty();
+    }
+
+    /**
+     * The in-memory counterpart of {@link io.github.dadikovi.repository.BookRepositoryCustom#findAllAfter}.
+     */
+    Slice<Book> findAllAfter( BookColumnPredicate predicate, Long after, int size ) {
+        int from = 0;
+        if ( after != null ) {
+            int row = Arrays.binarySearch(ids, after);
+            from = row >= 0 ? row + 1 : -row - 1;
+        }
+        List<Book> content = new ArrayList<>(Math.min(size, 64));
+        boolean hasNext = false;
+        for ( int row = from; row < ids.length; row++ ) {
+            if ( predicate.test(this, row) ) {
+                if ( content.size() == size ) {
+                    hasNext = true;
+                    break;
+                }
+                content.add(toBook(row));
+            }
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * @return a snapshot with the book added, or replacing the book with the same id.
+     */
+    CatalogueSnapshot with( Book book ) {
+        int row = Arrays.binarySearch(ids, book.getId());
+        if ( row >= 0 ) {
+            Builder builder = new Builder(this, -1, -1);
+            builder.set(row, book);
+            return builder.build();
+        }
+        int insertion = -row - 1;
+        Builder builder = new Builder(this, insertion, -1);
+        builder.set(insertion, book);
+        return builder.build();
+    }
+
+    /**
+     * @return a snapshot without the book with the id.
+     */
+    CatalogueSnapshot without( long id ) {
+        int row = Arrays.binarySearch(ids, id);
+        return row < 0 ? this : new Builder(this, -1, row).build();
+    }
+
+    @Override
+    public long getId( int row ) {
+        return ids[row];
+    }
+
+    @Override
+    public String getTitle( int row ) {
+        return titleLengths[row] < 0 ? null : Utf8Store.decode(titleBytes, titleOffsets[row], titleLengths[row]);
+    }
+
+    @Override
+    public String getAuthor( int row ) {
+        return StringDictionary.decode(authorValues, authors[row]);
+    }
+
+    @Override
+    public String getPublisher( int row ) {
+        return StringDictionary.decode(publisherValues, publishers[row]);
+    }
+
+    @Override
+    public boolean hasPublishYear( int row ) {
+        return (nulls[row] & NO_PUBLISH_YEAR) == 0;
+    }
+
+    @Override
+    public long getPublishYear( int row ) {
+        return publishYears[row];
+    }
+
+    @Override
+    public boolean hasCreatedAt( int row ) {
+        return (nulls[row] & NO_CREATED_AT) == 0;
+    }
+
+    @Override
+    public long getCreatedAtSecond( int row ) {
+        return createdAtSeconds[row];
+    }
+
+    @Override
+    public int getCreatedAtNano( int row ) {
+        return createdAtNanos[row];
+    }
+
+    @Override
+    public boolean hasCount( int row ) {
+        return (nulls[row] & NO_COUNT) == 0;
+    }
+
+    @Override
+    public long getCount( int row ) {
+        return counts[row];
+    }
+
+    private Book toBook( int row ) {
+        Book book = new Book();
+        book.setId(ids[row]);
+        book.setTitle(getTitle(row));
+        book.setAuthor(getAuthor(row));
+        book.setPublisher(getPublisher(row));
+        book.setPublishYear(hasPublishYear(row) ? publishYears[row] : null);
+        book.setCreatedAt(hasCreatedAt(row) ? Instant.ofEpochSecond(createdAtSeconds[row], createdAtNanos[row]) : null);
+        book.setCount(hasCount(row) ? counts[row] : null);
+        return book;
+    }
+
+    /**
+     * The dictionaries and the titles of a load.
+     */
+    private static final class Strings {
+
+        private final StringDictionary authors = new StringDictionary();
+
+        private final StringDictionary publishers = new StringDictionary();
+
+        private final Utf8Store titles;
+
+        private Strings( int titleCapacity ) {
+            this.titles = new Utf8Store(titleCapacity);
+        }
+    }
+
+    /**
+     * Builds a snapshot from the books ordered by id.
+     */
+    static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private static final int TITLE_BYTES = 32;
+
+        private final Strings strings;
+
+        private int size;
+
+        private long[] ids;
+
+        private int[] titleOffsets;
+
+        private int[] titleLengths;
+
+        private int[] authors;
+
+        private int[] publishers;
+
+        private long[] publishYears;
+
+        private long[] createdAtSeconds;
+
+        private int[] createdAtNanos;
+
+        private long[] counts;
+
+        private byte[] nulls;
+
+        Builder() {
+            this.strings = new Strings(INITIAL_CAPACITY * TITLE_BYTES);
+            this.ids = new long[INITIAL_CAPACITY];
+            this.titleOffsets = new int[INITIAL_CAPACITY];
+            this.titleLengths = new int[INITIAL_CAPACITY];
+            this.authors = new int[INITIAL_CAPACITY];
+            this.publishers = new int[INITIAL_CAPACITY];
+            this.publishYears = new long[INITIAL_CAPACITY];
+            this.createdAtSeconds = new long[INITIAL_CAPACITY];
+            this.createdAtNanos = new int[INITIAL_CAPACITY];
+            this.counts = new long[INITIAL_CAPACITY];
+            this.nulls = new byte[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Copies the columns of the snapshot, with a new row at the insertion and without the row at the removal, if they are not negative.
+         */
+        private Builder( CatalogueSnapshot source, int insertion, int removal ) {
+            this.strings = source.strings;
+            this.size = source.ids.length + (insertion >= 0 ? 1 : 0) - (removal >= 0 ? 1 : 0);
+            this.ids = copy(source.ids, insertion, removal);
+            this.titleOffsets = copy(source.titleOffsets, insertion, removal);
+            this.titleLengths = copy(source.titleLengths, insertion, removal);
+            this.authors = copy(source.authors, insertion, removal);
+            this.publishers = copy(source.publishers, insertion, removal);
+            this.publishYears = copy(source.publishYears, insertion, removal);
+            this.createdAtSeconds = copy(source.createdAtSeconds, insertion, removal);
+            this.createdAtNanos = copy(source.createdAtNanos, insertion, removal);
+            this.counts = copy(source.counts, insertion, removal);
+            this.nulls = copy(source.nulls, insertion, removal);
+        }
+
+        /**
+         * @param book the book, with a greater id than the previous one.
+         */
+        Builder add( Book book ) {
+            if ( size > 0 && ids[size - 1] >= book.getId() ) {
+                throw new IllegalArgumentException("The books must be added in the order of their ids, " + book.getId() + " is after " + ids[size - 1]);
+            }
+            if ( size == ids.length ) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+                titleLengths = Arrays.copyOf(titleLengths, capacity);
+                authors = Arrays.copyOf(authors, capacity);
+                publishers = Arrays.copyOf(publishers, capacity);
+                publishYears = Arrays.copyOf(publishYears, capacity);
+                createdAtSeconds = Arrays.copyOf(createdAtSeconds, capacity);
+                createdAtNanos = Arrays.copyOf(createdAtNanos, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                nulls = Arrays.copyOf(nulls, capacity);
+            }
+            set(size++, book);
+            return this;
+        }
+
+        CatalogueSnapshot build() {
+            if ( size < ids.length ) {
+                ids = Arrays.copyOf(ids, size);
+                titleOffsets = Arrays.copyOf(titleOffsets, size);
+                titleLengths = Arrays.copyOf(titleLengths, size);
+                authors = Arrays.copyOf(authors, size);
+                publishers = Arrays.copyOf(publishers, size);
+                publishYears = Arrays.copyOf(publishYears, size);
+                createdAtSeconds = Arrays.copyOf(createdAtSeconds, size);
+                createdAtNanos = Arrays.copyOf(createdAtNanos, size);
+                counts = Arrays.copyOf(counts, size);
+                nulls = Arrays.copyOf(nulls, size);
+            }
+            return new CatalogueSnapshot(this);
+        }
+
+        private void set( int row, Book book ) {
+            ids[row] = book.getId();
+            if ( book.getTitle() == null ) {
+                titleOffsets[row] = 0;
+                titleLengths[row] = -1;
+            } else {
+                byte[] title = Utf8Store.encode(book.getTitle());
+                titleOffsets[row] = strings.titles.append(title);
+                titleLengths[row] = title.length;
+            }
+            authors[row] = strings.authors.encode(book.getAuthor());
+            publishers[row] = strings.publishers.encode(book.getPublisher());
+            byte flags = 0;
+            if ( book.getPublishYear() == null ) {
+                flags |= NO_PUBLISH_YEAR;
+                publishYears[row] = 0;
+            } else {
+                publishYears[row] = book.getPublishYear();
+            }
+            if ( book.getCreatedAt() == null ) {
+                flags |= NO_CREATED_AT;
+                createdAtSeconds[row] = 0;
+                createdAtNanos[row] = 0;
+            } else {
+                createdAtSeconds[row] = book.getCreatedAt().getEpochSecond();
+                createdAtNanos[row] = book.getCreatedAt().getNano();
+            }
+            if ( book.getCount() == null ) {
+                flags |= NO_COUNT;
+                counts[row] = 0;
+            } else {
+                counts[row] = book.getCount();
+            }
+            nulls[row] = flags;
+        }
+
+        private static long[] copy( long[] source, int insertion, int removal ) {
+            if ( insertion >= 0 ) {
+                long[] copy = new long[source.length + 1];
+                System.arraycopy(source, 0, copy, 0, insertion);
+                System.arraycopy(source, insertion, copy, insertion + 1, source.length - insertion);
+                return copy;
+            }
+            if ( removal >= 0 ) {
+                long[] copy = new long[source.length - 1];
+                System.arraycopy(source, 0, copy, 0, removal);
+                System.arraycopy(source, removal + 1, copy, removal, source.length - removal - 1);
+                return copy;
+            }
+            return source.clone();
+        }
+
+        private static int[] copy( int[] source, int insertion, int removal ) {
+            if ( insertion >= 0 ) {
+                int[] copy = new int[source.length + 1];
+                System.arraycopy(source, 0, copy, 0, insertion);
+                System.arraycopy(source, insertion, copy, insertion + 1, source.length - insertion);
+                return copy;
+            }
+            if ( removal >= 0 ) {
+                int[] copy = new int[source.length - 1];
+                System.arraycopy(source, 0, copy, 0, removal);
+                System.arraycopy(source, removal + 1, copy, removal, source.length - removal - 1);
+                return copy;
+            }
+            return source.clone();
+        }
+
+        private static byte[] copy( byte[] source, int insertion, int removal ) {
+            if ( insertion >= 0 ) {
+                byte[] copy = new byte[source.length + 1];
+                System.arraycopy(source, 0, copy, 0, insertion);
+                System.arraycopy(source, insertion, copy, insertion + 1, source.length - insertion);
+                return copy;
+            }
+            if ( removal >= 0 ) {
+                byte[] copy = new byte[source.length - 1];
+                System.arraycopy(source, 0, copy, 0, removal);
+                System.arraycopy(source, removal + 1, copy, removal, source.length - removal - 1);
+                return copy;
+            }
+            return source.clone();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.github.dadikovi.repository.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Service holding every book in memory, as an immutable snapshot, to serve the reads without the database.
+ * <p>
+ * The snapshot is loaded when the application is ready, and rebuilt from the database periodically. Every
+ * committed change, on any instance, is applied by publishing a changed copy of the snapshot, so the readers
+ * never wait for the writers: they read whichever snapshot is published when they start, see {@link AbstractCatalogueView}.
+ * <p>
+ * The mode is disabled by default. Until the first snapshot is loaded, the reads go to the database.
+ * <p>
+ * The snapshot is stored in columns, see {@link CatalogueSnapshot}, its titles are outside of the heap, in direct
+ * buffers, which count against {@code -XX:MaxDirectMemorySize}. Its estimated memory is reported per book as
+ * {@code book.snapshot.memory.per.book}, to size the JVM.
+ */
+@Service
+public class CatalogueSnapshotService extends AbstractCatalogueView<CatalogueSnapshot> {
+
+    public CatalogueSnapshotService( BookRepository bookRepository, PlatformTransactionManager transactionManager,
+                                     ApplicationProperties applicationProperties, MeterRegistry meterRegistry ) {
+        super("catalogue snapshot", applicationProperties.getSnapshot().isEnabled(),
+            Timer.builder("book.snapshot.rebuild")
+                .description("The time of loading every book into a new snapshot")
+                .register(meterRegistry),
+            bookRepository, transactionManager, applicationProperties);
+        Gauge.builder("book.snapshot.size", this, service -> service.gauge(CatalogueSnapshot::size))
+            .description("The number of books in the snapshot")
+            .register(meterRegistry);
+        TimeGauge.builder("book.snapshot.age", this, TimeUnit.MILLISECONDS,
+            service -> service.gauge(current -> System.currentTimeMillis() - service.getPublishedAtMillis()))
+            .description("The time since the snapshot has been published")
+            .register(meterRegistry);
+        Gauge.builder("book.snapshot.memory", this, service -> service.gauge(CatalogueSnapshot::heapBytes))
+            .description("The estimated memory of the snapshot")
+            .baseUnit("bytes")
+            .tag("area", "heap")
+            .register(meterRegistry);
+        Gauge.builder("book.snapshot.memory", this, service -> service.gauge(CatalogueSnapshot::offHeapBytes))
+            .description("The estimated memory of the snapshot")
+            .baseUnit("bytes")
+            .tag("area", "nonheap")
+            .register(meterRegistry);
+        Gauge.builder("book.snapshot.memory.per.book", this, service -> service.gauge(CatalogueSnapshotService::bytesPerBook))
+            .description("The estimated memory of the snapshot per book, heap and off-heap together")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Get the book with the given id from the snapshot.
+     *
+     * @param id the id of the book.
+     * @return the book, or empty if there is no book with the id.
+     * @throws IllegalStateException if the snapshot is not {@link #isServing() serving}.
+     */
+    public Optional<Book> findById( Long id ) {
+        return current().findById(id);
+    }
+
+    /**
+     * The in-memory counterpart of {@link BookRepository#findAllAfter(org.springframework.data.jpa.domain.Specification, Long, int)}.
+     *
+     * @param predicate the filter of the books, evaluated over the columns of the snapshot.
+     * @param after the id of the last book of the previous page, {@code null} for the first page.
+     * @param size the maximum number of books to return.
+     * @return the page of books, {@link Slice#hasNext()} tells whether there are more books after it.
+     * @throws IllegalStateException if the snapshot is not {@link #isServing() serving}.
+     */
+    public Slice<Book> findAllAfter( BookColumnPredicate predicate, Long after, int size ) {
+        return current().findAllAfter(predicate, after, size);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${application.snapshot.rebuild-interval:PT10M}", initialDelayString = "${application.snapshot.rebuild-interval:PT10M}")
+    public void scheduledRebuild() {
+        super.scheduledRebuild();
+    }
+
+    /**
+     * The books are added to the columns one by one, the stream detaches them, so they are not held together.
+     */
+    @Override
+    protected CatalogueSnapshot load( Stream<Book> books ) {
+        CatalogueSnapshot.Builder builder = new CatalogueSnapshot.Builder();
+        books.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Publishes a changed copy of the snapshot, the published one is never changed.
+     */
+    @Override
+    protected CatalogueSnapshot apply( CatalogueSnapshot target, ShelfChangedMessage change ) {
+        Book book = change.getChangedBook();
+        if ( book == null || book.getId() == null ) {
+            return target;
+        }
+        return change.getChangeType() == ChangeType.DELETE ? target.without(book.getId()) : target.with(book);
+    }
+
+    @Override
+    protected String describe( CatalogueSnapshot rebuilt ) {
+        return "with " + rebuilt.size() + " books";
+    }
+
+    private double gauge( ToDoubleFunction<CatalogueSnapshot> value ) {
+        Double current = read(value::applyAsDouble);
+        return current == null ? Double.NaN : current;
+    }
+
+    private static double bytesPerBook( CatalogueSnapshot current ) {
+        if ( current.size() == 0 ) {
+            return Double.NaN;
+        }
+        return (double) (current.heapBytes() + current.offHeapBytes()) / current.size();
+    }
+}
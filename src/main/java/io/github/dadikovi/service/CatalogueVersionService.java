@@ -0,0 +1,103 @@
+package io.github.dadikovi.service;
+
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Service keeping track of the version of the catalogue, used as the entity tag of the book endpoints.
+ * <p>
+ * The catalogue version is increased on every committed change of the shelf, on any instance.
+ * The version of a single book is the catalogue version of its last change. Books are hashed into a fixed
+ * number of slots, so the memory used does not depend on the number of books: a change of a book also changes
+ * the version of the other books of its slot, which only costs a full response instead of a {@code 304}.
+ * <p>
+ * The versions are held in memory, so every entity tag also contains a random id of this instance's lifetime.
+ * <p>
+ * The entity tags are therefore only known to the instance which has issued them. The versions are not shared:
+ * the changes arrive asynchronously, at different times and possibly in different orders on every instance, and
+ * the in-memory views answering the requests are consistent with the version of their own instance only. Equal
+ * versions on two instances would not mean equal responses, so a shared version could answer {@code 304} for a
+ * response the client has never seen.
+ * <p>
+ * Conditional requests only pay off with sticky routing: the load balancer in front of the instances has to send
+ * the requests of a client to the same instance, e.g. with session affinity, which is a deployment requirement of
+ * the polling clients. Without it the answers are still correct, a conditional request reaching another instance,
+ * or an instance after a restart, gets a full {@code 200} response with the entity tag of that instance.
+ */
+@Service
+public class CatalogueVersionService {
+
+    private static final int BOOK_SLOTS = 1 << 16;
+
+    private final Logger log = LoggerFactory.getLogger(CatalogueVersionService.class);
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+
+    private final AtomicLong catalogueVersion = new AtomicLong();
+
+    private final AtomicLongArray bookVersions = new AtomicLongArray(BOOK_SLOTS);
+
+    /**
+     * @return the strong entity tag of the whole catalogue.
+     */
+    public String catalogueETag() {
+        return eTag("c", catalogueVersion.get());
+    }
+
+    /**
+     * @param id the id of the book.
+     * @return the strong entity tag of the book.
+     */
+    public String bookETag(Long id) {
+        return eTag("b", getBookVersion(id));
+    }
+
+    /**
+     * @param id the id of the book.
+     * @return the catalogue version of the last change of the book, or of another book of its slot.
+     */
+    public long getBookVersion(Long id) {
+        return bookVersions.get(slot(id));
+    }
+
+    /**
+     * @return the current version of the catalogue.
+     */
+    public long getCatalogueVersion() {
+        return catalogueVersion.get();
+    }
+
+    /**
+     * The version is increased after every other listener has handled the change, as the caches and the snapshot
+     * must not serve the previous state of the catalogue with the new entity tag.
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onShelfChanged(ShelfChangedMessage message) {
+        long version = catalogueVersion.incrementAndGet();
+        Book book = message.getChangedBook();
+        if (book != null && book.getId() != null) {
+            bookVersions.accumulateAndGet(slot(book.getId()), version, Math::max);
+        }
+        log.debug("Catalogue version is {} after {}", version, message.getChangeType());
+    }
+
+    private String eTag(String kind, long version) {
+        return "\"" + epoch + "-" + kind + version + "\"";
+    }
+
+    private static int slot(Long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 48) & (BOOK_SLOTS - 1);
+    }
+}
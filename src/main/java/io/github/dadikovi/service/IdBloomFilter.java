@@ -0,0 +1,81 @@
+package io.github.dadikovi.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of ids: an id which has not been added is reported as absent, with the false positive probability
+ * it has been sized for. An added id can not be removed.
+ * <p>
+ * The ids can be added and checked concurrently, the bits are set atomically.
+ */
+final class IdBloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * @param expectedInsertions the number of ids the filter is sized for.
+     * @param falsePositiveProbability the false positive probability with the expected number of ids.
+     */
+    IdBloomFilter( long expectedInsertions, double falsePositiveProbability ) {
+        long n = Math.max(expectedInsertions, 1);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = 64L * wordCount;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    void add( long id ) {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1;
+        for ( int i = 0; i < hashCount; i++ ) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            words.getAndAccumulate((int) (bit >>> 6), mask, ( word, set ) -> word | set);
+        }
+        insertions.incrementAndGet();
+    }
+
+    boolean mightContain( long id ) {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1;
+        for ( int i = 0; i < hashCount; i++ ) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ( (words.get((int) (bit >>> 6)) & (1L << bit)) == 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the false positive probability with the ids added so far.
+     */
+    double expectedFalsePositiveProbability() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions.get() / bitCount), hashCount);
+    }
+
+    long sizeInBytes() {
+        return bitCount / 8;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, spreading the consecutive ids over the bits.
+     */
+    private static long mix( long value ) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
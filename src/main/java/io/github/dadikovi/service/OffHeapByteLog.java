@@ -0,0 +1,153 @@
+package io.github.dadikovi.service;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+
+/**
+ * An append-only log of byte arrays in direct buffers, outside of the heap, with a fixed memory ceiling.
+ * <p>
+ * The memory is split into segments, which are filled one after the other. When the last one is full, the oldest
+ * one is recycled: its generation is increased, so every location in it becomes invalid, and it is filled again.
+ * The segments are allocated when they are first filled.
+ * <p>
+ * The appends are serialized. A read copies the bytes to the heap with an optimistic read of the lock of their
+ * segment, and fails if the segment has been recycled meanwhile. So the reads never block the appends, and nothing
+ * read from the log outlives the read.
+ */
+final class OffHeapByteLog {
+
+    private final ByteBuffer[] segments;
+
+    private final StampedLock[] locks;
+
+    private final AtomicLongArray generations;
+
+    private final int segmentSize;
+
+    private final IntConsumer onRecycle;
+
+    private int current = -1;
+
+    private int position;
+
+    private volatile long allocatedBytes;
+
+    /**
+     * @param maxBytes the ceiling of the memory of the log.
+     * @param segmentCount the number of segments, the share of the log dropped at once when it is full.
+     * @param onRecycle called with the index of a segment when its locations become invalid.
+     */
+    OffHeapByteLog( long maxBytes, int segmentCount, IntConsumer onRecycle ) {
+        if ( segmentCount < 1 ) {
+            throw new IllegalArgumentException("The log needs at least one segment");
+        }
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE - 8, maxBytes / segmentCount);
+        this.segments = new ByteBuffer[segmentCount];
+        this.locks = new StampedLock[segmentCount];
+        for ( int i = 0; i < segmentCount; i++ ) {
+            locks[i] = new StampedLock();
+        }
+        this.generations = new AtomicLongArray(segmentCount);
+        this.onRecycle = onRecycle;
+    }
+
+    /**
+     * Appends the remaining bytes of the buffer, without changing its position.
+     *
+     * @return the location of the bytes, or {@code null} if they do not fit into a segment.
+     */
+    synchronized Location append( ByteBuffer bytes ) {
+        int length = bytes.remaining();
+        if ( length > segmentSize ) {
+            return null;
+        }
+        if ( current < 0 || position + length > segmentSize ) {
+            advance();
+        }
+        ByteBuffer segment = segments[current].duplicate();
+        ((Buffer) segment).position(position);
+        segment.put(bytes.duplicate());
+        Location location = new Location(current, generations.get(current), position, length);
+        position += length;
+        return location;
+    }
+
+    /**
+     * Copies the bytes at the location.
+     *
+     * @return the copy of the bytes, or {@code null} if they have been overwritten since they were appended.
+     */
+    ByteBuffer read( Location location ) {
+        StampedLock lock = locks[location.segment];
+        long stamp = lock.tryOptimisticRead();
+        if ( stamp == 0 || generations.get(location.segment) != location.generation ) {
+            return null;
+        }
+        ByteBuffer segment = segments[location.segment].duplicate();
+        ((Buffer) segment).limit(location.offset + location.length);
+        ((Buffer) segment).position(location.offset);
+        byte[] copy = new byte[location.length];
+        segment.get(copy);
+        // The segment may have been recycled and overwritten while it was copied
+        if ( !lock.validate(stamp) ) {
+            return null;
+        }
+        return ByteBuffer.wrap(copy);
+    }
+
+    long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Moves to the next segment, invalidating its locations. The write lock is only taken while the generation is
+     * increased: it invalidates the optimistic reads of the segment which are still copying it.
+     */
+    private void advance() {
+        int next = (current + 1) % segments.length;
+        if ( segments[next] == null ) {
+            segments[next] = ByteBuffer.allocateDirect(segmentSize);
+            allocatedBytes += segmentSize;
+        } else {
+            StampedLock lock = locks[next];
+            long stamp = lock.writeLock();
+            try {
+                generations.incrementAndGet(next);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            onRecycle.accept(next);
+        }
+        current = next;
+        position = 0;
+    }
+
+    static final class Location {
+
+        private final int segment;
+
+        private final long generation;
+
+        private final int offset;
+
+        private final int length;
+
+        private Location( int segment, long generation, int offset, int length ) {
+            this.segment = segment;
+            this.generation = generation;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        int getSegment() {
+            return segment;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+}
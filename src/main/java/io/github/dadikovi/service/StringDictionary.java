@@ -0,0 +1,62 @@
+package io.github.dadikovi.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An append-only dictionary of strings, encoding each distinct string as an int code.
+ * <p>
+ * It is written by a single thread at a time. The readers read the {@link #values()} they have been handed over
+ * with a safe publication, and only the codes encoded before it, so they can read while the dictionary grows.
+ */
+final class StringDictionary {
+
+    /**
+     * The estimated bytes of an entry besides the characters: the string, its array, the map entry and the code.
+     */
+    private static final int ENTRY_BYTES = 112;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    private String[] values = new String[16];
+
+    private int size;
+
+    private long heapBytes;
+
+    /**
+     * @return the code of the value, {@code -1} for {@code null}.
+     */
+    int encode( String value ) {
+        if ( value == null ) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if ( code != null ) {
+            return code;
+        }
+        if ( size == values.length ) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        heapBytes += ENTRY_BYTES + 2L * value.length();
+        return size++;
+    }
+
+    /**
+     * @return the values, indexed by their codes.
+     */
+    String[] values() {
+        return values;
+    }
+
+    static String decode( String[] values, int code ) {
+        return code < 0 ? null : values[code];
+    }
+
+    long heapBytes() {
+        return heapBytes + 4L * values.length;
+    }
+}
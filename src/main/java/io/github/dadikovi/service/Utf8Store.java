@@ -0,0 +1,75 @@
+package io.github.dadikovi.service;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An append-only store of UTF-8 encoded strings in a direct buffer, outside of the heap.
+ * <p>
+ * It is written by a single thread at a time. The readers read the {@link #buffer()} they have been handed over
+ * with a safe publication, and only the strings appended before it, with absolute reads, so they can read while
+ * the store grows. A grown store is copied into a new buffer, the previous one is freed when its readers are gone.
+ */
+final class Utf8Store {
+
+    private ByteBuffer buffer;
+
+    private int size;
+
+    Utf8Store( int initialCapacity ) {
+        this.buffer = ByteBuffer.allocateDirect(initialCapacity);
+    }
+
+    /**
+     * @return the offset of the appended bytes.
+     */
+    int append( byte[] bytes ) {
+        ensureCapacity(bytes.length);
+        int offset = size;
+        ByteBuffer target = buffer.duplicate();
+        ((Buffer) target).position(offset);
+        target.put(bytes);
+        size += bytes.length;
+        return offset;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the bytes of the direct buffer, used or not.
+     */
+    long offHeapBytes() {
+        return buffer.capacity();
+    }
+
+    static byte[] encode( String value ) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String decode( ByteBuffer buffer, int offset, int length ) {
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        ((Buffer) source).position(offset);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void ensureCapacity( int length ) {
+        long required = (long) size + length;
+        if ( required <= buffer.capacity() ) {
+            return;
+        }
+        if ( required > Integer.MAX_VALUE ) {
+            throw new IllegalStateException("The strings do not fit into a buffer of " + Integer.MAX_VALUE + " bytes");
+        }
+        ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, Math.max(required, 2L * buffer.capacity())));
+        ByteBuffer source = buffer.duplicate();
+        ((Buffer) source).position(0);
+        ((Buffer) source).limit(size);
+        grown.put(source);
+        buffer = grown;
+    }
+}
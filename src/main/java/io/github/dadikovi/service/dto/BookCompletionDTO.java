@@ -0,0 +1,85 @@
+package io.github.dadikovi.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A completion of a typed prefix: a title or an author of the books.
+ */
+public class BookCompletionDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The attribute of the books which is completed.
+     */
+    public enum Field {
+        TITLE,
+        AUTHOR
+    }
+
+    private String value;
+
+    private Field field;
+
+    private int books;
+
+    private long count;
+
+    public static BookCompletionDTO of(String value, Field field, int books, long count) {
+        BookCompletionDTO completion = new BookCompletionDTO();
+        completion.setValue(value);
+        completion.setField(field);
+        completion.setBooks(books);
+        completion.setCount(count);
+        return completion;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public void setField(Field field) {
+        this.field = field;
+    }
+
+    /**
+     * @return the number of books with the value.
+     */
+    public int getBooks() {
+        return books;
+    }
+
+    public void setBooks(int books) {
+        this.books = books;
+    }
+
+    /**
+     * @return the number of copies of the books with the value, the completions are ranked by it.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BookCompletionDTO{" +
+            "value='" + getValue() + "'" +
+            ", field=" + getField() +
+            ", books=" + getBooks() +
+            ", count=" + getCount() +
+            "}";
+    }
+}
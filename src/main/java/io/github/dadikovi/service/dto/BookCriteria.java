@@ -0,0 +1,159 @@
+package io.github.dadikovi.service.dto;
+
+import io.github.jhipster.service.Criteria;
+import io.github.jhipster.service.filter.Filter;
+import io.github.jhipster.service.filter.InstantFilter;
+import io.github.jhipster.service.filter.LongFilter;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Criteria class for the {@link io.github.dadikovi.domain.Book} entity. This class is used
+ * in {@link io.github.dadikovi.web.rest.BookResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /books?publishYear.greaterThanOrEqual=1990&author.in=Tolstoy,Adams&title.startsWith=War}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+public class BookCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private PrefixStringFilter title;
+
+    private PrefixStringFilter author;
+
+    private PrefixStringFilter publisher;
+
+    private LongFilter publishYear;
+
+    private InstantFilter createdAt;
+
+    private LongFilter count;
+
+    public BookCriteria() {
+    }
+
+    public BookCriteria(BookCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.title = other.title == null ? null : other.title.copy();
+        this.author = other.author == null ? null : other.author.copy();
+        this.publisher = other.publisher == null ? null : other.publisher.copy();
+        this.publishYear = other.publishYear == null ? null : other.publishYear.copy();
+        this.createdAt = other.createdAt == null ? null : other.createdAt.copy();
+        this.count = other.count == null ? null : other.count.copy();
+    }
+
+    @Override
+    public BookCriteria copy() {
+        return new BookCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public PrefixStringFilter getTitle() {
+        return title;
+    }
+
+    public void setTitle(PrefixStringFilter title) {
+        this.title = title;
+    }
+
+    public PrefixStringFilter getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(PrefixStringFilter author) {
+        this.author = author;
+    }
+
+    public PrefixStringFilter getPublisher() {
+        return publisher;
+    }
+
+    public void setPublisher(PrefixStringFilter publisher) {
+        this.publisher = publisher;
+    }
+
+    public LongFilter getPublishYear() {
+        return publishYear;
+    }
+
+    public void setPublishYear(LongFilter publishYear) {
+        this.publishYear = publishYear;
+    }
+
+    public InstantFilter getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(InstantFilter createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LongFilter getCount() {
+        return count;
+    }
+
+    public void setCount(LongFilter count) {
+        this.count = count;
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final BookCriteria that = (BookCriteria) o;
+        return
+            Objects.equals(id, that.id) &&
+            Objects.equals(title, that.title) &&
+            Objects.equals(author, that.author) &&
+            Objects.equals(publisher, that.publisher) &&
+            Objects.equals(publishYear, that.publishYear) &&
+            Objects.equals(createdAt, that.createdAt) &&
+            Objects.equals(count, that.count);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+        id,
+        title,
+        author,
+        publisher,
+        publishYear,
+        createdAt,
+        count
+        );
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BookCriteria{" +
+                (id != null ? "id=" + id + ", " : "") +
+                (title != null ? "title=" + title + ", " : "") +
+                (author != null ? "author=" + author + ", " : "") +
+                (publisher != null ? "publisher=" + publisher + ", " : "") +
+                (publishYear != null ? "publishYear=" + publishYear + ", " : "") +
+                (createdAt != null ? "createdAt=" + createdAt + ", " : "") +
+                (count != null ? "count=" + count + ", " : "") +
+            "}";
+    }
+
+}
@@ -0,0 +1,135 @@
+package io.github.dadikovi.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import io.github.dadikovi.domain.Book;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO for the {@link io.github.dadikovi.domain.Book} entity, holding only the requested fields of a book.
+ * <p>
+ * It is serialized with the {@value #FIELDS_FILTER} filter, which has to be provided with the requested fields,
+ * for example through {@link org.springframework.http.converter.json.MappingJacksonValue}.
+ */
+@JsonFilter(BookDTO.FIELDS_FILTER)
+public class BookDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String FIELDS_FILTER = "bookFields";
+
+    private Long id;
+
+    private String title;
+
+    private String author;
+
+    private String publisher;
+
+    private Long publishYear;
+
+    private Instant createdAt;
+
+    private Long count;
+
+    public BookDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public BookDTO(Book book) {
+        this.id = book.getId();
+        this.title = book.getTitle();
+        this.author = book.getAuthor();
+        this.publisher = book.getPublisher();
+        this.publishYear = book.getPublishYear();
+        this.createdAt = book.getCreatedAt();
+        this.count = book.getCount();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getPublisher() {
+        return publisher;
+    }
+
+    public void setPublisher(String publisher) {
+        this.publisher = publisher;
+    }
+
+    public Long getPublishYear() {
+        return publishYear;
+    }
+
+    public void setPublishYear(Long publishYear) {
+        this.publishYear = publishYear;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BookDTO)) {
+            return false;
+        }
+        return id != null && id.equals(((BookDTO) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BookDTO{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", author='" + getAuthor() + "'" +
+            ", publisher='" + getPublisher() + "'" +
+            ", publishYear=" + getPublishYear() +
+            ", createdAt='" + getCreatedAt() + "'" +
+            ", count=" + getCount() +
+            "}";
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.dadikovi.service.dto;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+
+/**
+ * A named, keyset paginated query of books, one of the queries of a multi-query request.
+ */
+public class BookQueryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    private String name;
+
+    private BookCriteria criteria;
+
+    private Long after;
+
+    private Integer size;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BookCriteria getCriteria() {
+        return criteria;
+    }
+
+    public void setCriteria(BookCriteria criteria) {
+        this.criteria = criteria;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public void setAfter(Long after) {
+        this.after = after;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BookQueryDTO{" +
+            "name='" + getName() + "'" +
+            ", criteria=" + getCriteria() +
+            ", after=" + getAfter() +
+            ", size=" + getSize() +
+            "}";
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.dadikovi.service.dto;
+
+import io.github.dadikovi.domain.Book;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The result of one of the queries of a multi-query request.
+ */
+public class BookQueryResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The outcome of a query.
+     */
+    public enum Status {
+        /**
+         * The query has been executed, the books are in the result.
+         */
+        OK,
+        /**
+         * The query is invalid, for example it has an operator which can not use an index.
+         */
+        BAD_REQUEST,
+        /**
+         * The query has not finished before its deadline.
+         */
+        TIMEOUT,
+        /**
+         * The query has not been started, as there are too many queries waiting to be executed.
+         */
+        REJECTED,
+        /**
+         * The query has failed.
+         */
+        FAILED
+    }
+
+    private String name;
+
+    private Status status;
+
+    private List<Book> books;
+
+    private boolean hasNext;
+
+    private String error;
+
+    public static BookQueryResultDTO ok(String name, List<Book> books, boolean hasNext) {
+        BookQueryResultDTO result = new BookQueryResultDTO();
+        result.setName(name);
+        result.setStatus(Status.OK);
+        result.setBooks(books);
+        result.setHasNext(hasNext);
+        return result;
+    }
+
+    public static BookQueryResultDTO failed(String name, Status status, String error) {
+        BookQueryResultDTO result = new BookQueryResultDTO();
+        result.setName(name);
+        result.setStatus(status);
+        result.setError(error);
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<Book> books) {
+        this.books = books;
+    }
+
+    /**
+     * @return whether there are more books after the returned ones, they can be queried with the id of the last book.
+     */
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BookQueryResultDTO{" +
+            "name='" + getName() + "'" +
+            ", status=" + getStatus() +
+            ", books=" + (getBooks() == null ? null : getBooks().size()) +
+            ", hasNext=" + isHasNext() +
+            ", error='" + getError() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Data Transfer Objects.
+ */
+package io.github.dadikovi.service.dto;
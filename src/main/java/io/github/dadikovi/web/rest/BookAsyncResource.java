@@ -0,0 +1,317 @@
+package io.github.dadikovi.web.rest;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.service.dto.BookCriteria;
+import io.github.dadikovi.web.rest.vm.BookLookupVM;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.validation.Valid;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * REST controller offering the endpoints of {@link BookResource} asynchronously, under {@code /api/async}.
+ * <p>
+ * The thread of the servlet container is released as soon as the request is handed over to the
+ * {@code bookReadExecutor} or to the {@code bookWriteExecutor}, which call the {@link BookResource} endpoint,
+ * in its transaction, with the security context and the request attributes of the request.
+ * <p>
+ * A request which can not be queued, or which is not processed in time, is answered with {@code 503 (Service Unavailable)}.
+ * A timed out read is interrupted. A timed out write is not, so it may still be committed.
+ * <p>
+ * Once the request has timed out, its response is completed by the servlet container, and may be recycled for another
+ * request. A request still waiting in the queue is then not processed anymore, and a read which is still running gets
+ * an exception when it accesses the response, through the {@link TimedOutResponse}. Its result is dropped.
+ */
+@RestController
+@RequestMapping("/api/async")
+public class BookAsyncResource {
+
+    private final Logger log = LoggerFactory.getLogger(BookAsyncResource.class);
+
+    private final BookResource bookResource;
+
+    private final AsyncTaskExecutor bookReadExecutor;
+
+    private final AsyncTaskExecutor bookWriteExecutor;
+
+    private final long timeoutMillis;
+
+    public BookAsyncResource(BookResource bookResource, @Qualifier("bookReadExecutor") AsyncTaskExecutor bookReadExecutor,
+                             @Qualifier("bookWriteExecutor") AsyncTaskExecutor bookWriteExecutor,
+                             ApplicationProperties applicationProperties) {
+        this.bookResource = bookResource;
+        this.bookReadExecutor = bookReadExecutor;
+        this.bookWriteExecutor = bookWriteExecutor;
+        this.timeoutMillis = applicationProperties.getAsyncRequests().getTimeout().toMillis();
+    }
+
+    /**
+     * {@code POST  /async/books} : Create a new book, see {@link BookResource#createBook(Book)}.
+     */
+    @PostMapping("/books")
+    @ApiOperation("Create a new book asynchronously.")
+    public DeferredResult<ResponseEntity<Book>> createBook(@ApiParam(
+        name = "book",
+        type = "Book",
+        value = "The book to be created."
+    ) @RequestBody Book book) {
+        log.debug("REST request to save Book asynchronously : {}", book);
+        return write(() -> bookResource.createBook(book));
+    }
+
+    /**
+     * {@code PUT  /async/books} : Updates an existing book, see {@link BookResource#updateBook(Book)}.
+     */
+    @PutMapping("/books")
+    @ApiOperation("Updates an existing book asynchronously.")
+    public DeferredResult<ResponseEntity<Book>> updateBook(@ApiParam(
+        name = "book",
+        type = "Book",
+        value = "The id of this book will identify to book which should be updated. It will be updated to match the given attributes of this parameter."
+    ) @RequestBody Book book) {
+        log.debug("REST request to update Book asynchronously : {}", book);
+        return write(() -> bookResource.updateBook(book));
+    }
+
+    /**
+     * {@code GET  /async/books-filtered} : get a page of the books filtered by the provided attribute values,
+     * see {@link BookResource#getAllBooksByExample(Book, Long, Integer, Set, WebRequest)}.
+     */
+    @GetMapping("/books-filtered")
+    @ApiOperation(value = "Gets a page of the books which are matching with the provided example asynchronously.", response = Book.class, responseContainer = "List")
+    public DeferredResult<ResponseEntity<?>> getAllBooksByExample(@ApiParam(
+        name = "book",
+        type = "Book",
+        value = "The example which will be the param of the query-by-example query."
+    ) @Valid Book book, @RequestParam(required = false) Long after, @RequestParam(required = false) Integer size,
+        @RequestParam(required = false) Set<String> fields, WebRequest webRequest) {
+        log.debug("REST request to get a page of filtered Books asynchronously after {} : {}", after, book);
+        return read(webRequest, request -> bookResource.getAllBooksByExample(book, after, size, fields, request));
+    }
+
+    /**
+     * {@code GET  /async/books} : get a page of the books, see {@link BookResource#getAllBooks(BookCriteria, Long, Integer, Set, WebRequest)}.
+     */
+    @GetMapping("/books")
+    @ApiOperation(value = "Gets a page of the books matching the criteria, ordered by their ids, asynchronously.", response = Book.class, responseContainer = "List")
+    public DeferredResult<ResponseEntity<?>> getAllBooks(@ApiParam(
+        name = "criteria",
+        type = "BookCriteria",
+        value = "The filters of the books, see GET /api/books."
+    ) BookCriteria criteria, @RequestParam(required = false) Long after, @RequestParam(required = false) Integer size,
+        @RequestParam(required = false) Set<String> fields, WebRequest webRequest) {
+        log.debug("REST request to get a page of Books by criteria asynchronously after {} : {}", after, criteria);
+        return read(webRequest, request -> bookResource.getAllBooks(criteria, after, size, fields, request));
+    }
+
+    /**
+     * {@code GET  /async/books?ids=:ids} : get the books with the given ids, see {@link BookResource#getBooksById(List, WebRequest)}.
+     */
+    @GetMapping(value = "/books", params = "ids")
+    @ApiOperation("Gets the books with the given ids asynchronously.")
+    public DeferredResult<ResponseEntity<BookLookupVM>> getBooksById(@ApiParam(
+        name = "ids",
+        type = "String",
+        value = "Comma separated list of the ids of the required books."
+    ) @RequestParam List<Long> ids, WebRequest webRequest) {
+        log.debug("REST request to get {} Books by id asynchronously", ids.size());
+        return read(webRequest, request -> bookResource.getBooksById(ids, request));
+    }
+
+    /**
+     * {@code GET  /async/books/:id} : get the "id" book, see {@link BookResource#getBook(Long, WebRequest)}.
+     */
+    @GetMapping("/books/{id}")
+    @ApiOperation(value = "Gets a given book by its id asynchronously.", response = Book.class)
+    public DeferredResult<ResponseEntity<?>> getBook(@ApiParam(
+        name = "id",
+        type = "Long",
+        value = "The ID of the required book."
+    ) @PathVariable Long id, WebRequest webRequest) {
+        log.debug("REST request to get Book asynchronously : {}", id);
+        return read(webRequest, request -> bookResource.getBook(id, request));
+    }
+
+    /**
+     * {@code DELETE  /async/books/:id} : delete the "id" book, see {@link BookResource#deleteBook(Long)}.
+     */
+    @DeleteMapping("/books/{id}")
+    @ApiOperation("Deletes a given book by its id asynchronously.")
+    public DeferredResult<ResponseEntity<Void>> deleteBook(@ApiParam(
+        name = "id",
+        type = "Long",
+        value = "The ID of the book to delete."
+    ) @PathVariable Long id) {
+        log.debug("REST request to delete Book asynchronously : {}", id);
+        return write(() -> bookResource.deleteBook(id));
+    }
+
+    private <T> DeferredResult<T> read(WebRequest webRequest, ReadEndpoint<T> endpoint) {
+        ServletWebRequest servletWebRequest = (ServletWebRequest) webRequest;
+        return submit(bookReadExecutor, true, result -> endpoint.call(new ServletWebRequest(servletWebRequest.getRequest(),
+            new TimedOutResponse(servletWebRequest.getResponse(), result))));
+    }
+
+    private <T> DeferredResult<T> write(Callable<T> endpoint) {
+        return submit(bookWriteExecutor, false, result -> endpoint.call());
+    }
+
+    /**
+     * Calls the endpoint on the executor. Its result, or its exception, is processed like the one of a synchronous endpoint.
+     */
+    private <T> DeferredResult<T> submit(AsyncTaskExecutor executor, boolean interruptOnTimeout, Endpoint<T> endpoint) {
+        DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                if (result.isSetOrExpired()) {
+                    log.debug("Skipping a request which has timed out in the queue");
+                    return;
+                }
+                boolean set;
+                try {
+                    set = result.setResult(endpoint.call(result));
+                } catch (Exception e) {
+                    set = result.setErrorResult(e);
+                }
+                if (!set) {
+                    log.debug("Dropping the result of a request which has timed out");
+                }
+            });
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many requests are waiting", e);
+        }
+        result.onTimeout(() -> {
+            if (interruptOnTimeout) {
+                future.cancel(true);
+            }
+            // Not while a read is accessing the response
+            synchronized (result) {
+                result.setErrorResult(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The request has not been processed in time"));
+            }
+        });
+        result.onError(e -> {
+            synchronized (result) {
+                result.setErrorResult(e);
+            }
+        });
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface Endpoint<T> {
+
+        T call(DeferredResult<T> result) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface ReadEndpoint<T> {
+
+        T call(WebRequest webRequest) throws Exception;
+    }
+
+    /**
+     * The response of a request, as seen by the endpoint on the executor. Its status and headers are only accessed
+     * while the request has not timed out: the timeout, or an error of the request, sets the result under the same
+     * lock, so the response can not be completed, and recycled, during an access. After the timeout, an access throws an exception, which ends the
+     * read.
+     */
+    private static final class TimedOutResponse extends HttpServletResponseWrapper {
+
+        private final DeferredResult<?> result;
+
+        private TimedOutResponse(HttpServletResponse response, DeferredResult<?> result) {
+            super(response);
+            this.result = result;
+        }
+
+        @Override
+        public int getStatus() {
+            synchronized (result) {
+                checkNotTimedOut();
+                return super.getStatus();
+            }
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            synchronized (result) {
+                checkNotTimedOut();
+                super.setStatus(sc);
+            }
+        }
+
+        @Override
+        public String getHeader(String name) {
+            synchronized (result) {
+                checkNotTimedOut();
+                return super.getHeader(name);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            synchronized (result) {
+                checkNotTimedOut();
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            synchronized (result) {
+                checkNotTimedOut();
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            synchronized (result) {
+                checkNotTimedOut();
+                super.setDateHeader(name, date);
+            }
+        }
+
+        @Override
+        public void addDateHeader(String name, long date) {
+            synchronized (result) {
+                checkNotTimedOut();
+                super.addDateHeader(name, date);
+            }
+        }
+
+        private void checkNotTimedOut() {
+            if (result.isSetOrExpired()) {
+                throw new IllegalStateException("The request has timed out, its response may belong to another one");
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package io.github.dadikovi.web.rest;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookReactiveRepository;
+import io.github.dadikovi.security.jwt.JWTFilter;
+import io.github.dadikovi.security.jwt.TokenProvider;
+import io.github.dadikovi.service.CatalogueVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reactive handler of the read endpoints of the books, see {@link BookResource} for their servlet variant.
+ * <p>
+ * It is served by {@link io.github.dadikovi.config.ReactiveConfiguration} on a few event loop threads, with the books
+ * read by the {@link BookReactiveRepository}: no thread waits for the database or for a slow client. The export is
+ * written as newline delimited JSON, and the next page of the books is only read when the client has taken the previous one.
+ * <p>
+ * The endpoints need the same JWT as the servlet ones, and answer the same entity tags.
+ */
+public class BookReactiveHandler {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final Logger log = LoggerFactory.getLogger(BookReactiveHandler.class);
+
+    private final BookReactiveRepository bookReactiveRepository;
+
+    private final CatalogueVersionService catalogueVersionService;
+
+    private final TokenProvider tokenProvider;
+
+    private final ApplicationProperties applicationProperties;
+
+    public BookReactiveHandler(BookReactiveRepository bookReactiveRepository, CatalogueVersionService catalogueVersionService,
+                               TokenProvider tokenProvider, ApplicationProperties applicationProperties) {
+        this.bookReactiveRepository = bookReactiveRepository;
+        this.catalogueVersionService = catalogueVersionService;
+        this.tokenProvider = tokenProvider;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * @return the routes of the endpoints, behind the JWT check.
+     */
+    public RouterFunction<ServerResponse> router() {
+        return RouterFunctions.route()
+            .GET("/api/books/export", this::exportBooks)
+            .GET("/api/books/{id}", this::getBook)
+            .GET("/api/books", this::getAllBooks)
+            .filter(this::authenticated)
+            .build();
+    }
+
+    /**
+     * {@code GET  /books/:id} : get the "id" book.
+     *
+     * @param request the request, with the id of the book in its path.
+     * @return the response with status {@code 200 (OK)} and with body the book, or with status {@code 404 (Not Found)},
+     * or with status {@code 304 (Not Modified)} if the book has not changed since the entity tag in the {@code If-None-Match} header.
+     */
+    public Mono<ServerResponse> getBook(ServerRequest request) {
+        Long id;
+        try {
+            id = Long.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return badRequest("The id must be a number");
+        }
+        log.debug("Reactive request to get Book : {}", id);
+        String eTag = catalogueVersionService.bookETag(id);
+        if (notModified(request, eTag)) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return bookReactiveRepository.findById(id)
+            .flatMap(book -> ServerResponse.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).bodyValue(book))
+            .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    /**
+     * {@code GET  /books} : get a page of the books, ordered by their ids.
+     *
+     * @param request the request, with the optional {@code after} and {@code size} query parameters.
+     * @return the response with status {@code 200 (OK)} and the page of books in body,
+     * and with a {@code Link} header pointing to the next page if there is one,
+     * or with status {@code 304 (Not Modified)} if the catalogue has not changed since the entity tag in the {@code If-None-Match} header.
+     */
+    public Mono<ServerResponse> getAllBooks(ServerRequest request) {
+        Long after;
+        int size;
+        try {
+            after = request.queryParam("after").map(Long::valueOf).orElse(null);
+            size = pageSize(request.queryParam("size").map(Integer::valueOf));
+        } catch (IllegalArgumentException e) {
+            return badRequest("The after and size parameters must be positive numbers");
+        }
+        log.debug("Reactive request to get a page of Books after {}", after);
+        String eTag = catalogueVersionService.catalogueETag();
+        if (notModified(request, eTag)) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        // One more book is read to know if there is a next page
+        return bookReactiveRepository.findAllAfter(after, size + 1).collectList().flatMap(books -> {
+            ServerResponse.BodyBuilder response = ServerResponse.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON);
+            List<Book> page = books;
+            if (books.size() > size) {
+                page = books.subList(0, size);
+                String next = UriComponentsBuilder.fromUri(request.uri())
+                    .replaceQueryParam("after", page.get(size - 1).getId())
+                    .replaceQueryParam("size", size)
+                    .toUriString();
+                response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.bodyValue(page);
+        });
+    }
+
+    /**
+     * {@code GET  /books/export} : export every book as newline delimited JSON.
+     *
+     * @param request the request.
+     * @return the response with status {@code 200 (OK)}, streaming the books as the client reads them.
+     */
+    public Mono<ServerResponse> exportBooks(ServerRequest request) {
+        log.debug("Reactive request to export all Books");
+        return ServerResponse.ok()
+            .contentType(NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books.ndjson\"")
+            .body(bookReactiveRepository.findAll(applicationProperties.getReactive().getExportPageSize()), Book.class);
+    }
+
+    private Mono<ServerResponse> authenticated(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        String bearerToken = request.headers().asHttpHeaders().getFirst(JWTFilter.AUTHORIZATION_HEADER);
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ") && tokenProvider.validateToken(bearerToken.substring(7))) {
+            return next.handle(request);
+        }
+        return ServerResponse.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    private int pageSize(Optional<Integer> size) {
+        ApplicationProperties.Pagination pagination = applicationProperties.getPagination();
+        if (!size.isPresent()) {
+            return pagination.getDefaultSize();
+        }
+        if (size.get() < 1) {
+            throw new IllegalArgumentException("The page size must be positive");
+        }
+        return Math.min(size.get(), pagination.getMaxSize());
+    }
+
+    private static boolean notModified(ServerRequest request, String eTag) {
+        return request.headers().asHttpHeaders().getIfNoneMatch().contains(eTag);
+    }
+
+    private static Mono<ServerResponse> badRequest(String message) {
+        return ServerResponse.badRequest().contentType(MediaType.TEXT_PLAIN).bodyValue(message);
+    }
+}
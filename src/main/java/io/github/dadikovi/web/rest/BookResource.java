@@ -1,9 +1,30 @@
 package io.github.dadikovi.web.rest;
 
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.config.BinaryFormatsConfiguration;
 import io.github.dadikovi.config.ShelfChangedSender;
 import io.github.dadikovi.domain.Book;
 import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.service.BookCompletionService;
+import io.github.dadikovi.service.BookExportService;
+import io.github.dadikovi.service.BookLookupService;
+import io.github.dadikovi.service.BookMultiQueryService;
+import io.github.dadikovi.service.BookPageQuery;
+import io.github.dadikovi.service.BookProjectionService;
+import io.github.dadikovi.service.BookReadService;
+import io.github.dadikovi.service.BookReadService.BookRead;
+import io.github.dadikovi.service.BookSearchService;
+import io.github.dadikovi.service.CatalogueVersionService;
+import io.github.dadikovi.service.dto.BookCompletionDTO;
+import io.github.dadikovi.service.dto.BookCriteria;
+import io.github.dadikovi.service.dto.BookDTO;
+import io.github.dadikovi.service.dto.BookQueryDTO;
+import io.github.dadikovi.service.dto.BookQueryResultDTO;
 import io.github.dadikovi.web.rest.errors.BadRequestAlertException;
+import io.github.dadikovi.web.rest.vm.BookLookupVM;
+import io.github.dadikovi.web.rest.vm.BookQueriesVM;
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import io.swagger.annotations.ApiOperation;
@@ -11,8 +32,15 @@ import io.swagger.annotations.ApiParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,13 +49,27 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * REST controller for managing {@link io.github.dadikovi.domain.Book}.
@@ -41,6 +83,19 @@ public class BookResource {
 
     private static final String ENTITY_NAME = "libraryShelfBook";
 
+    private static final String EXPORT_FORMAT_NDJSON = "ndjson";
+
+    private static final String EXPORT_FORMAT_CSV = "csv";
+
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson;charset=UTF-8";
+
+    private static final String CSV_CONTENT_TYPE = "text/csv;charset=UTF-8";
+
+    /**
+     * Clients may keep the books, but have to revalidate them with their entity tag before every use.
+     */
+    private static final CacheControl REVALIDATED_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -48,9 +103,37 @@ public class BookResource {
 
     private final ShelfChangedSender shelfChangedSender;
 
-    public BookResource( BookRepository bookRepository, ShelfChangedSender shelfChangedSender ) {
+    private final ApplicationProperties applicationProperties;
+
+    private final BookExportService bookExportService;
+
+    private final CatalogueVersionService catalogueVersionService;
+
+    private final BookLookupService bookLookupService;
+
+    private final BookMultiQueryService bookMultiQueryService;
+
+    private final BookReadService bookReadService;
+
+    private final BookSearchService bookSearchService;
+
+    private final BookCompletionService bookCompletionService;
+
+    public BookResource( BookRepository bookRepository, ShelfChangedSender shelfChangedSender, ApplicationProperties applicationProperties,
+                         BookExportService bookExportService, CatalogueVersionService catalogueVersionService,
+                         BookLookupService bookLookupService, BookMultiQueryService bookMultiQueryService,
+                         BookReadService bookReadService, BookSearchService bookSearchService,
+                         BookCompletionService bookCompletionService ) {
         this.bookRepository = bookRepository;
         this.shelfChangedSender = shelfChangedSender;
+        this.applicationProperties = applicationProperties;
+        this.bookExportService = bookExportService;
+        this.catalogueVersionService = catalogueVersionService;
+        this.bookLookupService = bookLookupService;
+        this.bookMultiQueryService = bookMultiQueryService;
+        this.bookReadService = bookReadService;
+        this.bookSearchService = bookSearchService;
+        this.bookCompletionService = bookCompletionService;
     }
 
     /**
@@ -100,59 +183,323 @@ public class BookResource {
         if (book.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
+        // The merge below overwrites the managed book, so its previous state is copied. It is read from the database,
+        // and can not change until the commit; if the book does not exist, the caches evict everything it may affect
+        Book previous = bookRepository.findByIdForUpdate(book.getId()).map(BookResource::copyOf).orElse(null);
         Book result = bookRepository.save(book);
-        shelfChangedSender.updated(book);
+        shelfChangedSender.updated(book, previous);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, book.getId().toString()))
             .body(result);
     }
 
     /**
-     * {@code GET  /books-filtered} : get all the books filtered by the provided attribute values.
+     * {@code GET  /books-filtered} : get a page of the books filtered by the provided attribute values.
      *
      * @param book the example which will be the param of the query by example query
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the filtered list of books in body.
+     * @param after the id of the last book of the previous page.
+     * @param size the maximum number of books on the page.
+     * @param fields the fields of the books to return, every field if it is not given.
+     * @param webRequest the current request, used for the conditional request handling.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the filtered page of books in body,
+     * and with a {@code Link} header pointing to the next page if there is one,
+     * or with status {@code 304 (Not Modified)} if the catalogue has not changed since the entity tag in the {@code If-None-Match} header.
      */
     @GetMapping("/books-filtered")
-    @ApiOperation("Gets all books which are matching with the provided example.")
-    public List<Book> getAllBooksByExample(@ApiParam(
+    @ApiOperation(value = "Gets a page of the books which are matching with the provided example.", response = Book.class, responseContainer = "List")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ResponseEntity<?> getAllBooksByExample(@ApiParam(
         name = "book",
         type = "Book",
         value = "The example which will be the param of the query-by-example query. "
         + "A book will be returned if and only if all of the field values equal with the field values of this parameter."
-    ) @Valid Book book) {
-        log.debug("REST request to get filtered Book : {}", book);
-        return bookRepository.findAll(Example.of(book));
+    ) @Valid Book book, @ApiParam(
+        name = "after",
+        type = "Long",
+        value = "The id of the last book of the previous page. Omit it to get the first page."
+    ) @RequestParam(required = false) Long after, @ApiParam(
+        name = "size",
+        type = "Integer",
+        value = "The maximum number of books on the page."
+    ) @RequestParam(required = false) Integer size, @ApiParam(
+        name = "fields",
+        type = "String",
+        value = "Comma separated list of the fields to return, for example id,title,count. Omit it to get every field."
+    ) @RequestParam(required = false) Set<String> fields, WebRequest webRequest) {
+        log.debug("REST request to get a page of filtered Books after {} : {}", after, book);
+        return getPage(bookReadService.createPageQuery(book, after, pageSize(size), fields), webRequest);
     }
 
     /**
-     * {@code GET  /books} : get all the books.
+     * {@code GET  /books} : get a page of the books.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of books in body.
+     * @param criteria the criteria which the requested books should match.
+     * @param after the id of the last book of the previous page.
+     * @param size the maximum number of books on the page.
+     * @param fields the fields of the books to return, every field if it is not given.
+     * @param webRequest the current request, used for the conditional request handling.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of books in body,
+     * and with a {@code Link} header pointing to the next page if there is one,
+     * or with status {@code 304 (Not Modified)} if the catalogue has not changed since the entity tag in the {@code If-None-Match} header.
      */
     @GetMapping("/books")
-    @ApiOperation("Gets all books.")
-    public List<Book> getAllBooks() {
-        log.debug("REST request to get all Books");
-        return bookRepository.findAll();
+    @ApiOperation(value = "Gets a page of the books matching the criteria, ordered by their ids.", response = Book.class, responseContainer = "List")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ResponseEntity<?> getAllBooks(@ApiParam(
+        name = "criteria",
+        type = "BookCriteria",
+        value = "The filters of the books, for example publishYear.greaterThanOrEqual=1990&author.in=Tolstoy,Adams&title.startsWith=War. "
+        + "Only the operators which can use an index are supported: equals, in, specified, greaterThan(OrEqual), lessThan(OrEqual) and startsWith."
+    ) BookCriteria criteria, @ApiParam(
+        name = "after",
+        type = "Long",
+        value = "The id of the last book of the previous page. Omit it to get the first page."
+    ) @RequestParam(required = false) Long after, @ApiParam(
+        name = "size",
+        type = "Integer",
+        value = "The maximum number of books on the page."
+    ) @RequestParam(required = false) Integer size, @ApiParam(
+        name = "fields",
+        type = "String",
+        value = "Comma separated list of the fields to return, for example id,title,count. Omit it to get every field."
+    ) @RequestParam(required = false) Set<String> fields, WebRequest webRequest) {
+        log.debug("REST request to get a page of Books by criteria after {} : {}", after, criteria);
+        int pageSize = pageSize(size);
+        BookPageQuery query;
+        try {
+            query = bookReadService.createPageQuery(criteria, after, pageSize, fields);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "criteriainvalid");
+        }
+        return getPage(query, webRequest);
+    }
+
+    /**
+     * {@code GET  /books?ids=:ids} : get the books with the given ids.
+     *
+     * @param ids the ids of the books to retrieve.
+     * @param webRequest the current request, used for the conditional request handling.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the found books in the order of the ids and the missing ids,
+     * or with status {@code 400 (Bad Request)} if there are too many ids,
+     * or with status {@code 304 (Not Modified)} if the catalogue has not changed since the entity tag in the {@code If-None-Match} header.
+     */
+    @GetMapping(value = "/books", params = "ids")
+    @ApiOperation("Gets the books with the given ids.")
+    @Transactional(readOnly = true)
+    public ResponseEntity<BookLookupVM> getBooksById(@ApiParam(
+        name = "ids",
+        type = "String",
+        value = "Comma separated list of the ids of the required books."
+    ) @RequestParam List<Long> ids, WebRequest webRequest) {
+        log.debug("REST request to get {} Books by id", ids.size());
+        if (webRequest.checkNotModified(variantETag(catalogueVersionService.catalogueETag(), binaryMediaType(webRequest), false))) {
+            // The ETag header and the 304 status have been set
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATED_CACHE_CONTROL).headers(varyHeaders()).body(lookup(ids));
+    }
+
+    /**
+     * {@code POST  /books/lookup} : get the books with the given ids, for lists of ids which are too long for a query string.
+     *
+     * @param ids the ids of the books to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the found books in the order of the ids and the missing ids,
+     * or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @PostMapping("/books/lookup")
+    @ApiOperation("Gets the books with the given ids.")
+    @Transactional(readOnly = true)
+    public ResponseEntity<BookLookupVM> lookupBooks(@ApiParam(
+        name = "ids",
+        type = "List",
+        value = "The ids of the required books."
+    ) @RequestBody List<Long> ids) {
+        log.debug("REST request to look up {} Books by id", ids.size());
+        return ResponseEntity.ok(lookup(ids));
+    }
+
+    /**
+     * {@code GET  /_search/books?query=:query} : search the books by the words of their titles, authors and publishers.
+     *
+     * @param query the words to search for, any of them may match.
+     * @param size the maximum number of books to return.
+     * @param webRequest the current request, used for the conditional request handling.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the best matching books, the best one first,
+     * or with status {@code 503 (Service Unavailable)} if the search index is not loaded,
+     * or with status {@code 304 (Not Modified)} if the catalogue has not changed since the entity tag in the {@code If-None-Match} header.
+     */
+    @GetMapping("/_search/books")
+    @ApiOperation(value = "Searches the books by the words of their titles, authors and publishers, ranked by relevance.",
+        response = Book.class, responseContainer = "List")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<Book>> searchBooks(@ApiParam(
+        name = "query",
+        type = "String",
+        value = "The words to search for, for example crime dostoevsky. The case and the accents are ignored."
+    ) @RequestParam String query, @ApiParam(
+        name = "size",
+        type = "Integer",
+        value = "The maximum number of books to return."
+    ) @RequestParam(required = false) Integer size, WebRequest webRequest) {
+        log.debug("REST request to search Books for : {}", query);
+        if (!bookSearchService.isServing()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The search index has not been loaded");
+        }
+        if (webRequest.checkNotModified(variantETag(catalogueVersionService.catalogueETag(), binaryMediaType(webRequest), false))) {
+            // The ETag header and the 304 status have been set
+            return null;
+        }
+        int searchSize = Math.min(pageSize(size), applicationProperties.getSearch().getMaxSize());
+        return ResponseEntity.ok().cacheControl(REVALIDATED_CACHE_CONTROL).headers(varyHeaders())
+            .body(bookSearchService.search(query, searchSize));
+    }
+
+    /**
+     * {@code GET  /_autocomplete/books?prefix=:prefix} : complete a typed prefix with the titles and the authors of the books.
+     *
+     * @param prefix the typed prefix.
+     * @param field the attribute to complete, {@code title} or {@code author}, both if it is not given.
+     * @param size the maximum number of completions.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the completions, the one of the most copies first,
+     * or with status {@code 400 (Bad Request)} if the field is invalid,
+     * or with status {@code 503 (Service Unavailable)} if the autocomplete is not loaded.
+     */
+    @GetMapping("/_autocomplete/books")
+    @ApiOperation(value = "Completes a typed prefix with the titles and the authors of the most copies.",
+        response = BookCompletionDTO.class, responseContainer = "List")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<List<BookCompletionDTO>> autocompleteBooks(@ApiParam(
+        name = "prefix",
+        type = "String",
+        value = "The typed prefix, for example war and. The case and the accents are ignored."
+    ) @RequestParam String prefix, @ApiParam(
+        name = "field",
+        type = "String",
+        value = "The attribute to complete, title or author. Omit it to complete both."
+    ) @RequestParam(required = false) String field, @ApiParam(
+        name = "size",
+        type = "Integer",
+        value = "The maximum number of completions."
+    ) @RequestParam(required = false) Integer size) {
+        log.debug("REST request to complete Books for : {}", prefix);
+        BookCompletionDTO.Field completedField = null;
+        if (field != null) {
+            try {
+                completedField = BookCompletionDTO.Field.valueOf(field.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException("The field must be title or author", ENTITY_NAME, "fieldinvalid");
+            }
+        }
+        if (!bookCompletionService.isServing()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The autocomplete has not been loaded");
+        }
+        int maxSize = applicationProperties.getAutocomplete().getMaxSize();
+        if (size != null && size < 1) {
+            throw new BadRequestAlertException("The page size must be positive", ENTITY_NAME, "pagesizeinvalid");
+        }
+        return ResponseEntity.ok(bookCompletionService.complete(prefix, completedField, size == null ? maxSize : Math.min(size, maxSize)));
+    }
+
+    /**
+     * {@code POST  /books/queries} : execute several book queries in parallel.
+     *
+     * @param queries the named queries, each one with its criteria and keyset pagination.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the results of the queries in their order,
+     * each one with its own status, or with status {@code 400 (Bad Request)} if there are no queries, too many of them, or one without a name.
+     */
+    @PostMapping("/books/queries")
+    @ApiOperation("Executes several book queries in parallel.")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<List<BookQueryResultDTO>> queryBooks(@ApiParam(
+        name = "queries",
+        type = "List",
+        value = "The named queries. The queries are executed in parallel, each one with its own deadline from its start, "
+        + "and the result of each query has its own status."
+    ) @Valid @RequestBody BookQueriesVM queriesVM) {
+        List<BookQueryDTO> queries = queriesVM.getQueries();
+        log.debug("REST request to execute {} Book queries", queries.size());
+        if (queries.size() > applicationProperties.getMultiQuery().getMaxQueries()) {
+            throw new BadRequestAlertException("At most " + applicationProperties.getMultiQuery().getMaxQueries() + " queries can be executed at once",
+                ENTITY_NAME, "toomanyqueries");
+        }
+        for (BookQueryDTO query : queries) {
+            query.setSize(pageSize(query.getSize()));
+        }
+        return ResponseEntity.ok(bookMultiQueryService.findAll(queries));
+    }
+
+    /**
+     * {@code GET  /books/export} : export every book.
+     * <p>
+     * The books are written to the response as they are read from the database, so the whole catalogue can be
+     * exported without holding it in memory.
+     *
+     * @param format the format of the export, {@code ndjson} (newline delimited JSON) or {@code csv}.
+     * @param response the response to write the books to.
+     * @throws IOException if the books could not be written.
+     */
+    @GetMapping("/books/export")
+    @ApiOperation("Exports every book.")
+    @Transactional(readOnly = true)
+    public void exportBooks(@ApiParam(
+        name = "format",
+        type = "String",
+        value = "The format of the export: ndjson (newline delimited JSON, the default) or csv. "
+        + "The CSV has the layout of the Liquibase fake data, so it can be loaded back."
+    ) @RequestParam(defaultValue = EXPORT_FORMAT_NDJSON) String format, HttpServletResponse response) throws IOException {
+        log.debug("REST request to export all Books as {}", format);
+        long exported;
+        if (EXPORT_FORMAT_NDJSON.equals(format)) {
+            response.setContentType(NDJSON_CONTENT_TYPE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books.ndjson\"");
+            exported = bookExportService.exportNdjson(response.getOutputStream());
+        } else if (EXPORT_FORMAT_CSV.equals(format)) {
+            response.setContentType(CSV_CONTENT_TYPE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books.csv\"");
+            exported = bookExportService.exportCsv(response.getOutputStream());
+        } else {
+            throw new BadRequestAlertException("Unknown export format", ENTITY_NAME, "exportformatinvalid");
+        }
+        log.debug("Exported {} Books", exported);
     }
 
     /**
      * {@code GET  /books/:id} : get the "id" book.
      *
      * @param id the id of the book to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the book, or with status {@code 404 (Not Found)}.
+     * @param webRequest the current request, used for the conditional request handling.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the book, or with status {@code 404 (Not Found)},
+     * or with status {@code 304 (Not Modified)} if the book has not changed since the entity tag in the {@code If-None-Match} header.
+     * The last known good book is returned, with the stale header, if the database is slow or unavailable.
      */
     @GetMapping("/books/{id}")
-    @ApiOperation("Gets a given book by its id.")
-    public ResponseEntity<Book> getBook(@ApiParam(
+    @ApiOperation(value = "Gets a given book by its id.", response = Book.class)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ResponseEntity<?> getBook(@ApiParam(
         name = "id",
         type = "Long",
         value = "The ID of the required book."
-    ) @PathVariable Long id) {
+    ) @PathVariable Long id, WebRequest webRequest) {
         log.debug("REST request to get Book : {}", id);
-        Optional<Book> book = bookRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(book);
+        // The version and the entity tag are taken before the read, so a concurrent change can not be hidden behind them
+        long version = catalogueVersionService.getCatalogueVersion();
+        String eTag = catalogueVersionService.bookETag(id);
+        MediaType binaryType = binaryMediaType(webRequest);
+        boolean cachedJson = binaryType == null && bookReadService.isJsonCached();
+        boolean gzip = cachedJson && acceptsCachedGzip(webRequest);
+        if (webRequest.checkNotModified(variantETag(eTag, binaryType, gzip))) {
+            // The ETag header and the 304 status have been set
+            return null;
+        }
+        BookRead<Optional<?>> book = bookReadService.findById(id, version, eTag, cachedJson, gzip);
+        HttpHeaders headers = varyHeaders();
+        headers.setCacheControl(REVALIDATED_CACHE_CONTROL);
+        if (book.getJson() != null) {
+            jsonHeaders(headers, gzip);
+        }
+        // A stale book is never written from the cached gzip compressed JSON
+        staleHeaders(headers, book, binaryType, false, webRequest);
+        return ResponseUtil.wrapOrNotFound(book.getValue(), headers);
     }
 
     /**
@@ -170,10 +517,223 @@ public class BookResource {
         value = "The ID of the book to delete."
     ) @PathVariable Long id) {
         log.debug("REST request to delete Book : {}", id);
+        Book previous = bookRepository.findByIdForUpdate(id).map(BookResource::copyOf).orElse(null);
         bookRepository.deleteById(id);
         Book deleted = new Book();
         deleted.setId(id);
-        shelfChangedSender.deleted(deleted);
+        shelfChangedSender.deleted(deleted, previous);
         return ResponseEntity.noContent().headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString())).build();
     }
+
+    /**
+     * Reads a keyset paginated page of books, see {@link BookReadService}. If fields are requested, only those
+     * columns are read and serialized. Nothing is read if the catalogue has not changed since the entity tag of the request.
+     * <p>
+     * If a read of the database is late or fails, the last known good page of the same request is returned instead,
+     * with its entity tag and the stale header.
+     */
+    private ResponseEntity<?> getPage(BookPageQuery query, WebRequest webRequest) {
+        // The version and the entity tag are taken before the read, so a concurrent change can not be hidden behind them
+        long version = catalogueVersionService.getCatalogueVersion();
+        String eTag = catalogueVersionService.catalogueETag();
+        MediaType binaryType = binaryMediaType(webRequest);
+        boolean cachedJson = binaryType == null && bookReadService.isJsonCached(query);
+        boolean gzip = cachedJson && acceptsCachedGzip(webRequest);
+        if (webRequest.checkNotModified(variantETag(eTag, binaryType, gzip))) {
+            // The ETag header and the 304 status have been set
+            return null;
+        }
+        Set<String> fields = query.getFields();
+        if (fields != null && (fields.isEmpty() || !BookProjectionService.FIELDS.containsAll(fields))) {
+            throw new BadRequestAlertException("Invalid fields, the valid ones are " + BookProjectionService.FIELDS, ENTITY_NAME, "fieldsinvalid");
+        }
+        Object staleKey = Arrays.asList("page", webRequest.getDescription(false), parameters(webRequest));
+        BookRead<Slice<?>> page = bookReadService.findAllAfter(query, staleKey, version, eTag, cachedJson, gzip);
+        HttpHeaders headers = nextPageHeaders(page.getValue(), page.getLastId());
+        Object body;
+        if (page.getJson() != null) {
+            body = page.getJson();
+            jsonHeaders(headers, gzip);
+        } else if (fields != null) {
+            MappingJacksonValue projection = new MappingJacksonValue(page.getValue().getContent());
+            projection.setFilters(new SimpleFilterProvider().addFilter(BookDTO.FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+            body = projection;
+        } else {
+            body = new MappingJacksonValue(page.getValue().getContent());
+        }
+        headers.addAll(varyHeaders());
+        // A stale page is never written from the cached gzip compressed JSON
+        staleHeaders(headers, page, binaryType, false, webRequest);
+        return ResponseEntity.ok().cacheControl(REVALIDATED_CACHE_CONTROL).headers(headers).body(body);
+    }
+
+    /**
+     * Marks a response answered with the last known good value, with the age of the value in seconds. Its entity tag
+     * is the one of the version it has been read at, so it is not kept by the client once the database is back.
+     */
+    private void staleHeaders(HttpHeaders headers, BookRead<?> read, MediaType binaryType, boolean gzip, WebRequest webRequest) {
+        if (!read.isStale()) {
+            return;
+        }
+        headers.set("X-" + applicationName + "-stale", Long.toString(read.getAge().getSeconds()));
+        if (webRequest instanceof ServletWebRequest && ((ServletWebRequest) webRequest).getResponse() != null) {
+            // Replaces the entity tag of the current version, which has been set by the conditional request handling
+            ((ServletWebRequest) webRequest).getResponse().setHeader(HttpHeaders.ETAG, variantETag(read.getETag(), binaryType, gzip));
+        }
+    }
+
+    /**
+     * @return the query parameters of the request, in a form which can be a part of a key.
+     */
+    private static Map<String, List<String>> parameters(WebRequest webRequest) {
+        Map<String, List<String>> parameters = new TreeMap<>();
+        webRequest.getParameterMap().forEach((name, values) -> parameters.put(name, Arrays.asList(values)));
+        return parameters;
+    }
+
+    /**
+     * Chooses the format of the response the way the message converters do: JSON, unless the most preferred type
+     * of the {@code Accept} header which one of the converters can write is a binary one.
+     *
+     * @return the binary media type of the response, or {@code null} if it is JSON.
+     */
+    private static MediaType binaryMediaType(WebRequest webRequest) {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return null;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            // The converters reject it with 406 (Not Acceptable)
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return null;
+            }
+            for (MediaType binaryType : BinaryFormatsConfiguration.MEDIA_TYPES) {
+                if (mediaType.includes(binaryType)) {
+                    return binaryType;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the response is written from the cached gzip compressed JSON, which has its own entity tag.
+     */
+    private boolean acceptsCachedGzip(WebRequest webRequest) {
+        if (!bookReadService.isGzipCached()) {
+            return false;
+        }
+        String acceptEncoding = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parameters[0].trim())) {
+                return parameters.length == 1 || !parameters[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the entity tag of the representation: every format and encoding of the same books has its own one.
+     */
+    private static String variantETag(String eTag, MediaType binaryType, boolean gzip) {
+        String variant = binaryType != null ? binaryType.getSubtype() : gzip ? "gzip" : null;
+        return variant == null ? eTag : eTag.substring(0, eTag.length() - 1) + "-" + variant + "\"";
+    }
+
+    private HttpHeaders varyHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        if (bookReadService.isGzipCached()) {
+            headers.setVary(Arrays.asList(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING));
+        } else {
+            headers.setVary(Arrays.asList(HttpHeaders.ACCEPT));
+        }
+        return headers;
+    }
+
+    /**
+     * Sets the headers of a body of cached JSON bytes. The servlet container does not compress a response which
+     * already has a {@code Content-Encoding}.
+     */
+    private static HttpHeaders jsonHeaders(HttpHeaders headers, boolean gzip) {
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return headers;
+    }
+
+    private BookLookupVM lookup(List<Long> ids) {
+        if (ids.size() > applicationProperties.getLookup().getMaxIds()) {
+            throw new BadRequestAlertException("At most " + applicationProperties.getLookup().getMaxIds() + " books can be looked up at once",
+                ENTITY_NAME, "toomanyids");
+        }
+        Map<Long, Book> found = bookLookupService.findAllById(ids);
+        List<Book> books = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long id : ids) {
+            if (id == null || !seen.add(id)) {
+                continue;
+            }
+            Book book = found.get(id);
+            if (book == null) {
+                missingIds.add(id);
+            } else {
+                books.add(book);
+            }
+        }
+        return new BookLookupVM(books, missingIds);
+    }
+
+    private int pageSize(Integer size) {
+        ApplicationProperties.Pagination pagination = applicationProperties.getPagination();
+        if (size == null) {
+            return pagination.getDefaultSize();
+        }
+        if (size < 1) {
+            throw new BadRequestAlertException("The page size must be positive", ENTITY_NAME, "pagesizeinvalid");
+        }
+        return Math.min(size, pagination.getMaxSize());
+    }
+
+    /**
+     * Creates the {@code Link} header of the next page, keeping every other query parameter of the current request.
+     */
+    private static HttpHeaders nextPageHeaders(Slice<?> page, Long lastId) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", lastId)
+                .replaceQueryParam("size", page.getSize())
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+
+    private static Book copyOf(Book book) {
+        Book copy = new Book();
+        copy.setId(book.getId());
+        copy.setTitle(book.getTitle());
+        copy.setAuthor(book.getAuthor());
+        copy.setPublisher(book.getPublisher());
+        copy.setPublishYear(book.getPublishYear());
+        copy.setCreatedAt(book.getCreatedAt());
+        copy.setCount(book.getCount());
+        return copy;
+    }
 }
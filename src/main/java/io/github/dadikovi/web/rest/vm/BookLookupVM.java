@@ -0,0 +1,54 @@
+package io.github.dadikovi.web.rest.vm;
+
+import io.github.dadikovi.domain.Book;
+
+import java.util.List;
+
+/**
+ * View Model of the result of a batch lookup of books.
+ */
+public class BookLookupVM {
+
+    private List<Book> books;
+
+    private List<Long> missingIds;
+
+    public BookLookupVM() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public BookLookupVM(List<Book> books, List<Long> missingIds) {
+        this.books = books;
+        this.missingIds = missingIds;
+    }
+
+    /**
+     * @return the found books, in the order of the requested ids.
+     */
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<Book> books) {
+        this.books = books;
+    }
+
+    /**
+     * @return the requested ids without a book, in the order they were requested.
+     */
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Long> missingIds) {
+        this.missingIds = missingIds;
+    }
+
+    @Override
+    public String toString() {
+        return "BookLookupVM{" +
+            "books=" + books +
+            ", missingIds=" + missingIds +
+            "}";
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.dadikovi.web.rest.vm;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import io.github.dadikovi.service.dto.BookQueryDTO;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * View Model of the queries of a multi-query request. It is read from and written as a plain JSON array.
+ */
+public class BookQueriesVM {
+
+    @Valid
+    @NotEmpty
+    private final List<@Valid BookQueryDTO> queries;
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public BookQueriesVM(List<BookQueryDTO> queries) {
+        this.queries = queries;
+    }
+
+    @JsonValue
+    public List<BookQueryDTO> getQueries() {
+        return queries;
+    }
+
+    @Override
+    public String toString() {
+        return "BookQueriesVM{" +
+            "queries=" + queries +
+            "}";
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.dadikovi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReplicaRoutingDataSourceTest {
+    private Connection primaryConnection;
+    private Connection firstReplicaConnection;
+    private Connection secondReplicaConnection;
+    private DataSource primary;
+    private DataSource firstReplica;
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        primaryConnection = mock(Connection.class);
+        firstReplicaConnection = mock(Connection.class);
+        secondReplicaConnection = mock(Connection.class);
+        when(firstReplicaConnection.isValid(anyInt())).thenReturn(true);
+        when(secondReplicaConnection.isValid(anyInt())).thenReturn(true);
+        primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        firstReplica = mock(DataSource.class);
+        when(firstReplica.getConnection()).thenReturn(firstReplicaConnection);
+        DataSource secondReplica = mock(DataSource.class);
+        when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+        meterRegistry = new SimpleMeterRegistry();
+        routingDataSource = new ReplicaRoutingDataSource(primary, Arrays.asList(firstReplica, secondReplica), Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void testReadWriteTransactionUsesThePrimary() throws SQLException {
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    public void testReadOnlyTransactionsUseTheReplicasInTurn() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(firstReplicaConnection);
+        assertThat(routingDataSource.getConnection()).isSameAs(secondReplicaConnection);
+        assertThat(routingDataSource.getConnection()).isSameAs(firstReplicaConnection);
+        assertThat(meterRegistry.get("datasource.routed.connections").tag("target", "replica").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFailingReplicaIsSkippedUntilItIsHealthy() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(secondReplicaConnection);
+        assertThat(routingDataSource.getConnection()).isSameAs(secondReplicaConnection);
+        assertThat(routingDataSource.getHealthyReplicas()).isEqualTo(1);
+
+        doReturn(firstReplicaConnection).when(firstReplica).getConnection();
+        routingDataSource.checkReplicas(Duration.ofSeconds(1));
+
+        assertThat(routingDataSource.getHealthyReplicas()).isEqualTo(2);
+        assertThat(routingDataSource.getConnection()).isSameAs(firstReplicaConnection);
+    }
+
+    @Test
+    public void testPrimaryIsUsedIfNoReplicaIsHealthy() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(secondReplicaConnection.isValid(anyInt())).thenReturn(false);
+        routingDataSource.checkReplicas(Duration.ofSeconds(1));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getHealthyReplicas()).isEqualTo(0);
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(meterRegistry.get("datasource.routed.connections").tag("target", "fallback").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPrimaryIsUsedWhileTheReplicasMayLag() throws SQLException {
+        routingDataSource.onShelfChanged();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    public void testConnectionWithCredentialsUsesThePrimary() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(primary.getConnection("user", "password")).thenReturn(connection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getConnection("user", "password")).isSameAs(connection);
+    }
+}
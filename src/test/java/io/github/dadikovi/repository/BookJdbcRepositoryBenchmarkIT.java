@@ -0,0 +1,117 @@
+package io.github.dadikovi.repository;
+
+import io.github.dadikovi.LibraryShelfApp;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.BookView;
+import io.github.dadikovi.service.BookQueryService;
+import io.github.dadikovi.service.dto.BookCriteria;
+import io.github.dadikovi.service.dto.PrefixStringFilter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+
+/**
+ * Benchmark of the pages read by the {@link BookJdbcRepository} and by the {@link BookRepository}.
+ * <p>
+ * Only runs with the {@code benchmark} Maven profile. The times are logged, as they depend on the machine.
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = LibraryShelfApp.class)
+@Transactional
+public class BookJdbcRepositoryBenchmarkIT {
+
+    private static final String AUTHOR = "Fyodor Dostoevsky";
+    private static final int BOOKS = 300;
+    private static final int PAGE_SIZE = 50;
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    private final Logger log = LoggerFactory.getLogger(BookJdbcRepositoryBenchmarkIT.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookJdbcRepository bookJdbcRepository;
+
+    @Autowired
+    private BookQueryService bookQueryService;
+
+    @Autowired
+    private EntityManager em;
+
+    @MockBean(name = "template")
+    private AmqpTemplate template;
+
+    @BeforeEach
+    public void initTest() {
+        for (int i = 0; i < BOOKS; i++) {
+            bookRepository.save(new Book()
+                .title((i % 2 == 0 ? "Crime and Punishment " : "The Idiot ") + i)
+                .author(AUTHOR)
+                .publisher(i % 3 == 0 ? null : "The Russian Messenger")
+                .publishYear(1866L + i % 5)
+                .createdAt(Instant.ofEpochSecond(1_000_000L * i, 1000L * i))
+                .count((long) i));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void compareJdbcAndHibernatePages() {
+        BookCriteria criteria = new BookCriteria();
+        PrefixStringFilter author = new PrefixStringFilter();
+        author.setEquals(AUTHOR);
+        criteria.setAuthor(author);
+        BookSqlCondition condition = bookQueryService.createSqlCondition(criteria);
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            readAllPagesWithHibernate(criteria);
+            readAllPagesWithJdbc(condition);
+        }
+        long hibernateNanos = 0;
+        long jdbcNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            readAllPagesWithHibernate(criteria);
+            long hibernateEnd = System.nanoTime();
+            readAllPagesWithJdbc(condition);
+            jdbcNanos += System.nanoTime() - hibernateEnd;
+            hibernateNanos += hibernateEnd - start;
+        }
+        log.info("Reading {} books in pages of {}: Hibernate {} us, JDBC {} us per round",
+            BOOKS, PAGE_SIZE, hibernateNanos / ROUNDS / 1000, jdbcNanos / ROUNDS / 1000);
+    }
+
+    private void readAllPagesWithHibernate(BookCriteria criteria) {
+        Long after = null;
+        Slice<Book> page;
+        do {
+            page = bookRepository.findAllAfter(bookQueryService.createSpecification(criteria), after, PAGE_SIZE);
+            after = page.hasContent() ? page.getContent().get(page.getNumberOfElements() - 1).getId() : null;
+            // The entities of the endpoint are not kept beyond its request
+            em.clear();
+        } while (page.hasNext());
+    }
+
+    private void readAllPagesWithJdbc(BookSqlCondition condition) {
+        Long after = null;
+        Slice<BookView> page;
+        do {
+            page = bookJdbcRepository.findAllAfter(condition, after, PAGE_SIZE);
+            after = page.hasContent() ? page.getContent().get(page.getNumberOfElements() - 1).getId() : null;
+        } while (page.hasNext());
+    }
+}
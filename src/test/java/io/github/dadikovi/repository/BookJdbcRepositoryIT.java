@@ -0,0 +1,176 @@
+package io.github.dadikovi.repository;
+
+import io.github.dadikovi.LibraryShelfApp;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.BookView;
+import io.github.dadikovi.service.BookQueryService;
+import io.github.dadikovi.service.dto.BookCriteria;
+import io.github.dadikovi.service.dto.PrefixStringFilter;
+import io.github.jhipster.service.filter.InstantFilter;
+import io.github.jhipster.service.filter.LongFilter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the {@link BookJdbcRepository}, comparing its pages with the ones of the {@link BookRepository}.
+ * The times of the two paths are compared by the {@link BookJdbcRepositoryBenchmarkIT}.
+ */
+@SpringBootTest(classes = LibraryShelfApp.class)
+@Transactional
+public class BookJdbcRepositoryIT {
+
+    private static final String AUTHOR = "Fyodor Dostoevsky";
+    private static final int BOOKS = 300;
+    private static final int PAGE_SIZE = 50;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookJdbcRepository bookJdbcRepository;
+
+    @Autowired
+    private BookQueryService bookQueryService;
+
+    @Autowired
+    private EntityManager em;
+
+    @MockBean(name = "template")
+    private AmqpTemplate template;
+
+    private final List<Book> books = new ArrayList<>();
+
+    @BeforeEach
+    public void initTest() {
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(bookRepository.save(new Book()
+                .title((i % 2 == 0 ? "Crime and Punishment " : "The Idiot ") + i)
+                .author(AUTHOR)
+                .publisher(i % 3 == 0 ? null : "The Russian Messenger")
+                .publishYear(1866L + i % 5)
+                .createdAt(Instant.ofEpochSecond(1_000_000L * i, 1000L * i))
+                .count((long) i)));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void readsTheSameBooksAsHibernate() {
+        Book book = books.get(7);
+
+        List<BookView> read = bookJdbcRepository.findAllAfter(bookQueryService.createSqlCondition(new Book().author(AUTHOR)), null, BOOKS).getContent();
+
+        assertThat(read).hasSize(BOOKS);
+        BookView view = read.get(7);
+        assertThat(view.getId()).isEqualTo(book.getId());
+        assertThat(view.getTitle()).isEqualTo(book.getTitle());
+        assertThat(view.getPublisher()).isEqualTo(book.getPublisher());
+        assertThat(view.getPublishYear()).isEqualTo(book.getPublishYear());
+        assertThat(view.getCreatedAt()).isEqualTo(book.getCreatedAt());
+        assertThat(view.getCount()).isEqualTo(book.getCount());
+        assertThat(read.get(0).getPublisher()).isNull();
+    }
+
+    @Test
+    public void criteriaSelectTheSamePagesAsTheSpecifications() {
+        BookCriteria criteria = authorCriteria();
+        PrefixStringFilter title = new PrefixStringFilter();
+        title.setStartsWith("Crime");
+        criteria.setTitle(title);
+        LongFilter publishYear = new LongFilter();
+        publishYear.setIn(Arrays.asList(1866L, 1868L, 1869L));
+        criteria.setPublishYear(publishYear);
+        assertSamePages(criteria);
+
+        criteria = authorCriteria();
+        InstantFilter createdAt = new InstantFilter();
+        createdAt.setGreaterThanOrEqual(books.get(10).getCreatedAt());
+        createdAt.setLessThan(books.get(200).getCreatedAt());
+        criteria.setCreatedAt(createdAt);
+        PrefixStringFilter publisher = new PrefixStringFilter();
+        publisher.setSpecified(true);
+        criteria.setPublisher(publisher);
+        assertSamePages(criteria);
+
+        criteria = authorCriteria();
+        LongFilter count = new LongFilter();
+        count.setEquals(42L);
+        criteria.setCount(count);
+        assertSamePages(criteria);
+    }
+
+    @Test
+    public void exampleSelectsTheSamePagesAsTheSpecification() {
+        Book example = new Book().author(AUTHOR).publishYear(1867L);
+
+        Slice<BookView> jdbc = bookJdbcRepository.findAllAfter(bookQueryService.createSqlCondition(example), books.get(100).getId(), PAGE_SIZE);
+        Slice<Book> jpa = bookRepository.findAllAfter(BookSpecifications.byExample(Example.of(example)), books.get(100).getId(), PAGE_SIZE);
+
+        assertThat(jdbc.getContent()).extracting(BookView::getId).containsExactlyElementsOf(ids(jpa.getContent()));
+        assertThat(jdbc.hasNext()).isEqualTo(jpa.hasNext());
+    }
+
+    @Test
+    public void inListsArePaddedToAPowerOfTwo() {
+        BookSqlCondition condition = BookSqlCondition.all().andIn("count", Arrays.asList(1L, 2L, 3L, null, 5L, 6L));
+
+        assertThat(condition.getSql()).isEqualTo("count in (?, ?, ?, ?, ?, ?, ?, ?)");
+        assertThat(condition.getParameters()).containsExactly(1L, 2L, 3L, 5L, 6L, 6L, 6L, 6L);
+        assertThat(BookSqlCondition.all().andIn("count", Arrays.asList(1L, 2L)).getSql()).isEqualTo("count in (?, ?)");
+    }
+
+    @Test
+    public void forEachReadsEveryBookInOrder() throws IOException {
+        List<Long> read = new ArrayList<>();
+
+        long count = bookJdbcRepository.forEach(100, book -> read.add(book.getId()));
+
+        assertThat(count).isEqualTo(read.size());
+        assertThat(read).containsAll(ids(books));
+        assertThat(read).isSorted();
+    }
+
+    private void assertSamePages(BookCriteria criteria) {
+        Long after = null;
+        boolean hasNext = true;
+        while (hasNext) {
+            Slice<BookView> jdbc = bookJdbcRepository.findAllAfter(bookQueryService.createSqlCondition(criteria), after, PAGE_SIZE);
+            Slice<Book> jpa = bookRepository.findAllAfter(bookQueryService.createSpecification(criteria), after, PAGE_SIZE);
+            assertThat(jdbc.getContent()).extracting(BookView::getId).containsExactlyElementsOf(ids(jpa.getContent()));
+            assertThat(jdbc.hasNext()).isEqualTo(jpa.hasNext());
+            hasNext = jpa.hasNext();
+            after = jpa.hasContent() ? jpa.getContent().get(jpa.getNumberOfElements() - 1).getId() : null;
+        }
+    }
+
+    private static BookCriteria authorCriteria() {
+        BookCriteria criteria = new BookCriteria();
+        PrefixStringFilter author = new PrefixStringFilter();
+        author.setEquals(AUTHOR);
+        criteria.setAuthor(author);
+        return criteria;
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).collect(Collectors.toList());
+    }
+}
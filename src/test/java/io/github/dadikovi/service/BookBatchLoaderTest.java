@@ -0,0 +1,142 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class BookBatchLoaderTest {
+    private BookRepository bookRepository;
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private BookBatchLoader bookBatchLoader;
+    private ExecutorService callers;
+
+    @BeforeEach
+    public void setup() {
+        bookRepository = mock(BookRepository.class);
+        when(bookRepository.findAllById(anyIterable()))
+            .thenAnswer(
+                invocation -> {
+                    List<Book> books = new ArrayList<>();
+                    for (Object id : invocation.<Iterable<?>>getArgument(0)) {
+                        // Even ids have no book
+                        if ((Long) id % 2 == 1) {
+                            Book book = new Book();
+                            book.setId((Long) id);
+                            books.add(book);
+                        }
+                    }
+                    return books;
+                }
+            );
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getBatchLoader().setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void destroy() {
+        callers.shutdownNow();
+        if (bookBatchLoader != null) {
+            bookBatchLoader.destroy();
+        }
+    }
+
+    @Test
+    public void testLoadsWithinTheWindowAreBatched() {
+        applicationProperties.getBatchLoader().setWindow(Duration.ofMillis(200));
+        bookBatchLoader = createBookBatchLoader();
+
+        CompletableFuture<Optional<Book>> first = load(1L);
+        CompletableFuture<Optional<Book>> second = load(2L);
+        CompletableFuture<Optional<Book>> same = load(1L);
+
+        assertThat(first.join()).map(Book::getId).contains(1L);
+        assertThat(second.join()).isEmpty();
+        assertThat(same.join()).map(Book::getId).contains(1L);
+        verify(bookRepository, times(1)).findAllById(anyIterable());
+        assertThat(meterRegistry.get("book.batch.loader.batch.size").summary().totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get("book.batch.loader.wait").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFullBatchIsLoadedBeforeTheWindowEnds() {
+        applicationProperties.getBatchLoader().setWindow(Duration.ofMinutes(1));
+        applicationProperties.getBatchLoader().setMaxBatchSize(2);
+        bookBatchLoader = createBookBatchLoader();
+
+        CompletableFuture<Optional<Book>> first = load(1L);
+        CompletableFuture<Optional<Book>> second = load(3L);
+
+        assertThat(first.join()).map(Book::getId).contains(1L);
+        assertThat(second.join()).map(Book::getId).contains(3L);
+        verify(bookRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    public void testLateBatchIsNotWaitedForBeyondTheTimeout() {
+        applicationProperties.getBatchLoader().setWindow(Duration.ofMillis(10));
+        applicationProperties.getBatchLoader().setTimeout(Duration.ofMillis(200));
+        bookBatchLoader = createBookBatchLoader();
+        CountDownLatch released = new CountDownLatch(1);
+        when(bookRepository.findAllById(anyIterable()))
+            .thenAnswer(
+                invocation -> {
+                    released.await(5, TimeUnit.SECONDS);
+                    return new ArrayList<Book>();
+                }
+            );
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(new Book()));
+
+        try {
+            assertThat(bookBatchLoader.findById(1L)).isPresent();
+        } finally {
+            released.countDown();
+        }
+        assertThat(meterRegistry.get("book.batch.loader.timeouts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDisabledLoaderReadsEveryBookOnItsOwn() {
+        applicationProperties.getBatchLoader().setEnabled(false);
+        bookBatchLoader = createBookBatchLoader();
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(new Book()));
+
+        assertThat(bookBatchLoader.findById(1L)).isPresent();
+        verify(bookRepository, never()).findAllById(anyIterable());
+    }
+
+    /**
+     * Every load needs its own thread, as it blocks until its batch is loaded.
+     */
+    private CompletableFuture<Optional<Book>> load(Long id) {
+        return CompletableFuture.supplyAsync(() -> bookBatchLoader.findById(id), callers);
+    }
+
+    private BookBatchLoader createBookBatchLoader() {
+        return new BookBatchLoader(bookRepository, mock(PlatformTransactionManager.class), applicationProperties, meterRegistry);
+    }
+}
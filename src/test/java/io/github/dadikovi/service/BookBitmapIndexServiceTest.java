@@ -0,0 +1,161 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.service.dto.BookCriteria;
+import io.github.dadikovi.service.dto.PrefixStringFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class BookBitmapIndexServiceTest {
+    private final BookQueryService bookQueryService = new BookQueryService();
+    private Map<Long, Book> database;
+    private SimpleMeterRegistry meterRegistry;
+    private BookBitmapIndexService bookBitmapIndexService;
+
+    @BeforeEach
+    public void setup() {
+        database = new TreeMap<>();
+        save(book(1L, "Tolstoy", "Messenger", 1869L));
+        save(book(2L, "Tolstoy", "Messenger", 1877L));
+        save(book(3L, "Austen", "Egerton", 1813L));
+        save(book(4L, "Tolstoy", "Egerton", 1869L));
+        save(book(5L, "Adams", "Pan", 1979L));
+
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.streamAll(anyInt())).thenAnswer(invocation -> database.values().stream());
+        BookLookupService bookLookupService = mock(BookLookupService.class);
+        when(bookLookupService.findAllById(any())).thenAnswer(invocation -> {
+            Map<Long, Book> found = new HashMap<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                if (database.containsKey(id)) {
+                    found.put(id, database.get(id));
+                }
+            }
+            return found;
+        });
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getBitmapIndex().setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        bookBitmapIndexService = new BookBitmapIndexService(bookRepository, bookLookupService, mock(PlatformTransactionManager.class),
+            applicationProperties, meterRegistry);
+        bookBitmapIndexService.onApplicationReady();
+    }
+
+    @Test
+    public void testExampleIsAnsweredByTheIntersection() {
+        Book example = new Book().author("Tolstoy").publishYear(1869L);
+
+        assertThat(findAll(example)).containsExactly(1L, 4L);
+        assertThat(meterRegistry.get("book.bitmap.index.values").tag("field", "author").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("book.bitmap.index.memory").gauge().value()).isPositive();
+    }
+
+    @Test
+    public void testCriteriaIsAnsweredByTheUnionOfTheValues() {
+        BookCriteria criteria = new BookCriteria();
+        PrefixStringFilter publisher = new PrefixStringFilter();
+        publisher.setIn(Arrays.asList("Egerton", "Pan"));
+        criteria.setPublisher(publisher);
+        LongFilter publishYear = new LongFilter();
+        publishYear.setIn(Arrays.asList(1813L, 1869L, 1979L));
+        criteria.setPublishYear(publishYear);
+
+        BookBitmapQuery query = bookBitmapIndexService.createQuery(criteria).orElseThrow(IllegalStateException::new);
+        Slice<Book> page = bookBitmapIndexService.findAllAfter(query, bookQueryService.createPredicate(criteria), null, 10);
+
+        assertThat(page.getContent()).extracting(Book::getId).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    public void testPagesAreReadAfterTheKey() {
+        Book example = new Book().author("Tolstoy");
+        BookBitmapQuery query = bookBitmapIndexService.createQuery(example).orElseThrow(IllegalStateException::new);
+
+        Slice<Book> first = bookBitmapIndexService.findAllAfter(query, bookQueryService.createPredicate(example), null, 2);
+        assertThat(first.getContent()).extracting(Book::getId).containsExactly(1L, 2L);
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<Book> second = bookBitmapIndexService.findAllAfter(query, bookQueryService.createPredicate(example), 2L, 2);
+        assertThat(second.getContent()).extracting(Book::getId).containsExactly(4L);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testIndexesAreChangedIncrementally() {
+        Book previous = database.get(1L);
+        Book updated = save(book(1L, "Austen", "Messenger", 1869L));
+        bookBitmapIndexService.onShelfChanged(new ShelfChangedMessage(ChangeType.UPDATE, updated, previous));
+        database.remove(3L);
+        bookBitmapIndexService.onShelfChanged(new ShelfChangedMessage(ChangeType.DELETE, book(3L, null, null, null)));
+        Book created = save(book(6L, "Austen", "Egerton", 1815L));
+        bookBitmapIndexService.onShelfChanged(new ShelfChangedMessage(ChangeType.CREATE, created));
+
+        assertThat(findAll(new Book().author("Tolstoy"))).containsExactly(2L, 4L);
+        assertThat(findAll(new Book().author("Austen"))).containsExactly(1L, 6L);
+        assertThat(findAll(new Book().publisher("Egerton"))).containsExactly(4L, 6L);
+    }
+
+    @Test
+    public void testChangedBooksAreCheckedAgain() {
+        // Changed in the database, but not yet in the indexes
+        save(book(2L, "Tolstoy", "Messenger", 1878L));
+
+        assertThat(findAll(new Book().author("Tolstoy").publishYear(1877L))).isEmpty();
+    }
+
+    @Test
+    public void testOtherFiltersAreNotAnswered() {
+        assertThat(bookBitmapIndexService.createQuery(new Book().author("Tolstoy").title("Anna Karenina"))).isEmpty();
+        assertThat(bookBitmapIndexService.createQuery(new Book())).isEmpty();
+
+        BookCriteria criteria = new BookCriteria();
+        PrefixStringFilter author = new PrefixStringFilter();
+        author.setStartsWith("Tol");
+        criteria.setAuthor(author);
+        assertThat(bookBitmapIndexService.createQuery(criteria)).isEmpty();
+
+        LongFilter publishYear = new LongFilter();
+        publishYear.setGreaterThan(1800L);
+        criteria.setAuthor(null);
+        criteria.setPublishYear(publishYear);
+        assertThat(bookBitmapIndexService.createQuery(criteria)).isEmpty();
+    }
+
+    private List<Long> findAll(Book example) {
+        BookBitmapQuery query = bookBitmapIndexService.createQuery(example).orElseThrow(IllegalStateException::new);
+        Slice<Book> page = bookBitmapIndexService.findAllAfter(query, bookQueryService.createPredicate(example), null, 100);
+        assertThat(page.hasNext()).isFalse();
+        return page.map(Book::getId).getContent();
+    }
+
+    private Book save(Book book) {
+        database.put(book.getId(), book);
+        return book;
+    }
+
+    private static Book book(Long id, String author, String publisher, Long publishYear) {
+        Book book = new Book().author(author).publisher(publisher).publishYear(publishYear);
+        book.setId(id);
+        return book;
+    }
+}
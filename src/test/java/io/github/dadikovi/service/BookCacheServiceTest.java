@@ -0,0 +1,79 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BookCacheServiceTest {
+    private BookBatchLoader bookBatchLoader;
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private Book book;
+
+    @BeforeEach
+    public void setup() {
+        bookBatchLoader = mock(BookBatchLoader.class);
+        applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        book = new Book();
+        book.setId(1L);
+        when(bookBatchLoader.findById(1L)).thenReturn(Optional.of(book));
+        when(bookBatchLoader.findById(2L)).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void testBookIsLoadedOnce() {
+        BookCacheService bookCacheService = new BookCacheService(bookBatchLoader, applicationProperties, meterRegistry);
+
+        assertThat(bookCacheService.findById(1L)).contains(book);
+        assertThat(bookCacheService.findById(1L)).contains(book);
+
+        verify(bookBatchLoader, times(1)).findById(1L);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "books").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "books").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMissingBookIsNotCached() {
+        BookCacheService bookCacheService = new BookCacheService(bookBatchLoader, applicationProperties, meterRegistry);
+
+        assertThat(bookCacheService.findById(2L)).isEmpty();
+        assertThat(bookCacheService.findById(2L)).isEmpty();
+
+        verify(bookBatchLoader, times(2)).findById(2L);
+    }
+
+    @Test
+    public void testChangedBookIsInvalidated() {
+        BookCacheService bookCacheService = new BookCacheService(bookBatchLoader, applicationProperties, meterRegistry);
+        bookCacheService.findById(1L);
+
+        bookCacheService.onShelfChanged(new ShelfChangedMessage(ChangeType.UPDATE, book));
+        bookCacheService.findById(1L);
+
+        verify(bookBatchLoader, times(2)).findById(1L);
+        assertThat(meterRegistry.get("book.cache.invalidations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDisabledCacheLoadsEveryTime() {
+        applicationProperties.getBookCache().setEnabled(false);
+        BookCacheService bookCacheService = new BookCacheService(bookBatchLoader, applicationProperties, meterRegistry);
+
+        bookCacheService.findById(1L);
+        bookCacheService.findById(1L);
+
+        verify(bookBatchLoader, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BookCompletionTrieTest {
+    private BookCompletionTrie trie;
+
+    @BeforeEach
+    public void setup() {
+        trie = new BookCompletionTrie(3);
+        trie.add("War and Peace", 10);
+        trie.add("Warlock", 3);
+        trie.add("Wuthering Heights", 7);
+        trie.add("Crime and Punishment", 12);
+        trie.add("Les Misérables", 5);
+        trie.add("Warrior", 1);
+        trie.add("War", 2);
+        trie.finishLoading();
+    }
+
+    @Test
+    public void testFoldIgnoresCaseAccentsAndSpaces() {
+        assertThat(BookCompletionTrie.fold("  Les   Misérables ")).isEqualTo("les miserables");
+        assertThat(BookCompletionTrie.fold("   ")).isNull();
+        assertThat(BookCompletionTrie.foldPrefix("  War  ")).isEqualTo("war ");
+    }
+
+    @Test
+    public void testCompletionsAreRankedByCopies() {
+        assertThat(values(trie.complete("w", 10))).containsExactly("War and Peace", "Wuthering Heights", "Warlock");
+        assertThat(values(trie.complete("WAR", 10))).containsExactly("War and Peace", "Warlock", "War");
+        assertThat(values(trie.complete("war", 2))).containsExactly("War and Peace", "Warlock");
+    }
+
+    @Test
+    public void testPrefixEndingInsideAnEdgeIsCompleted() {
+        assertThat(values(trie.complete("wu", 10))).containsExactly("Wuthering Heights");
+        assertThat(values(trie.complete("les mise", 10))).containsExactly("Les Misérables");
+    }
+
+    @Test
+    public void testFinishedWordIsNotCompletedToLongerWords() {
+        assertThat(values(trie.complete("war ", 10))).containsExactly("War and Peace");
+    }
+
+    @Test
+    public void testUnknownPrefixHasNoCompletions() {
+        assertThat(trie.complete("wx", 10)).isEmpty();
+        assertThat(trie.complete("war and peace and", 10)).isEmpty();
+    }
+
+    @Test
+    public void testCopiesOfTheBooksOfAValueAreSummed() {
+        trie.add("war and peace", 4);
+
+        List<BookCompletionTrie.Completion> completions = trie.complete("war a", 10);
+        assertThat(values(completions)).containsExactly("War and Peace");
+        assertThat(completions.get(0).getBooks()).isEqualTo(2);
+        assertThat(completions.get(0).getCount()).isEqualTo(14);
+        assertThat(trie.size()).isEqualTo(7);
+    }
+
+    @Test
+    public void testChangedCopiesReorderTheAncestors() {
+        trie.add("Warrior", 20);
+
+        assertThat(values(trie.complete("w", 10))).containsExactly("Warrior", "War and Peace", "Wuthering Heights");
+        assertThat(values(trie.complete("", 10))).containsExactly("Warrior", "Crime and Punishment", "War and Peace");
+    }
+
+    @Test
+    public void testRemovedValueIsNotCompleted() {
+        int nodes = trie.nodes();
+
+        trie.remove("War and Peace", 10);
+
+        assertThat(values(trie.complete("w", 10))).containsExactly("Wuthering Heights", "Warlock", "War");
+        assertThat(values(trie.complete("war ", 10))).isEmpty();
+        assertThat(trie.size()).isEqualTo(6);
+        assertThat(trie.nodes()).isLessThan(nodes);
+    }
+
+    @Test
+    public void testValueIsRemovedWithItsLastBook() {
+        trie.add("Warlock", 3);
+
+        trie.remove("Warlock", 3);
+        assertThat(values(trie.complete("warl", 10))).containsExactly("Warlock");
+
+        trie.remove("Warlock", 3);
+        assertThat(trie.complete("warl", 10)).isEmpty();
+        assertThat(values(trie.complete("warr", 10))).containsExactly("Warrior");
+    }
+
+    private static String[] values(List<BookCompletionTrie.Completion> completions) {
+        return completions.stream().map(BookCompletionTrie.Completion::getValue).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+public class BookExampleCacheServiceTest {
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger reads;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getExampleCache().setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        reads = new AtomicInteger();
+    }
+
+    @Test
+    public void testPageIsReadOnce() {
+        BookExampleCacheService cache = new BookExampleCacheService(applicationProperties, meterRegistry);
+
+        cache.findAllAfter(query(byAuthor("Tolstoy")), this::read);
+        cache.findAllAfter(query(byAuthor("Tolstoy")), this::read);
+
+        assertThat(reads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testOnlyThePagesMatchingTheChangedBookAreEvicted() {
+        BookExampleCacheService cache = new BookExampleCacheService(applicationProperties, meterRegistry);
+        cache.findAllAfter(query(byAuthor("Tolstoy")), this::read);
+        cache.findAllAfter(query(byAuthor("Adams")), this::read);
+        cache.findAllAfter(query(byAuthor("Austen")), this::read);
+
+        // Moved from Tolstoy to Adams, the books of Austen are not affected
+        Book previous = book(1L, "Tolstoy");
+        Book changed = book(1L, "adams");
+        cache.onShelfChanged(new ShelfChangedMessage(ChangeType.UPDATE, changed, previous));
+
+        cache.findAllAfter(query(byAuthor("Tolstoy")), this::read);
+        cache.findAllAfter(query(byAuthor("Adams")), this::read);
+        cache.findAllAfter(query(byAuthor("Austen")), this::read);
+        assertThat(reads.get()).isEqualTo(5);
+        assertThat(meterRegistry.get("book.example.cache.selective.evictions").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEveryPageIsEvictedIfThePreviousStateIsUnknown() {
+        BookExampleCacheService cache = new BookExampleCacheService(applicationProperties, meterRegistry);
+        cache.findAllAfter(query(byAuthor("Tolstoy")), this::read);
+        cache.findAllAfter(query(byAuthor("Austen")), this::read);
+
+        cache.onShelfChanged(new ShelfChangedMessage(ChangeType.DELETE, book(1L, null)));
+
+        cache.findAllAfter(query(byAuthor("Tolstoy")), this::read);
+        cache.findAllAfter(query(byAuthor("Austen")), this::read);
+        assertThat(reads.get()).isEqualTo(4);
+        assertThat(meterRegistry.get("book.example.cache.full.invalidations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPageReadDuringAChangeIsNotCached() {
+        BookExampleCacheService cache = new BookExampleCacheService(applicationProperties, meterRegistry);
+
+        cache.findAllAfter(
+            query(byAuthor("Tolstoy")),
+            () -> {
+                cache.onShelfChanged(new ShelfChangedMessage(ChangeType.CREATE, book(1L, "Austen")));
+                return read();
+            }
+        );
+        cache.findAllAfter(query(byAuthor("Tolstoy")), this::read);
+
+        assertThat(reads.get()).isEqualTo(2);
+    }
+
+    private Slice<Book> read() {
+        reads.incrementAndGet();
+        return new SliceImpl<>(Collections.singletonList(book(1L, "Tolstoy")), PageRequest.of(0, 20), false);
+    }
+
+    private static BookExampleQuery query(Book example) {
+        return new BookExampleQuery(example, null, 20, null);
+    }
+
+    private static Book byAuthor(String author) {
+        return book(null, author);
+    }
+
+    private static Book book(Long id, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setAuthor(author);
+        return book;
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.github.dadikovi.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class BookIdFilterServiceTest {
+    private BookRepository bookRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private BookIdFilterService bookIdFilterService;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setup() {
+        bookRepository = mock(BookRepository.class);
+        when(bookRepository.count()).thenReturn(3L);
+        when(bookRepository.streamAllIds(anyInt())).thenAnswer(invocation -> Stream.of(2L, 4L, 6L));
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIdFilter().setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        bookIdFilterService = new BookIdFilterService(bookRepository, mock(PlatformTransactionManager.class), applicationProperties, meterRegistry);
+        bookIdFilterService.onApplicationReady();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void testMissingIdIsShortCircuited() {
+        assertThat(findById(3L, false)).isEmpty();
+
+        assertThat(loads).hasValue(0);
+        assertThat(meterRegistry.get("book.id.filter.short.circuits").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.id.filter.false.positive.probability").gauge().value()).isLessThan(0.01);
+    }
+
+    @Test
+    public void testExistingIdIsLoaded() {
+        assertThat(findById(4L, true)).isPresent();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void testIdAboveTheGreatestKnownIdIsLoaded() {
+        assertThat(findById(7L, true)).isPresent();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void testCreatedIdIsLoaded() {
+        bookIdFilterService.onShelfChanged(new ShelfChangedMessage(ChangeType.CREATE, book(5L)));
+
+        assertThat(findById(5L, true)).isPresent();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void testCreatedIdDoesNotRaiseTheGreatestKnownId() {
+        // The change of 9 arrives before the change of 8, or the change of 8 is lost
+        bookIdFilterService.onShelfChanged(new ShelfChangedMessage(ChangeType.CREATE, book(9L)));
+
+        assertThat(findById(8L, true)).isPresent();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void testDeletedIdPassesUntilTheRebuild() {
+        bookIdFilterService.onShelfChanged(new ShelfChangedMessage(ChangeType.DELETE, book(4L)));
+
+        assertThat(findById(4L, false)).isEmpty();
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("book.id.filter.false.positives").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.id.filter.stale.deletions").gauge().value()).isEqualTo(1);
+
+        when(bookRepository.streamAllIds(anyInt())).thenAnswer(invocation -> Stream.of(2L, 6L));
+        bookIdFilterService.rebuild();
+
+        assertThat(findById(4L, false)).isEmpty();
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("book.id.filter.stale.deletions").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFalsePositiveProbabilityIsKept() {
+        IdBloomFilter filter = new IdBloomFilter(10_000, 0.01);
+        for (long id = 1; id <= 10_000; id++) {
+            filter.add(id);
+        }
+        int falsePositives = 0;
+        for (long id = 10_001; id <= 20_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        for (long id = 1; id <= 10_000; id++) {
+            assertThat(filter.mightContain(id)).isTrue();
+        }
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(filter.expectedFalsePositiveProbability()).isBetween(0.005, 0.015);
+    }
+
+    private Optional<Book> findById(Long id, boolean exists) {
+        return bookIdFilterService.findById(id, () -> {
+            loads.incrementAndGet();
+            return exists ? Optional.of(book(id)) : Optional.empty();
+        });
+    }
+
+    private static Book book(Long id) {
+        Book book = new Book();
+        book.setId(id);
+        return book;
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+public class BookJsonCacheServiceTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ApplicationProperties applicationProperties;
+    private CatalogueVersionService catalogueVersionService;
+    private SimpleMeterRegistry meterRegistry;
+    private BookJsonCacheService bookJsonCacheService;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getJsonCache().setEnabled(true);
+        applicationProperties.getJsonCache().setGzip(true);
+        catalogueVersionService = new CatalogueVersionService();
+        meterRegistry = new SimpleMeterRegistry();
+        bookJsonCacheService = new BookJsonCacheService(objectMapper, catalogueVersionService, applicationProperties, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void testJsonIsServedFromTheCache() throws IOException {
+        Book book = book(1L, "Война и мир");
+
+        BookJson first = findById(book);
+        BookJson second = findById(book);
+
+        assertThat(loads).hasValue(1);
+        assertThat(bytes(second.body(false))).isEqualTo(objectMapper.writeValueAsBytes(book));
+        assertThat(gunzip(bytes(second.body(true)))).isEqualTo(bytes(first.body(false)));
+        assertThat(meterRegistry.get("book.json.cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.json.cache.memory").gauge().value()).isPositive();
+    }
+
+    @Test
+    public void testGzipArrayIsAssembledFromTheBooks() throws IOException {
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            books.add(book(id, "Title " + id));
+        }
+
+        List<BookJson> json = bookJsonCacheService.toJson(books, catalogueVersionService.getCatalogueVersion());
+
+        assertThat(bytes(BookJson.array(json, false))).isEqualTo(objectMapper.writeValueAsBytes(books));
+        assertThat(gunzip(bytes(BookJson.array(json, true)))).isEqualTo(objectMapper.writeValueAsBytes(books));
+        assertThat(gunzip(bytes(BookJson.array(new ArrayList<>(), true)))).isEqualTo("[]".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testChangedBookIsSerializedAgain() {
+        findById(book(1L, "Anna Karenina"));
+
+        Book changed = book(1L, "Resurrection");
+        bookJsonCacheService.onShelfChanged(new ShelfChangedMessage(ChangeType.UPDATE, changed));
+        catalogueVersionService.onShelfChanged(new ShelfChangedMessage(ChangeType.UPDATE, changed));
+
+        assertThat(findById(changed).toString()).contains("Resurrection");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void testReadRacingWithAChangeIsNotServed() {
+        long version = catalogueVersionService.getCatalogueVersion();
+        Book changed = book(1L, "Resurrection");
+        catalogueVersionService.onShelfChanged(new ShelfChangedMessage(ChangeType.UPDATE, changed));
+        // Read before the change, stored after it
+        bookJsonCacheService.toJson(book(1L, "Anna Karenina"), version);
+
+        assertThat(findById(changed).toString()).contains("Resurrection");
+        assertThat(findById(changed).toString()).contains("Resurrection");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void testOldestEntriesAreDroppedAtTheMemoryCeiling() {
+        createSmallCache();
+        for (long id = 1; id <= 20; id++) {
+            findById(book(id, "Title " + id));
+        }
+        loads.set(0);
+
+        findById(book(20L, "Title 20"));
+        assertThat(loads).hasValue(0);
+        findById(book(1L, "Title 1"));
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("book.json.cache.size").gauge().value()).isLessThan(20);
+        assertThat(meterRegistry.get("book.json.cache.memory").gauge().value()).isEqualTo(2048);
+    }
+
+    @Test
+    public void testReadBytesOutliveTheirSegment() throws IOException {
+        createSmallCache();
+        Book first = book(1L, "Title 1");
+        cache(first);
+        BookJson read = bookJsonCacheService.findCached(1L).orElseThrow(IllegalStateException::new);
+
+        for (long id = 2; id <= 40; id++) {
+            cache(book(id, "Title " + id));
+        }
+
+        // The segment of the book has been recycled, the read copy is kept
+        assertThat(bookJsonCacheService.findCached(1L)).isEmpty();
+        assertThat(bookJsonCacheService.findCached(40L)).isPresent();
+        assertThat(bytes(read.body(false))).isEqualTo(objectMapper.writeValueAsBytes(first));
+    }
+
+    @Test
+    public void testMissingBookIsNotCached() {
+        assertThat(bookJsonCacheService.findCached(1L)).isEmpty();
+        assertThat(meterRegistry.get("book.json.cache.size").gauge().value()).isEqualTo(0);
+    }
+
+    private BookJson findById(Book book) {
+        long version = catalogueVersionService.getCatalogueVersion();
+        return bookJsonCacheService.findCached(book.getId()).orElseGet(() -> {
+            loads.incrementAndGet();
+            return bookJsonCacheService.toJson(book, version);
+        });
+    }
+
+    private void cache(Book book) {
+        bookJsonCacheService.toJson(book, catalogueVersionService.getCatalogueVersion());
+    }
+
+    /**
+     * Replaces the cache with one of four segments of 512 bytes, and a registry of its own for its meters.
+     */
+    private void createSmallCache() {
+        applicationProperties.getJsonCache().setMaxSize(DataSize.ofBytes(2048));
+        applicationProperties.getJsonCache().setSegments(4);
+        meterRegistry = new SimpleMeterRegistry();
+        bookJsonCacheService = new BookJsonCacheService(objectMapper, catalogueVersionService, applicationProperties, meterRegistry);
+    }
+
+    private static byte[] bytes(BookJson.Body body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static Book book(Long id, String title) {
+        Book book = new Book().title(title).author("Tolstoy");
+        book.setId(id);
+        return book;
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.service.dto.BookQueryDTO;
+import io.github.dadikovi.service.dto.BookQueryResultDTO;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class BookMultiQueryServiceTest {
+    private BookRepository bookRepository;
+    private ApplicationProperties applicationProperties;
+    private ThreadPoolTaskExecutor executor;
+    private BookMultiQueryService bookMultiQueryService;
+    private CountDownLatch released;
+
+    @BeforeEach
+    public void setup() {
+        bookRepository = mock(BookRepository.class);
+        released = new CountDownLatch(1);
+        // The query after the id 0 never finishes, even if it is interrupted, until the test releases it
+        doAnswer(
+            invocation -> {
+                while (released.getCount() > 0) {
+                    try {
+                        released.await();
+                    } catch (InterruptedException e) {
+                        // Keeps holding the thread
+                    }
+                }
+                return new SliceImpl<Book>(Collections.emptyList());
+            }
+        )
+            .when(bookRepository)
+            .findAllAfter(any(), eq(0L), anyInt());
+        doAnswer(invocation -> new SliceImpl<>(Collections.singletonList(new Book().title("Found")), PageRequest.of(0, 1), false))
+            .when(bookRepository)
+            .findAllAfter(any(), eq(1L), anyInt());
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getMultiQuery().setTimeout(Duration.ofMillis(200));
+        applicationProperties.getMultiQuery().setOverallTimeout(Duration.ofMillis(500));
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.initialize();
+        bookMultiQueryService =
+            new BookMultiQueryService(bookRepository, mock(BookQueryService.class), executor, mock(PlatformTransactionManager.class), applicationProperties);
+    }
+
+    @AfterEach
+    public void destroy() {
+        released.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testQueriesAreAnswered() {
+        List<BookQueryResultDTO> results = bookMultiQueryService.findAll(Arrays.asList(query("first", 1L), query("second", 1L)));
+
+        assertThat(results).extracting(BookQueryResultDTO::getName).containsExactly("first", "second");
+        assertThat(results).extracting(BookQueryResultDTO::getStatus).containsOnly(BookQueryResultDTO.Status.OK);
+        assertThat(results.get(0).getBooks()).extracting(Book::getTitle).containsExactly("Found");
+    }
+
+    @Test
+    public void testLateQueryTimesOut() {
+        List<BookQueryResultDTO> results = bookMultiQueryService.findAll(Collections.singletonList(query("late", 0L)));
+
+        assertThat(results.get(0).getStatus()).isEqualTo(BookQueryResultDTO.Status.TIMEOUT);
+    }
+
+    @Test
+    public void testQueryNeverStartedTimesOutAtTheOverallDeadline() {
+        long start = System.nanoTime();
+
+        List<BookQueryResultDTO> results = bookMultiQueryService.findAll(Arrays.asList(query("late", 0L), query("queued", 1L)));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(results).extracting(BookQueryResultDTO::getStatus)
+            .containsExactly(BookQueryResultDTO.Status.TIMEOUT, BookQueryResultDTO.Status.TIMEOUT);
+    }
+
+    private static BookQueryDTO query(String name, Long after) {
+        BookQueryDTO query = new BookQueryDTO();
+        query.setName(name);
+        query.setAfter(after);
+        query.setSize(20);
+        return query;
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BookReadCoalescerTest {
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService callers;
+    private CountDownLatch readStarted;
+    private CountDownLatch readReleased;
+    private AtomicInteger reads;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        callers = Executors.newCachedThreadPool();
+        readStarted = new CountDownLatch(1);
+        readReleased = new CountDownLatch(1);
+        reads = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void destroy() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void testIdenticalReadInFlightIsCoalesced() throws Exception {
+        BookReadCoalescer coalescer = new BookReadCoalescer(applicationProperties, meterRegistry);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.read("key", blockingRead("leader")), callers);
+        assertThat(readStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> coalescer.read("key", blockingRead("follower")), callers);
+        awaitCoalesced(follower::isDone, 200);
+        readReleased.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("leader");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("leader");
+        assertThat(reads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.reads.coalesced").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testReadAfterTheFlightIsNotCoalesced() {
+        BookReadCoalescer coalescer = new BookReadCoalescer(applicationProperties, meterRegistry);
+        readReleased.countDown();
+
+        assertThat(coalescer.read("key", blockingRead("first"))).isEqualTo("first");
+        assertThat(coalescer.read("key", blockingRead("second"))).isEqualTo("second");
+        assertThat(meterRegistry.get("book.reads.coalesced").counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWaitingReadTimesOutAndReadsOnItsOwn() throws Exception {
+        applicationProperties.getCoalescing().setTimeout(Duration.ofMillis(50));
+        BookReadCoalescer coalescer = new BookReadCoalescer(applicationProperties, meterRegistry);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.read("key", blockingRead("leader")), callers);
+        assertThat(readStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(coalescer.read("key", () -> "follower")).isEqualTo("follower");
+        assertThat(meterRegistry.get("book.reads.coalescing.timeouts").counter().count()).isEqualTo(1);
+        readReleased.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("leader");
+    }
+
+    @Test
+    public void testFailureOfTheReadIsSharedByTheWaitingReads() throws Exception {
+        BookReadCoalescer coalescer = new BookReadCoalescer(applicationProperties, meterRegistry);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(
+            () -> coalescer.read("key", () -> {
+                blockingRead("leader").get();
+                throw new IllegalStateException("failed");
+            }),
+            callers
+        );
+        assertThat(readStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> coalescer.read("key", () -> "follower"), callers);
+        awaitCoalesced(follower::isDone, 200);
+        readReleased.countDown();
+
+        assertThatThrownBy(follower::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(leader::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private Supplier<String> blockingRead(String result) {
+        return () -> {
+            reads.incrementAndGet();
+            readStarted.countDown();
+            try {
+                readReleased.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Gives the second read time to join the first one; it must not finish on its own meanwhile.
+     */
+    private void awaitCoalesced(Supplier<Boolean> finished, long millis) throws InterruptedException {
+        Thread.sleep(millis);
+        assertThat(finished.get()).isFalse();
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.dadikovi.domain.Book;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BookSearchIndexTest {
+    private BookSearchIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new BookSearchIndex(1.2, 0.75);
+        index.add(book(1L, "Crime and Punishment", "Fyodor Dostoevsky", "The Russian Messenger"));
+        index.add(book(2L, "The Idiot", "Fyodor Dostoevsky", "The Russian Messenger"));
+        index.add(book(3L, "War and Peace", "Lev Tolstoy", "The Russian Messenger"));
+        index.add(book(4L, "Les Misérables", "Victor Hugo", "A. Lacroix, Verboeckhoven & Ce."));
+        index.add(book(5L, "Crime, Crime, Crime: a Very Long Anthology of Crime Stories of the Century", "Various", null));
+    }
+
+    @Test
+    public void testTokenizeFoldsCaseAndAccents() {
+        assertThat(BookSearchIndex.tokenize("Les Misérables, ÉCOLE-2nd")).containsExactly("les", "miserables", "ecole", "2nd");
+        assertThat(BookSearchIndex.tokenize("  ...  ")).isEmpty();
+        assertThat(BookSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    public void testRareWordsRankHigher() {
+        List<BookSearchIndex.Hit> hits = index.search("idiot dostoevsky", 10);
+
+        assertThat(hits).extracting(BookSearchIndex.Hit::getId).containsExactly(2L, 1L);
+        assertThat(hits.get(0).getScore()).isGreaterThan(hits.get(1).getScore());
+    }
+
+    @Test
+    public void testRepeatedWordsSaturate() {
+        List<BookSearchIndex.Hit> hits = index.search("crime", 10);
+
+        assertThat(hits).extracting(BookSearchIndex.Hit::getId).containsExactlyInAnyOrder(1L, 5L);
+        // Four occurrences in a long title do not count four times as much as one in a short title
+        assertThat(hits.get(0).getScore()).isLessThan(hits.get(1).getScore() * 2);
+    }
+
+    @Test
+    public void testEqualScoresAreOrderedById() {
+        // The two books have the same number of words
+        assertThat(index.search("and", 10)).extracting(BookSearchIndex.Hit::getId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    public void testOnlyTheBestHitsAreReturned() {
+        assertThat(index.search("messenger idiot", 2)).extracting(BookSearchIndex.Hit::getId).containsExactly(2L, 1L);
+        assertThat(index.search("messenger", 0)).isEmpty();
+    }
+
+    @Test
+    public void testQueryIsFoldedLikeTheBooks() {
+        assertThat(index.search("MISERABLES", 10)).extracting(BookSearchIndex.Hit::getId).containsExactly(4L);
+        assertThat(index.search("unknown", 10)).isEmpty();
+    }
+
+    @Test
+    public void testRemovedBookIsNotFound() {
+        index.remove(2L);
+
+        assertThat(index.search("idiot dostoevsky", 10)).extracting(BookSearchIndex.Hit::getId).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void testChangedBookIsFoundByItsNewWords() {
+        index.add(book(2L, "The Gambler", "Fyodor Dostoevsky", "Stellovsky"));
+
+        assertThat(index.search("idiot", 10)).isEmpty();
+        assertThat(index.search("gambler", 10)).extracting(BookSearchIndex.Hit::getId).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void testBookWithoutWordsIsNotIndexed() {
+        index.add(book(1L, null, null, null));
+
+        assertThat(index.search("crime punishment", 10)).extracting(BookSearchIndex.Hit::getId).containsExactly(5L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    private static Book book(Long id, String title, String author, String publisher) {
+        Book book = new Book().title(title).author(author).publisher(publisher);
+        book.setId(id);
+        return book;
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.netflix.hystrix.Hystrix;
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.service.BookStaleReadService.StaleRead;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+public class BookStaleReadServiceTest {
+    private ApplicationProperties applicationProperties;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getStaleReads().setEnabled(true);
+        applicationProperties.getStaleReads().setLatencyBudget(Duration.ofMillis(200));
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void destroy() {
+        Hystrix.reset();
+    }
+
+    @Test
+    public void testDisabledReadRunsOnTheCallersThread() {
+        applicationProperties.getStaleReads().setEnabled(false);
+        BookStaleReadService service = new BookStaleReadService(applicationProperties, transactionManager, meterRegistry);
+
+        StaleRead<String> read = service.read("key", "\"1\"", () -> Thread.currentThread().getName());
+
+        assertThat(read.getValue()).isEqualTo(Thread.currentThread().getName());
+        assertThat(read.isStale()).isFalse();
+    }
+
+    @Test
+    public void testFirstReadRunsOnTheCallersThread() {
+        BookStaleReadService service = new BookStaleReadService(applicationProperties, transactionManager, meterRegistry);
+
+        StaleRead<String> read = service.read("key", "\"1\"", () -> Thread.currentThread().getName());
+
+        assertThat(read.getValue()).isEqualTo(Thread.currentThread().getName());
+        assertThat(read.getETag()).isEqualTo("\"1\"");
+        assertThat(read.isStale()).isFalse();
+    }
+
+    @Test
+    public void testReadWithinTheBudgetIsFresh() {
+        BookStaleReadService service = new BookStaleReadService(applicationProperties, transactionManager, meterRegistry);
+        service.read("key", "\"1\"", () -> "first");
+
+        StaleRead<String> read = service.read("key", "\"2\"", () -> "second");
+
+        assertThat(read.getValue()).isEqualTo("second");
+        assertThat(read.getETag()).isEqualTo("\"2\"");
+        assertThat(read.isStale()).isFalse();
+    }
+
+    @Test
+    public void testLateReadIsAnsweredStaleAndRefreshesInTheBackground() throws Exception {
+        BookStaleReadService service = new BookStaleReadService(applicationProperties, transactionManager, meterRegistry);
+        service.read("key", "\"1\"", () -> "first");
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        StaleRead<String> read = service.read("key", "\"2\"", () -> {
+            await(released);
+            finished.countDown();
+            return "second";
+        });
+
+        assertThat(read.getValue()).isEqualTo("first");
+        assertThat(read.getETag()).isEqualTo("\"1\"");
+        assertThat(read.isStale()).isTrue();
+        assertThat(meterRegistry.get("book.reads.stale").counter().count()).isEqualTo(1);
+
+        released.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicReference<StaleRead<String>> refreshed = new AtomicReference<>();
+        awaitRefreshed(() -> refreshed.set(service.read("key", "\"2\"", () -> {
+            throw new DataAccessResourceFailureException("Down");
+        })), refreshed, "second");
+        assertThat(refreshed.get().getETag()).isEqualTo("\"2\"");
+    }
+
+    @Test
+    public void testRejectedReadRunsOnTheCallersThread() {
+        applicationProperties.getStaleReads().setPoolSize(1);
+        applicationProperties.getStaleReads().setQueueSize(0);
+        BookStaleReadService service = new BookStaleReadService(applicationProperties, transactionManager, meterRegistry);
+        service.read("late", "\"1\"", () -> "first");
+        service.read("key", "\"1\"", () -> "first");
+        CountDownLatch released = new CountDownLatch(1);
+        // The late read keeps the only thread of the pool
+        service.read("late", "\"2\"", () -> {
+            await(released);
+            return "second";
+        });
+
+        StaleRead<String> read = service.read("key", "\"2\"", () -> Thread.currentThread().getName());
+        released.countDown();
+
+        assertThat(read.getValue()).isEqualTo(Thread.currentThread().getName());
+        assertThat(read.getETag()).isEqualTo("\"2\"");
+        assertThat(read.isStale()).isFalse();
+        assertThat(meterRegistry.get("book.reads.stale").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCommandReadsInAReadOnlyTransaction() {
+        BookStaleReadService service = new BookStaleReadService(applicationProperties, transactionManager, meterRegistry);
+        service.read("key", "\"1\"", () -> "first");
+
+        service.read("key", "\"2\"", () -> "second");
+
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    public void testDatabaseFailureIsAnsweredStale() {
+        BookStaleReadService service = new BookStaleReadService(applicationProperties, transactionManager, meterRegistry);
+        service.read("key", "\"1\"", () -> "first");
+
+        StaleRead<String> read = service.read("key", "\"2\"", () -> {
+            throw new DataAccessResourceFailureException("Down");
+        });
+
+        assertThat(read.getValue()).isEqualTo("first");
+        assertThat(read.isStale()).isTrue();
+    }
+
+    @Test
+    public void testDatabaseFailureWithoutLastValueIsThrown() {
+        BookStaleReadService service = new BookStaleReadService(applicationProperties, transactionManager, meterRegistry);
+
+        assertThatThrownBy(() -> service.read("key", "\"1\"", () -> {
+            throw new DataAccessResourceFailureException("Down");
+        })).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    public void testOtherFailureIsThrown() {
+        BookStaleReadService service = new BookStaleReadService(applicationProperties, transactionManager, meterRegistry);
+        service.read("key", "\"1\"", () -> "first");
+
+        assertThatThrownBy(() -> service.read("key", "\"2\"", () -> {
+            throw new IllegalStateException("Bug");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("Bug");
+        assertThat(meterRegistry.get("book.reads.stale").counter().count()).isEqualTo(0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The late read remembers its value right after it returns, so it is polled for a while.
+     */
+    private static void awaitRefreshed(Runnable read, AtomicReference<StaleRead<String>> result, String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        do {
+            read.run();
+            if (expected.equals(result.get().getValue())) {
+                return;
+            }
+            Thread.sleep(10);
+        } while (System.nanoTime() < deadline);
+        assertThat(result.get().getValue()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.dadikovi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.dadikovi.config.ApplicationProperties;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.domain.ShelfChangedMessage;
+import io.github.dadikovi.domain.enumeration.ChangeType;
+import io.github.dadikovi.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class CatalogueSnapshotServiceTest {
+    private BookRepository bookRepository;
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogueSnapshotService createdDuringRebuild;
+
+    @BeforeEach
+    public void setup() {
+        bookRepository = mock(BookRepository.class);
+        when(bookRepository.streamAll(anyInt())).thenAnswer(invocation -> Stream.of(book(1L, "Tolstoy"), book(3L, "Adams"), book(5L, "Tolstoy")));
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSnapshot().setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testSnapshotIsLoadedWhenTheApplicationIsReady() {
+        CatalogueSnapshotService snapshot = createCatalogueSnapshotService();
+        assertThat(snapshot.isServing()).isFalse();
+
+        snapshot.onApplicationReady();
+
+        assertThat(snapshot.isServing()).isTrue();
+        assertThat(snapshot.findById(3L)).map(Book::getAuthor).contains("Adams");
+        assertThat(snapshot.findById(2L)).isEmpty();
+        assertThat(meterRegistry.get("book.snapshot.size").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("book.snapshot.rebuild").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPagesAreFilteredAfterTheKey() {
+        CatalogueSnapshotService snapshot = createCatalogueSnapshotService();
+        snapshot.onApplicationReady();
+
+        Slice<Book> first = snapshot.findAllAfter((columns, row) -> "Tolstoy".equals(columns.getAuthor(row)), null, 1);
+        assertThat(first.getContent()).extracting(Book::getId).containsExactly(1L);
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<Book> second = snapshot.findAllAfter((columns, row) -> "Tolstoy".equals(columns.getAuthor(row)), 2L, 1);
+        assertThat(second.getContent()).extracting(Book::getId).containsExactly(5L);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testChangesArePublished() {
+        CatalogueSnapshotService snapshot = createCatalogueSnapshotService();
+        snapshot.onApplicationReady();
+
+        snapshot.onShelfChanged(new ShelfChangedMessage(ChangeType.CREATE, book(4L, "Austen")));
+        snapshot.onShelfChanged(new ShelfChangedMessage(ChangeType.UPDATE, book(1L, "Tolstoy, Lev")));
+        snapshot.onShelfChanged(new ShelfChangedMessage(ChangeType.DELETE, book(3L, null)));
+
+        assertThat(snapshot.findAllAfter(BookColumnPredicate.all(), null, 10).getContent())
+            .extracting(Book::getAuthor)
+            .containsExactly("Tolstoy, Lev", "Austen", "Tolstoy");
+    }
+
+    @Test
+    public void testChangesDuringTheRebuildAreKept() {
+        when(bookRepository.streamAll(anyInt()))
+            .thenAnswer(
+                invocation -> {
+                    createdDuringRebuild.onShelfChanged(new ShelfChangedMessage(ChangeType.CREATE, book(7L, "Austen")));
+                    return Stream.of(book(1L, "Tolstoy"));
+                }
+            );
+        createdDuringRebuild = createCatalogueSnapshotService();
+
+        createdDuringRebuild.onApplicationReady();
+
+        assertThat(createdDuringRebuild.findAllAfter(BookColumnPredicate.all(), null, 10).getContent()).extracting(Book::getId).containsExactly(1L, 7L);
+    }
+
+    @Test
+    public void testBooksAreStoredInColumns() {
+        Book book = book(9L, "Tolstoy")
+            .title("Война и мир")
+            .publisher("The Russian Messenger")
+            .publishYear(1869L)
+            .createdAt(Instant.ofEpochSecond(1_600_000_000L, 123_456_789))
+            .count(3L);
+        when(bookRepository.streamAll(anyInt())).thenAnswer(invocation -> Stream.of(book(8L, null), book));
+        CatalogueSnapshotService snapshot = createCatalogueSnapshotService();
+        snapshot.onApplicationReady();
+
+        Book found = snapshot.findById(9L).orElseThrow(IllegalStateException::new);
+        assertThat(found).isNotSameAs(book);
+        assertThat(found).isEqualToComparingFieldByField(book);
+        assertThat(snapshot.findById(8L).orElseThrow(IllegalStateException::new)).isEqualToComparingFieldByField(book(8L, null));
+        assertThat(snapshot.findAllAfter((columns, row) -> columns.hasPublishYear(row) && columns.getPublishYear(row) == 1869L, null, 10).getContent())
+            .extracting(Book::getId)
+            .containsExactly(9L);
+        assertThat(meterRegistry.get("book.snapshot.memory").tag("area", "heap").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("book.snapshot.memory").tag("area", "nonheap").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("book.snapshot.memory.per.book").gauge().value()).isPositive();
+    }
+
+    private CatalogueSnapshotService createCatalogueSnapshotService() {
+        return new CatalogueSnapshotService(bookRepository, mock(PlatformTransactionManager.class), applicationProperties, meterRegistry);
+    }
+
+    private static Book book(Long id, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setAuthor(author);
+        return book;
+    }
+}
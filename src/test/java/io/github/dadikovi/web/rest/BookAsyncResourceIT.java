@@ -0,0 +1,141 @@
+package io.github.dadikovi.web.rest;
+
+import io.github.dadikovi.LibraryShelfApp;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link BookAsyncResource} REST controller.
+ * <p>
+ * The endpoints run in their own transactions on other threads, so the books of the tests are committed.
+ */
+@SpringBootTest(classes = LibraryShelfApp.class)
+@AutoConfigureMockMvc
+@WithMockUser
+public class BookAsyncResourceIT {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MockMvc restBookMockMvc;
+
+    @MockBean(name = "template")
+    private AmqpTemplate template;
+
+    private Book book;
+
+    @BeforeEach
+    public void initTest() {
+        book = bookRepository.saveAndFlush(new Book()
+            .title("Anna Karenina")
+            .author("Leo Tolstoy")
+            .publisher("The Russian Messenger")
+            .publishYear(1878L)
+            .createdAt(Instant.ofEpochMilli(0L))
+            .count(1L));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        bookRepository.findAll().stream()
+            .filter(saved -> "Leo Tolstoy".equals(saved.getAuthor()))
+            .forEach(bookRepository::delete);
+    }
+
+    @Test
+    public void getBook() throws Exception {
+        MvcResult result = restBookMockMvc.perform(get("/api/async/books/{id}", book.getId()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        String eTag = restBookMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(book.getId().intValue()))
+            .andExpect(jsonPath("$.title").value("Anna Karenina"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult notModified = restBookMockMvc.perform(get("/api/async/books/{id}", book.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restBookMockMvc.perform(asyncDispatch(notModified))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getNonExistingBook() throws Exception {
+        MvcResult result = restBookMockMvc.perform(get("/api/async/books/{id}", Long.MAX_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restBookMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getAllBooks() throws Exception {
+        MvcResult result = restBookMockMvc.perform(get("/api/async/books?author.equals=Leo Tolstoy&size=1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restBookMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(book.getId().intValue()));
+    }
+
+    @Test
+    public void createAndDeleteBook() throws Exception {
+        Book created = new Book().title("Resurrection").author("Leo Tolstoy").publishYear(1899L);
+        MvcResult result = restBookMockMvc.perform(post("/api/async/books")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(created)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restBookMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.title").value("Resurrection"));
+        Book saved = bookRepository.findAll().stream()
+            .filter(candidate -> "Resurrection".equals(candidate.getTitle()))
+            .findFirst().orElseThrow(IllegalStateException::new);
+
+        MvcResult deleted = restBookMockMvc.perform(delete("/api/async/books/{id}", saved.getId()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restBookMockMvc.perform(asyncDispatch(deleted))
+            .andExpect(status().isNoContent());
+        assertThat(bookRepository.findById(saved.getId())).isEmpty();
+    }
+
+    @Test
+    public void createBookWithExistingIdIsRejected() throws Exception {
+        MvcResult result = restBookMockMvc.perform(post("/api/async/books")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(book)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        restBookMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.dadikovi.web.rest;
+
+import static io.github.dadikovi.web.rest.BookFormatsTest.BOOKS;
+import static io.github.dadikovi.web.rest.BookFormatsTest.BOOK_LIST;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.dadikovi.domain.Book;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Compares the encoding and decoding time of a page of books in JSON and in the binary formats.
+ * <p>
+ * Only runs with the {@code benchmark} Maven profile. The times are logged, as they depend on the machine. Raise
+ * {@link #ROUNDS} to get stable times.
+ */
+@Tag("benchmark")
+public class BookFormatsBenchmarkTest {
+    private static final int WARM_UP_ROUNDS = 50;
+    private static final int ROUNDS = 100;
+
+    private final Logger log = LoggerFactory.getLogger(BookFormatsBenchmarkTest.class);
+
+    @Test
+    public void compareFormats() throws IOException {
+        List<Book> books = BookFormatsTest.books();
+
+        measure("JSON", Jackson2ObjectMapperBuilder.json(), books);
+        measure("Smile", Jackson2ObjectMapperBuilder.smile(), books);
+        measure("CBOR", Jackson2ObjectMapperBuilder.cbor(), books);
+    }
+
+    private void measure(String format, Jackson2ObjectMapperBuilder builder, List<Book> books) throws IOException {
+        ObjectMapper objectMapper = BookFormatsTest.objectMapper(builder);
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            objectMapper.readValue(objectMapper.writeValueAsBytes(books), BOOK_LIST);
+        }
+        byte[] encoded = null;
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoded = objectMapper.writeValueAsBytes(books);
+            long encodedAt = System.nanoTime();
+            objectMapper.readValue(encoded, BOOK_LIST);
+            decodeNanos += System.nanoTime() - encodedAt;
+            encodeNanos += encodedAt - start;
+        }
+        log.info("{} books as {}: {} bytes, encoded in {} us, decoded in {} us",
+            BOOKS, format, encoded.length, encodeNanos / ROUNDS / 1000, decodeNanos / ROUNDS / 1000);
+    }
+}
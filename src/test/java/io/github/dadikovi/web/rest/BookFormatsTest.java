@@ -0,0 +1,74 @@
+package io.github.dadikovi.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.dadikovi.domain.Book;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Compares the payload size of a page of books in JSON and in the binary formats. The encoding and decoding times
+ * are compared by the {@link BookFormatsBenchmarkTest}.
+ */
+public class BookFormatsTest {
+    static final int BOOKS = 1000;
+    static final TypeReference<List<Book>> BOOK_LIST = new TypeReference<List<Book>>() {};
+
+    @Test
+    public void testBinaryFormatsAreSmallerThanJson() throws IOException {
+        List<Book> books = books();
+
+        int json = encode(Jackson2ObjectMapperBuilder.json(), books).length;
+        int smile = encode(Jackson2ObjectMapperBuilder.smile(), books).length;
+        int cbor = encode(Jackson2ObjectMapperBuilder.cbor(), books).length;
+
+        assertThat(smile).isLessThan(json);
+        assertThat(cbor).isLessThan(json);
+    }
+
+    /**
+     * Encodes the books, and checks that they are decoded unchanged.
+     */
+    private static byte[] encode(Jackson2ObjectMapperBuilder builder, List<Book> books) throws IOException {
+        ObjectMapper objectMapper = objectMapper(builder);
+        byte[] encoded = objectMapper.writeValueAsBytes(books);
+        assertThat(objectMapper.readValue(encoded, BOOK_LIST)).extracting(Book::getTitle)
+            .containsExactlyElementsOf(books.stream().map(Book::getTitle).collect(Collectors.toList()));
+        return encoded;
+    }
+
+    static ObjectMapper objectMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.modules(new JavaTimeModule()).build();
+    }
+
+    static List<Book> books() {
+        String[][] authors = {
+            { "Leo Tolstoy", "The Russian Messenger" },
+            { "Douglas Adams", "Pan Books" },
+            { "Jane Austen", "Thomas Egerton" },
+            { "Fyodor Dostoevsky", "The Russian Messenger" },
+        };
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            String[] author = authors[i % authors.length];
+            Book book = new Book()
+                .title("Book number " + i + " of the catalogue")
+                .author(author[0])
+                .publisher(author[1])
+                .publishYear(1800L + i % 220)
+                .createdAt(Instant.ofEpochSecond(1_500_000_000L + 3600L * i))
+                .count((long) (i % 7));
+            book.setId(100_000L + i);
+            books.add(book);
+        }
+        return books;
+    }
+}
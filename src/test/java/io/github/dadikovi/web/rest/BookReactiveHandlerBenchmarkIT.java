@@ -0,0 +1,142 @@
+package io.github.dadikovi.web.rest;
+
+import io.github.dadikovi.LibraryShelfApp;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.security.AuthoritiesConstants;
+import io.github.dadikovi.security.jwt.TokenProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Side-by-side benchmark of the servlet and the reactive stacks, see {@link BookReactiveHandler}.
+ * <p>
+ * Only runs with the {@code benchmark} Maven profile. The throughputs are logged, as they depend on the machine.
+ * With H2 the reactive stack reads the database on its event loop threads, so run the benchmark against MySQL
+ * for representative numbers.
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = LibraryShelfApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"application.reactive.enabled=true", "application.reactive.port=0"})
+public class BookReactiveHandlerBenchmarkIT {
+
+    private static final String AUTHOR = "Mikhail Bulgakov";
+    private static final int BOOKS = 100;
+    private static final int WARM_UP_REQUESTS = 500;
+    private static final int REQUESTS = 2000;
+    private static final int CONCURRENCY = 64;
+
+    private final Logger log = LoggerFactory.getLogger(BookReactiveHandlerBenchmarkIT.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private DisposableServer reactiveBookServer;
+
+    @LocalServerPort
+    private int servletPort;
+
+    @MockBean(name = "template")
+    private AmqpTemplate template;
+
+    private final List<Book> books = new ArrayList<>();
+
+    private String authorization;
+
+    @BeforeEach
+    public void initTest() {
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(bookRepository.saveAndFlush(new Book()
+                .title("The Master and Margarita " + i)
+                .author(AUTHOR)
+                .publisher("YMCA Press")
+                .publishYear(1967L)
+                .createdAt(Instant.ofEpochSecond(i))
+                .count(1L)));
+        }
+        authorization = "Bearer " + tokenProvider.createToken(new UsernamePasswordAuthenticationToken("user", "",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))), false);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        bookRepository.findAll().stream()
+            .filter(saved -> AUTHOR.equals(saved.getAuthor()))
+            .forEach(bookRepository::delete);
+    }
+
+    @Test
+    public void compareServletAndReactiveThroughput() {
+        WebClient servlet = client(servletPort);
+        WebClient reactive = client(reactiveBookServer.port());
+
+        run(servlet, WARM_UP_REQUESTS);
+        run(reactive, WARM_UP_REQUESTS);
+        long servletNanos = run(servlet, REQUESTS);
+        long reactiveNanos = run(reactive, REQUESTS);
+
+        log.info("{} concurrent GET /api/books/:id requests: servlet {} requests/s, reactive {} requests/s",
+            REQUESTS, REQUESTS * 1_000_000_000L / servletNanos, REQUESTS * 1_000_000_000L / reactiveNanos);
+    }
+
+    /**
+     * Reads the books, {@link #CONCURRENCY} at a time, and checks every response.
+     *
+     * @return the time it took, in nanoseconds.
+     */
+    private long run(WebClient client, int requests) {
+        long start = System.nanoTime();
+        List<Long> read = Flux.range(0, requests)
+            .flatMap(i -> client.get().uri("/api/books/{id}", books.get(i % BOOKS).getId()).retrieve().bodyToMono(Book.class), CONCURRENCY)
+            .map(Book::getId)
+            .collectList()
+            .block(Duration.ofMinutes(2));
+        long nanos = System.nanoTime() - start;
+        assertThat(read).hasSize(requests);
+        assertThat(ids(books)).containsAll(read);
+        return nanos;
+    }
+
+    private WebClient client(int port) {
+        return WebClient.builder()
+            .baseUrl("http://localhost:" + port)
+            .defaultHeader(HttpHeaders.AUTHORIZATION, authorization)
+            .build();
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        List<Long> ids = new ArrayList<>();
+        for (Book book : books) {
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.dadikovi.web.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.dadikovi.LibraryShelfApp;
+import io.github.dadikovi.domain.Book;
+import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.security.AuthoritiesConstants;
+import io.github.dadikovi.security.jwt.TokenProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.DisposableServer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the {@link BookReactiveHandler}. The throughputs of the servlet and the reactive stacks are
+ * compared by the {@link BookReactiveHandlerBenchmarkIT}.
+ * <p>
+ * The server is called over HTTP, so the books of the tests are committed.
+ */
+@SpringBootTest(classes = LibraryShelfApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"application.reactive.enabled=true", "application.reactive.port=0"})
+public class BookReactiveHandlerIT {
+
+    private static final String AUTHOR = "Mikhail Bulgakov";
+    private static final int BOOKS = 100;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private DisposableServer reactiveBookServer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean(name = "template")
+    private AmqpTemplate template;
+
+    private final List<Book> books = new ArrayList<>();
+
+    private String authorization;
+
+    @BeforeEach
+    public void initTest() {
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(bookRepository.saveAndFlush(new Book()
+                .title("The Master and Margarita " + i)
+                .author(AUTHOR)
+                .publisher("YMCA Press")
+                .publishYear(1967L)
+                .createdAt(Instant.ofEpochSecond(i))
+                .count(1L)));
+        }
+        authorization = "Bearer " + tokenProvider.createToken(new UsernamePasswordAuthenticationToken("user", "",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))), false);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        bookRepository.findAll().stream()
+            .filter(saved -> AUTHOR.equals(saved.getAuthor()))
+            .forEach(bookRepository::delete);
+    }
+
+    @Test
+    public void getBook() {
+        Book book = books.get(0);
+
+        ClientResponse response = reactive().get().uri("/api/books/{id}", book.getId()).exchange().block();
+
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        String eTag = response.headers().asHttpHeaders().getETag();
+        Book read = response.bodyToMono(Book.class).block();
+        assertThat(read.getId()).isEqualTo(book.getId());
+        assertThat(read.getTitle()).isEqualTo(book.getTitle());
+        assertThat(read.getCreatedAt()).isEqualTo(book.getCreatedAt());
+
+        ClientResponse notModified = reactive().get().uri("/api/books/{id}", book.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, eTag).exchange().block();
+        assertThat(notModified.statusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    public void getNonExistingBook() {
+        ClientResponse response = reactive().get().uri("/api/books/{id}", Long.MAX_VALUE).exchange().block();
+
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void getBookWithoutTokenIsUnauthorized() {
+        ClientResponse response = WebClient.create("http://localhost:" + reactiveBookServer.port())
+            .get().uri("/api/books/{id}", books.get(0).getId()).exchange().block();
+
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void getAllBooksIsPaged() {
+        Long before = books.get(0).getId() - 1;
+
+        ClientResponse response = reactive().get().uri("/api/books?after={after}&size=10", before).exchange().block();
+
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+        List<String> links = response.headers().header(HttpHeaders.LINK);
+        assertThat(links).hasSize(1);
+        assertThat(links.get(0)).contains("after=" + books.get(9).getId()).contains("rel=\"next\"");
+        assertThat(response.bodyToFlux(Book.class).map(Book::getId).collectList().block())
+            .containsExactlyElementsOf(ids(books.subList(0, 10)));
+    }
+
+    @Test
+    public void exportBooksStreamsEveryBook() {
+        List<Book> exported = reactive().get().uri("/api/books/export").retrieve()
+            .bodyToFlux(Book.class)
+            // Takes the books one by one, so the server has to wait for the client
+            .limitRate(1)
+            .collectList().block();
+
+        assertThat(ids(exported)).containsAll(ids(books));
+        assertThat(ids(exported)).isSorted();
+    }
+
+    private WebClient reactive() {
+        return WebClient.builder()
+            .baseUrl("http://localhost:" + reactiveBookServer.port())
+            .defaultHeader(HttpHeaders.AUTHORIZATION, authorization)
+            // The default decoder of Spring 5.2 does not read the NDJSON export
+            .codecs(codecs -> codecs.defaultCodecs()
+                .jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper, MediaType.APPLICATION_JSON, BookReactiveHandler.NDJSON)))
+            .build();
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        List<Long> ids = new ArrayList<>();
+        for (Book book : books) {
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+}
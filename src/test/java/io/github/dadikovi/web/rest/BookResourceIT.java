@@ -1,11 +1,17 @@
 package io.github.dadikovi.web.rest;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import io.github.dadikovi.LibraryShelfApp;
+import io.github.dadikovi.config.BinaryFormatsConfiguration;
 import io.github.dadikovi.config.ShelfChangedSender;
 import io.github.dadikovi.domain.Book;
 import io.github.dadikovi.domain.ShelfChangedMessage;
 import io.github.dadikovi.domain.enumeration.ChangeType;
 import io.github.dadikovi.repository.BookRepository;
+import io.github.dadikovi.service.CatalogueVersionService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,18 +24,27 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.MockBeans;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -68,6 +83,9 @@ public class BookResourceIT {
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private CatalogueVersionService catalogueVersionService;
+
     @Autowired
     private MockMvc restBookMockMvc;
 
@@ -197,6 +215,237 @@ public class BookResourceIT {
             .andExpect(jsonPath("$.[*].count").value(hasItem(DEFAULT_COUNT.intValue())));
     }
 
+    @Test
+    @Transactional
+    public void getAllBooksPaginated() throws Exception {
+        // Initialize the database
+        Book first = bookRepository.saveAndFlush(warAndPeace());
+        Book second = bookRepository.saveAndFlush(hitchhikersGuideToTheGalaxy());
+        Book third = bookRepository.saveAndFlush(createEntity(em));
+
+        // Get the first page, which has a link to the next one
+        restBookMockMvc.perform(get("/api/books?after={after}&size=2", first.getId() - 1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("after=" + second.getId())));
+
+        // Get the last page, which has no link
+        restBookMockMvc.perform(get("/api/books?after={after}&size=2", second.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    @Transactional
+    public void getAllBooksWithInvalidPageSize() throws Exception {
+        restBookMockMvc.perform(get("/api/books?size=0"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getAllBooksByExamplePaginated() throws Exception {
+        // Insert two matching books and a non-matching one
+        Book first = bookRepository.saveAndFlush(warAndPeace());
+        bookRepository.saveAndFlush(createEntity(em));
+        Book second = bookRepository.saveAndFlush(hitchhikersGuideToTheGalaxy());
+
+        // The link of the next page keeps the filter
+        restBookMockMvc.perform(get("/api/books-filtered?count=2&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("count=2")))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("after=" + first.getId())));
+
+        restBookMockMvc.perform(get("/api/books-filtered?count=2&size=1&after={after}", first.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().intValue()))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    @Transactional
+    public void getAllBooksWithSparseFields() throws Exception {
+        // Initialize the database
+        bookRepository.saveAndFlush(book);
+
+        // Get only some fields of the books
+        restBookMockMvc.perform(get("/api/books?fields=title,count"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE)))
+            .andExpect(jsonPath("$.[*].count").value(hasItem(DEFAULT_COUNT.intValue())))
+            .andExpect(jsonPath("$.[*].id").doesNotExist())
+            .andExpect(jsonPath("$.[*].author").doesNotExist())
+            .andExpect(jsonPath("$.[*].createdAt").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    public void getAllBooksByExampleWithSparseFields() throws Exception {
+        // Insert two books
+        bookRepository.saveAndFlush(warAndPeace());
+        bookRepository.saveAndFlush(hitchhikersGuideToTheGalaxy());
+
+        restBookMockMvc.perform(get("/api/books-filtered?author=" + LEO_TOLSTOY + "&fields=id,title"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").exists())
+            .andExpect(jsonPath("$.[0].title").value(WAR_AND_PEACE))
+            .andExpect(jsonPath("$.[0].author").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    public void getAllBooksWithUnknownFields() throws Exception {
+        restBookMockMvc.perform(get("/api/books?fields=title,isbn"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getBooksById() throws Exception {
+        // Insert two books
+        Book first = bookRepository.saveAndFlush(warAndPeace());
+        Book second = bookRepository.saveAndFlush(hitchhikersGuideToTheGalaxy());
+
+        // The books are returned in the requested order, with the missing ids
+        restBookMockMvc.perform(get("/api/books?ids={second},{missing},{first},{second}", second.getId(), Long.MAX_VALUE, first.getId(), second.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.books", hasSize(2)))
+            .andExpect(jsonPath("$.books.[0].id").value(second.getId().intValue()))
+            .andExpect(jsonPath("$.books.[1].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.missingIds", hasSize(1)))
+            .andExpect(jsonPath("$.missingIds.[0]").value(Long.MAX_VALUE));
+    }
+
+    @Test
+    @Transactional
+    public void lookupBooks() throws Exception {
+        // Insert two books
+        Book first = bookRepository.saveAndFlush(warAndPeace());
+        Book second = bookRepository.saveAndFlush(hitchhikersGuideToTheGalaxy());
+
+        restBookMockMvc.perform(post("/api/books/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(first.getId(), second.getId()))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.books.[0].title").value(WAR_AND_PEACE))
+            .andExpect(jsonPath("$.books.[1].id").value(second.getId().intValue()))
+            .andExpect(jsonPath("$.missingIds", hasSize(0)));
+    }
+
+    @Test
+    @Transactional
+    public void lookupTooManyBooks() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().collect(Collectors.toList());
+
+        restBookMockMvc.perform(post("/api/books/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(ids)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getAllBooksByCriteria() throws Exception {
+        // Insert two books
+        bookRepository.saveAndFlush(warAndPeace());
+        bookRepository.saveAndFlush(hitchhikersGuideToTheGalaxy());
+
+        defaultBookShouldBeFound("publishYear.lessThan=1900");
+        defaultBookShouldBeFound("publishYear.greaterThanOrEqual=1800&publishYear.lessThanOrEqual=1870");
+        defaultBookShouldBeFound("author.in=" + LEO_TOLSTOY + ",Someone Else");
+        defaultBookShouldBeFound("title.startsWith=War");
+        defaultBookShouldBeFound("title.startsWith=War&count.equals=2");
+
+        defaultBookShouldNotBeFound("title.startsWith=War_");
+        defaultBookShouldNotBeFound("title.startsWith=Peace");
+        defaultBookShouldNotBeFound("publishYear.greaterThan=2000");
+    }
+
+    @Test
+    @Transactional
+    public void getAllBooksByUnindexedCriteria() throws Exception {
+        restBookMockMvc.perform(get("/api/books?title.contains=Peace"))
+            .andExpect(status().isBadRequest());
+        restBookMockMvc.perform(get("/api/books?author.notEquals=" + LEO_TOLSTOY))
+            .andExpect(status().isBadRequest());
+        restBookMockMvc.perform(get("/api/books?publishYear.notIn=1869"))
+            .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Executes the search, and checks that War and Peace is the only book returned.
+     */
+    private void defaultBookShouldBeFound(String filter) throws Exception {
+        restBookMockMvc.perform(get("/api/books?" + filter))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].title").value(WAR_AND_PEACE));
+    }
+
+    /**
+     * Executes the search, and checks that no book is returned.
+     */
+    private void defaultBookShouldNotBeFound(String filter) throws Exception {
+        restBookMockMvc.perform(get("/api/books?" + filter))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void queryBooks() throws Exception {
+        String queries = "[" +
+            "{\"name\": \"old\", \"criteria\": {\"publishYear\": {\"lessThan\": 1900}}, \"size\": 5}," +
+            "{\"name\": \"invalid\", \"criteria\": {\"title\": {\"contains\": \"Peace\"}}}" +
+            "]";
+
+        // The results have their own status, in the order of the queries
+        restBookMockMvc.perform(post("/api/books/queries")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(queries))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].name").value("old"))
+            .andExpect(jsonPath("$.[0].status").value("OK"))
+            .andExpect(jsonPath("$.[0].books").isArray())
+            .andExpect(jsonPath("$.[1].name").value("invalid"))
+            .andExpect(jsonPath("$.[1].status").value("BAD_REQUEST"));
+    }
+
+    @Test
+    public void queryBooksWithoutName() throws Exception {
+        restBookMockMvc.perform(post("/api/books/queries")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"name\": \"named\"}, {\"size\": 5}]"))
+            .andExpect(status().isBadRequest());
+
+        restBookMockMvc.perform(post("/api/books/queries")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[]"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void queryTooManyBooks() throws Exception {
+        String queries = IntStream.rangeClosed(1, 21)
+            .mapToObj(i -> "{\"name\": \"query" + i + "\"}")
+            .collect(Collectors.joining(",", "[", "]"));
+
+        restBookMockMvc.perform(post("/api/books/queries")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(queries))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getOneBookByExample() throws Exception {
@@ -240,6 +489,42 @@ public class BookResourceIT {
             .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    @Transactional
+    public void exportBooksAsNdjson() throws Exception {
+        // Initialize the database
+        bookRepository.saveAndFlush(book);
+
+        // Export the books
+        restBookMockMvc.perform(get("/api/books/export?format=ndjson"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+            .andExpect(content().string(containsString("{\"id\":" + book.getId() + ",\"title\":\"" + DEFAULT_TITLE + "\"")))
+            .andExpect(content().string(endsWith("}\n")));
+    }
+
+    @Test
+    @Transactional
+    public void exportBooksAsCsv() throws Exception {
+        // Initialize the database
+        bookRepository.saveAndFlush(book);
+
+        // Export the books in the layout of the Liquibase fake data
+        restBookMockMvc.perform(get("/api/books/export?format=csv"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andExpect(content().string(startsWith("id;title;author;publisher;publish_year;created_at;count\n")))
+            .andExpect(content().string(containsString("\n" + book.getId() + ";" + DEFAULT_TITLE + ";" + DEFAULT_AUTHOR + ";"
+                + DEFAULT_PUBLISHER + ";" + DEFAULT_PUBLISH_YEAR + ";1970-01-01T00:00:00;" + DEFAULT_COUNT + "\n")));
+    }
+
+    @Test
+    @Transactional
+    public void exportBooksInUnknownFormat() throws Exception {
+        restBookMockMvc.perform(get("/api/books/export?format=xml"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getBook() throws Exception {
@@ -258,6 +543,101 @@ public class BookResourceIT {
             .andExpect(jsonPath("$.createdAt").value(DEFAULT_CREATED_AT.toString()))
             .andExpect(jsonPath("$.count").value(DEFAULT_COUNT.intValue()));
     }
+    @Test
+    @Transactional
+    public void getBookNotModified() throws Exception {
+        // Initialize the database
+        bookRepository.saveAndFlush(book);
+
+        String eTag = restBookMockMvc.perform(get("/api/books/{id}", book.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // The book has not changed
+        restBookMockMvc.perform(get("/api/books/{id}", book.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // The book has changed
+        catalogueVersionService.onShelfChanged(new ShelfChangedMessage(ChangeType.UPDATE, book));
+        restBookMockMvc.perform(get("/api/books/{id}", book.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(book.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getAllBooksNotModified() throws Exception {
+        // Initialize the database
+        bookRepository.saveAndFlush(book);
+
+        String eTag = restBookMockMvc.perform(get("/api/books"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // The catalogue has not changed
+        restBookMockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+
+        // An other book has been created
+        catalogueVersionService.onShelfChanged(new ShelfChangedMessage(ChangeType.CREATE, warAndPeace()));
+        restBookMockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    public void getBookAsSmile() throws Exception {
+        // Initialize the database
+        bookRepository.saveAndFlush(book);
+
+        String jsonETag = restBookMockMvc.perform(get("/api/books/{id}", book.getId()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult result = restBookMockMvc.perform(get("/api/books/{id}", book.getId())
+            .accept(BinaryFormatsConfiguration.APPLICATION_SMILE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(BinaryFormatsConfiguration.APPLICATION_SMILE))
+            .andReturn();
+
+        assertThat(result.getResponse().getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+        Book smileBook = new ObjectMapper(new SmileFactory()).findAndRegisterModules()
+            .readValue(result.getResponse().getContentAsByteArray(), Book.class);
+        assertThat(smileBook.getId()).isEqualTo(book.getId());
+        assertThat(smileBook.getTitle()).isEqualTo(DEFAULT_TITLE);
+        assertThat(smileBook.getCreatedAt()).isEqualTo(DEFAULT_CREATED_AT);
+        // The JSON entity tag does not validate the Smile representation
+        assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(jsonETag);
+        restBookMockMvc.perform(get("/api/books/{id}", book.getId())
+            .accept(BinaryFormatsConfiguration.APPLICATION_SMILE).header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    public void getAllBooksAsCborUnlessJsonIsPreferred() throws Exception {
+        // Initialize the database
+        bookRepository.saveAndFlush(book);
+
+        MvcResult result = restBookMockMvc.perform(get("/api/books").accept(BinaryFormatsConfiguration.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(BinaryFormatsConfiguration.APPLICATION_CBOR))
+            .andReturn();
+        List<Book> books = new ObjectMapper(new CBORFactory()).findAndRegisterModules()
+            .readValue(result.getResponse().getContentAsByteArray(), new TypeReference<List<Book>>() {});
+        assertThat(books).extracting(Book::getId).contains(book.getId());
+
+        restBookMockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT, "application/json, application/cbor;q=0.5"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
+        restBookMockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT, "*/*"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
+    }
+
     @Test
     @Transactional
     public void getNonExistingBook() throws Exception {